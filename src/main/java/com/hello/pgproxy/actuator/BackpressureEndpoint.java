@@ -0,0 +1,70 @@
+package com.hello.pgproxy.actuator;
+
+import com.hello.pgproxy.service.BackpressurePolicyManager;
+import com.hello.pgproxy.service.backpressure.BackpressureSettings;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.OptionalParameter;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * Reads and live-tunes the backpressure policy without a restart.
+ * e.g. {@code POST /actuator/backpressure {"backpressureHandler": "simple", "scaleUpInterval": 200}}
+ */
+@Component
+@Endpoint(id = "backpressure")
+@RequiredArgsConstructor
+public class BackpressureEndpoint {
+    private final BackpressurePolicyManager backpressurePolicyManager;
+
+    @Value
+    public static class BackpressurePolicyDescriptor {
+        BackpressureSettings settings;
+        Set<String> availableHandlers;
+    }
+
+    @ReadOperation
+    public BackpressurePolicyDescriptor policy() {
+        return new BackpressurePolicyDescriptor(
+                backpressurePolicyManager.getSettings(),
+                backpressurePolicyManager.getAvailableHandlerNames()
+        );
+    }
+
+    @WriteOperation
+    public BackpressurePolicyDescriptor update(
+            @OptionalParameter String backpressureHandler,
+            @OptionalParameter Integer start,
+            @OptionalParameter Integer max,
+            @OptionalParameter Long unpauseDelay,
+            @OptionalParameter Long scaleUpInterval,
+            @OptionalParameter Long scaleDownInterval,
+            @OptionalParameter Double scaleDownFactor
+    ) {
+        try {
+            // Unspecified parameters keep their current value
+            backpressurePolicyManager.updateSettings(current -> {
+                final var builder = current.toBuilder();
+                if (backpressureHandler != null) builder.backpressureHandler(backpressureHandler);
+                if (start != null) builder.start(start);
+                if (max != null) builder.max(max);
+                if (unpauseDelay != null) builder.unpauseDelay(unpauseDelay);
+                if (scaleUpInterval != null) builder.scaleUpInterval(scaleUpInterval);
+                if (scaleDownInterval != null) builder.scaleDownInterval(scaleDownInterval);
+                if (scaleDownFactor != null) builder.scaleDownFactor(scaleDownFactor);
+
+                return builder.build();
+            });
+        } catch (IllegalArgumentException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+        }
+
+        return policy();
+    }
+}
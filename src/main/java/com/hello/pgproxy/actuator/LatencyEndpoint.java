@@ -0,0 +1,31 @@
+package com.hello.pgproxy.actuator;
+
+import com.hello.pgproxy.service.latency.StageLatencyRecorder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Latency percentiles by stage and amount band since the last reset.
+ * e.g. {@code DELETE /actuator/latency} returns the ended interval and starts a new one
+ */
+@Component
+@Endpoint(id = "latency")
+@RequiredArgsConstructor
+public class LatencyEndpoint {
+    private final StageLatencyRecorder stageLatencyRecorder;
+
+    @ReadOperation
+    public Map<String, Map<String, StageLatencyRecorder.StagePercentiles>> latency() {
+        return stageLatencyRecorder.snapshot();
+    }
+
+    @DeleteOperation
+    public Map<String, Map<String, StageLatencyRecorder.StagePercentiles>> reset() {
+        return stageLatencyRecorder.reset();
+    }
+}
@@ -0,0 +1,37 @@
+package com.hello.pgproxy.actuator;
+
+import com.hello.pgproxy.service.BackpressureAutoTuner;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Inspects the backpressure tuner and freezes or resumes it.
+ * e.g. {@code POST /actuator/tuner {"frozen": true}}
+ */
+@Component
+@Endpoint(id = "tuner")
+@ConditionalOnProperty(prefix = "proxy.concurrency.tuner", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class TunerEndpoint {
+    private final BackpressureAutoTuner backpressureAutoTuner;
+
+    @ReadOperation
+    public BackpressureAutoTuner.TunerState state() {
+        return backpressureAutoTuner.getState();
+    }
+
+    @WriteOperation
+    public BackpressureAutoTuner.TunerState update(boolean frozen) {
+        if (frozen) {
+            backpressureAutoTuner.freeze();
+        } else {
+            backpressureAutoTuner.unfreeze();
+        }
+
+        return state();
+    }
+}
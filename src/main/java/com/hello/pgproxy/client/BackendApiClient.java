@@ -1,21 +1,245 @@
 package com.hello.pgproxy.client;
 
+import com.hello.pgproxy.configuration.BackendProperties;
+import com.hello.pgproxy.model.BackendOutcome;
 import com.hello.pgproxy.model.BackendRequest;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleResponseConsumer;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.nio.AsyncRequestProducer;
+import org.apache.hc.core5.http.nio.support.AsyncRequestBuilder;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
 
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Calls the backend through the shared pooled Apache {@link CloseableHttpAsyncClient}. Failures surface as the exceptions
+ * RestTemplate would throw, so callers classify the blocking and the async path the same way.
+ * <p>
+ * The body buffer goes back to the pool only once the backend has answered, since an aborted exchange may still be reading it.
+ */
 @Component
 @RequiredArgsConstructor
 public class BackendApiClient {
-    private final RestTemplate backendRestTemplate;
-    @Value("${backend.url}")
-    private String backendUrl;
+    private final CloseableHttpAsyncClient backendHttpClient;
+    private final ExecutorService backendCallbackExecutor;
+    private final BackendRequestWriter backendRequestWriter;
+    private final BackendProperties backendProperties;
+    private final BackendEndpointPool backendEndpointPool;
+    private final BackendOutcomeClassifier backendOutcomeClassifier;
+
+    /**
+     * Forward to Backend
+     *
+     * @param timeout time left for this call, capped at the configured read timeout
+     * @throws NoEndpointAvailableException if every replica is saturated or paused, before anything is sent
+     */
+    public ResponseEntity<?> postForEntity(BackendRequest request, Duration timeout) {
+        final CompletableFuture<ResponseEntity<?>> call = postForEntityAsync(request, timeout);
+        try {
+            return call.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            call.cancel(true);
+            throw new ResourceAccessException("I/O error on POST request: interrupted", new InterruptedIOException(e.getMessage()));
+        } catch (ExecutionException e) {
+            final Throwable cause = unwrap(e.getCause());
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Same call as {@link #postForEntity} without a thread waiting on it. The future fails with the exception
+     * the blocking call would throw, wrapped in a {@link CompletionException}, and completes off the client's I/O threads.
+     */
+    public CompletableFuture<ResponseEntity<?>> postForEntityAsync(BackendRequest request, Duration timeout) {
+        final BackendEndpoint endpoint = backendEndpointPool.select();
+        if (endpoint == null) {
+            return CompletableFuture.failedFuture(new CompletionException(new NoEndpointAvailableException()));
+        }
+
+        final Duration callTimeout = callTimeout(timeout);
+        final byte[] body = backendRequestWriter.acquire();
+        final long startedAt = System.nanoTime();
+        final CompletableFuture<SimpleHttpResponse> exchange = new CompletableFuture<>();
+        final Future<SimpleHttpResponse> call;
+        try {
+            call = backendHttpClient.execute(buildRequest(endpoint, request, body), SimpleResponseConsumer.create(),
+                    null, buildContext(callTimeout), new FutureCallback<>() {
+                        @Override
+                        public void completed(SimpleHttpResponse response) {
+                            exchange.complete(response);
+                        }
+
+                        @Override
+                        public void failed(Exception e) {
+                            exchange.completeExceptionally(e);
+                        }
+
+                        @Override
+                        public void cancelled() {
+                            exchange.cancel(false);
+                        }
+                    });
+        } catch (RuntimeException e) {
+            // Never sent, so neither the slot nor the body is in use
+            endpoint.release();
+            backendRequestWriter.release(body);
+            throw e;
+        }
+
+        return exchange
+                // The response timeout only bounds silence between packets; this bounds the whole call
+                .orTimeout(callTimeout.toNanos(), TimeUnit.NANOSECONDS)
+                .handleAsync((response, failure) -> {
+                    endpoint.release();
+                    if (failure != null) {
+                        final Throwable cause = unwrap(failure);
+                        if (cause instanceof TimeoutException) {
+                            call.cancel(true);
+                        }
+                        throw new CompletionException(onFailure(endpoint, toTransportError(endpoint, cause, callTimeout)));
+                    }
+
+                    backendRequestWriter.release(body);
+                    return toResponseEntity(endpoint, response, startedAt);
+                }, backendCallbackExecutor);
+    }
+
+    /**
+     * @return true if backend bodies are relayed to the client as raw bytes instead of decoded Strings
+     */
+    public boolean isPassthrough() {
+        return backendProperties.getClient().isPassthrough();
+    }
+
+    public boolean canReroute() {
+        return backendEndpointPool.canReroute();
+    }
+
+    private Duration callTimeout(Duration timeout) {
+        final Duration readTimeout = Duration.ofMillis(backendProperties.getClient().getReadTimeout());
+
+        return timeout.compareTo(readTimeout) < 0 ? timeout : readTimeout;
+    }
+
+    private AsyncRequestProducer buildRequest(BackendEndpoint endpoint, BackendRequest request, byte[] body) {
+        return AsyncRequestBuilder.post(endpoint.getUri())
+                .setEntity(new ByteArrayEntityProducer(body, backendRequestWriter.write(request, body), ContentType.APPLICATION_JSON))
+                .build();
+    }
+
+    // Waiting for a pooled connection and for the response both count against the call's time
+    private static HttpClientContext buildContext(Duration callTimeout) {
+        final Timeout timeout = Timeout.ofMilliseconds(Math.max(1, callTimeout.toMillis()));
+        final HttpClientContext context = HttpClientContext.create();
+        context.setRequestConfig(RequestConfig.custom()
+                .setConnectionRequestTimeout(timeout)
+                .setResponseTimeout(timeout)
+                .build());
+
+        return context;
+    }
+
+    private ResponseEntity<?> toResponseEntity(BackendEndpoint endpoint, SimpleHttpResponse response, long startedAt) {
+        final HttpStatusCode status = HttpStatusCode.valueOf(response.getCode());
+        final HttpHeaders headers = toHeaders(response);
+        final byte[] body = response.getBodyBytes();
+        if (status.isError()) {
+            throw onFailure(endpoint, toError(status, headers, body));
+        }
+
+        endpoint.onSuccess(System.nanoTime() - startedAt);
+        return isPassthrough()
+                ? ResponseEntity.status(status).headers(PassthroughHeaders.relay(headers)).body(body)
+                : ResponseEntity.status(status).headers(headers).body(decode(body, headers));
+    }
+
+    // Throttles the replica on overload and hands the failure back for rethrowing; a single backend is left to the global limiter
+    private <T extends Throwable> T onFailure(BackendEndpoint endpoint, T e) {
+        if (backendEndpointPool.isReplicated() && backendOutcomeClassifier.classify(e) == BackendOutcome.BACKPRESSURE) {
+            endpoint.onOverload(e instanceof RestClientResponseException responseException
+                    ? RetryAfterParser.toMillis(responseException.getResponseHeaders())
+                    : 0);
+        }
+
+        return e;
+    }
+
+    private static Throwable toTransportError(BackendEndpoint endpoint, Throwable cause, Duration callTimeout) {
+        if (cause instanceof TimeoutException) {
+            return ioError(endpoint, new SocketTimeoutException("No response within " + callTimeout.toMillis() + " ms"));
+        }
+
+        return cause instanceof IOException ioException ? ioError(endpoint, ioException) : cause;
+    }
+
+    private static ResourceAccessException ioError(BackendEndpoint endpoint, IOException e) {
+        return new ResourceAccessException("I/O error on POST request for \"" + endpoint.getUrl() + "\": " + e.getMessage(), e);
+    }
+
+    private static RestClientResponseException toError(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+        final Charset charset = charsetOf(headers);
+        return status.is4xxClientError()
+                ? HttpClientErrorException.create(status, "", headers, body, charset)
+                : HttpServerErrorException.create(status, "", headers, body, charset);
+    }
+
+    private static String decode(byte[] body, HttpHeaders headers) {
+        return body == null ? null : new String(body, charsetOf(headers));
+    }
+
+    private static Charset charsetOf(HttpHeaders headers) {
+        final MediaType contentType = headers.getContentType();
+        return contentType != null && contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+    }
+
+    private static HttpHeaders toHeaders(SimpleHttpResponse response) {
+        final HttpHeaders headers = new HttpHeaders();
+        for (Header header : response.getHeaders()) {
+            headers.add(header.getName(), header.getValue());
+        }
+
+        return headers;
+    }
 
-    // Forward to Backend
-    public ResponseEntity<?> postForEntity(BackendRequest request) {
-        return backendRestTemplate.postForEntity(backendUrl, request, String.class);
+    /**
+     * @return the failure a future completed with, without the {@link CompletionException} wrapper
+     */
+    public static Throwable unwrap(Throwable failure) {
+        return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
     }
 }
@@ -0,0 +1,47 @@
+package com.hello.pgproxy.client;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Gauges of the backend client: the shared connection pool, and per replica the calls in flight and its adaptive limit.
+ */
+@Component
+@ConditionalOnProperty(prefix = "backend.client", name = "metrics-enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class BackendClientMetrics implements MeterBinder {
+    private final BackendEndpointPool backendEndpointPool;
+    private final PoolingAsyncClientConnectionManager backendConnectionManager;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("backend.client.pool.leased", backendConnectionManager, manager -> manager.getTotalStats().getLeased())
+                .description("Backend connections carrying a call")
+                .register(registry);
+        Gauge.builder("backend.client.pool.pending", backendConnectionManager, manager -> manager.getTotalStats().getPending())
+                .description("Backend calls waiting for a pooled connection")
+                .register(registry);
+        Gauge.builder("backend.client.pool.available", backendConnectionManager, manager -> manager.getTotalStats().getAvailable())
+                .description("Idle keep-alive backend connections")
+                .register(registry);
+        Gauge.builder("backend.client.pool.max", backendConnectionManager, manager -> manager.getTotalStats().getMax())
+                .description("Maximum open backend connections")
+                .register(registry);
+
+        for (BackendEndpoint endpoint : backendEndpointPool.getEndpoints()) {
+            Gauge.builder("backend.client.requests.active", endpoint, BackendEndpoint::getOutstanding)
+                    .description("Calls in flight to a backend replica")
+                    .tag("endpoint", endpoint.getUrl())
+                    .register(registry);
+            Gauge.builder("backend.client.endpoint.limit", endpoint, BackendEndpoint::getLimit)
+                    .description("Adaptive concurrency limit of a backend replica")
+                    .tag("endpoint", endpoint.getUrl())
+                    .register(registry);
+        }
+    }
+}
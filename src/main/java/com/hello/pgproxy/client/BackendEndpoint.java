@@ -0,0 +1,117 @@
+package com.hello.pgproxy.client;
+
+import com.hello.pgproxy.configuration.BackendProperties;
+import lombok.Getter;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * One backend replica with its own AIMD concurrency limit and health state.
+ * An overload response only shrinks and pauses this replica, so the others keep serving their share of the traffic.
+ */
+public class BackendEndpoint {
+    @Getter
+    private final String url;
+    @Getter
+    private final URI uri;
+    private final BackendProperties.Endpoint properties;
+
+    private final AtomicInteger outstanding = new AtomicInteger(0);
+    // Fractional limit as double bits, so additive increase can grow by 1/limit per success
+    private final AtomicLong limitBits;
+    private final AtomicLong pausedUntilNanos = new AtomicLong(0);
+    private final AtomicInteger consecutiveOverloads = new AtomicInteger(0);
+    // Smoothed round trip of successful calls, 0 until measured
+    private volatile long latencyNanos = 0;
+
+    public BackendEndpoint(String url, BackendProperties.Endpoint properties) {
+        this.url = url;
+        this.uri = URI.create(url);
+        this.properties = properties;
+        this.limitBits = new AtomicLong(Double.doubleToLongBits(properties.getInitialLimit()));
+    }
+
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    public int getLimit() {
+        return (int) Double.longBitsToDouble(limitBits.get());
+    }
+
+    public long getLatencyNanos() {
+        return latencyNanos;
+    }
+
+    public boolean isPaused() {
+        return System.nanoTime() - pausedUntilNanos.get() < 0;
+    }
+
+    public boolean isAvailable() {
+        return !isPaused() && outstanding.get() < getLimit();
+    }
+
+    /**
+     * @return expected wait of a new request here: outstanding requests weighted by latency
+     */
+    public double getLoad() {
+        return (outstanding.get() + 1) * (double) Math.max(1, latencyNanos);
+    }
+
+    public void acquire() {
+        outstanding.incrementAndGet();
+    }
+
+    /**
+     * Takes a call slot only if the replica is not paused and below its limit.
+     *
+     * @return true if the slot was taken and must be given back by {@link #release()}
+     */
+    public boolean tryAcquire() {
+        if (isPaused()) {
+            return false;
+        }
+
+        final int limit = getLimit();
+        int current;
+        do {
+            current = outstanding.get();
+            if (current >= limit) {
+                return false;
+            }
+        } while (!outstanding.compareAndSet(current, current + 1));
+
+        return true;
+    }
+
+    public void release() {
+        outstanding.decrementAndGet();
+    }
+
+    public void onSuccess(long elapsedNanos) {
+        if (consecutiveOverloads.get() != 0) {
+            consecutiveOverloads.set(0);
+        }
+        updateLimit(limit -> Math.min(properties.getMaxLimit(), limit + 1 / limit));
+
+        final long latency = latencyNanos;
+        latencyNanos = latency == 0 ? elapsedNanos : latency + (elapsedNanos - latency) / 8;
+    }
+
+    public void onOverload(long retryAfterMillis) {
+        updateLimit(limit -> Math.max(1, limit * properties.getDecreaseFactor()));
+
+        final int overloads = consecutiveOverloads.incrementAndGet();
+        final long backoff = (long) Math.min(properties.getMaxPause(), properties.getPause() * Math.pow(2, overloads - 1));
+        final long pause = Math.max(backoff, Math.min(retryAfterMillis, properties.getMaxPause()));
+        pausedUntilNanos.set(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(pause));
+    }
+
+    private void updateLimit(DoubleUnaryOperator update) {
+        limitBits.updateAndGet(bits -> Double.doubleToLongBits(update.applyAsDouble(Double.longBitsToDouble(bits))));
+    }
+}
@@ -0,0 +1,103 @@
+package com.hello.pgproxy.client;
+
+import com.hello.pgproxy.configuration.BackendProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Spreads backend calls over the configured replicas by power-of-two-choices:
+ * of two random endpoints the available one, or the less loaded one if both are, takes the call.
+ * Two random probes avoid both the herding of always picking the global minimum and the cost of scanning every endpoint.
+ * A replica never gets more calls than its limit.
+ * <p>
+ * A single backend has no replica to shift load to, so it is bounded by the global limiter alone:
+ * its own limit would only cap that limiter and turn a busy proxy into a backend overload.
+ */
+@Component
+public class BackendEndpointPool {
+    private final List<BackendEndpoint> endpoints;
+    private final boolean replicated;
+
+    public BackendEndpointPool(BackendProperties backendProperties) {
+        this.endpoints = backendProperties.getEndpointUrls().stream()
+                .map(url -> new BackendEndpoint(url, backendProperties.getEndpoint()))
+                .toList();
+        this.replicated = endpoints.size() > 1;
+    }
+
+    public List<BackendEndpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    /**
+     * @return true if calls are balanced over several replicas, each with its own limit
+     */
+    public boolean isReplicated() {
+        return replicated;
+    }
+
+    /**
+     * @return an endpoint whose call slot is already taken, to be given back by {@link BackendEndpoint#release()},
+     * or null if every replica is saturated or paused
+     */
+    public BackendEndpoint select() {
+        if (!replicated) {
+            final BackendEndpoint endpoint = endpoints.get(0);
+            endpoint.acquire();
+            return endpoint;
+        }
+
+        final int size = endpoints.size();
+
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+
+        final BackendEndpoint a = endpoints.get(first);
+        final BackendEndpoint b = endpoints.get(second);
+        final BackendEndpoint preferred = a.getLoad() <= b.getLoad() ? a : b;
+        final BackendEndpoint other = preferred == a ? b : a;
+        if (preferred.tryAcquire()) {
+            return preferred;
+        }
+        if (other.tryAcquire()) {
+            return other;
+        }
+
+        // Both probes are saturated or paused; a free replica elsewhere still beats failing the call
+        final BackendEndpoint leastLoaded = endpoints.stream()
+                .filter(BackendEndpoint::isAvailable)
+                .min(Comparator.comparingDouble(BackendEndpoint::getLoad))
+                .orElse(null);
+
+        return leastLoaded != null && leastLoaded.tryAcquire() ? leastLoaded : null;
+    }
+
+    /**
+     * @return true if {@link #select()} would find a replica to take a call
+     */
+    public boolean hasAvailableEndpoint() {
+        if (!replicated) {
+            return true;
+        }
+        for (BackendEndpoint endpoint : endpoints) {
+            if (endpoint.isAvailable()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if another replica can take a call, i.e. an overload response is local to one replica rather than the whole backend
+     */
+    public boolean canReroute() {
+        return replicated && hasAvailableEndpoint();
+    }
+}
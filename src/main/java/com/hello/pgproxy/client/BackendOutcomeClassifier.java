@@ -0,0 +1,65 @@
+package com.hello.pgproxy.client;
+
+import com.hello.pgproxy.configuration.BackendOutcomeProperties;
+import com.hello.pgproxy.model.BackendOutcome;
+import lombok.RequiredArgsConstructor;
+import org.apache.hc.client5.http.ConnectTimeoutException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+
+/**
+ * Maps a failed backend call to the {@link BackendOutcome} configured under {@code backend.outcomes}.
+ */
+@Component
+@RequiredArgsConstructor
+public class BackendOutcomeClassifier {
+    private final BackendOutcomeProperties backendOutcomeProperties;
+
+    public BackendOutcome classify(Throwable failure) {
+        if (failure instanceof RestClientResponseException e) {
+            return backendOutcomeProperties.getStatus().getOrDefault(e.getStatusCode().value(), BackendOutcome.FATAL);
+        }
+
+        // Transport failures arrive wrapped, e.g. in a ResourceAccessException
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SocketTimeoutException || cause instanceof ConnectTimeoutException) {
+                return backendOutcomeProperties.getTimeout();
+            }
+            if (cause instanceof ConnectException) {
+                return backendOutcomeProperties.getConnectionRefused();
+            }
+            if (cause instanceof IOException) {
+                return backendOutcomeProperties.getIoError();
+            }
+        }
+
+        return BackendOutcome.FATAL;
+    }
+
+    /**
+     * A read timeout, a reset or a 502/504 may come after the backend charged the payment, so only a call which
+     * never got through is sent again, unless the backend is configured to deduplicate by id.
+     *
+     * @return true if sending the failed call again cannot charge the payment twice
+     */
+    public boolean isSafeToResend(Throwable failure) {
+        if (backendOutcomeProperties.isIdempotentRetries()) {
+            return true;
+        }
+        if (failure instanceof RestClientResponseException e) {
+            return backendOutcomeProperties.getUnprocessedStatus().contains(e.getStatusCode().value());
+        }
+
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException || cause instanceof ConnectTimeoutException) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
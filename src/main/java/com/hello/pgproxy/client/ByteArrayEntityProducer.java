@@ -0,0 +1,81 @@
+package com.hello.pgproxy.client;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.http.nio.DataStreamChannel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Set;
+
+/**
+ * Sends the first {@code length} bytes of a pooled buffer as a fixed-length body, without copying them out first.
+ */
+final class ByteArrayEntityProducer implements AsyncEntityProducer {
+    private final byte[] content;
+    private final int length;
+    private final ContentType contentType;
+    private ByteBuffer remaining;
+
+    ByteArrayEntityProducer(byte[] content, int length, ContentType contentType) {
+        this.content = content;
+        this.length = length;
+        this.contentType = contentType;
+        this.remaining = ByteBuffer.wrap(content, 0, length);
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public long getContentLength() {
+        return length;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType.toString();
+    }
+
+    @Override
+    public String getContentEncoding() {
+        return null;
+    }
+
+    @Override
+    public boolean isChunked() {
+        return false;
+    }
+
+    @Override
+    public Set<String> getTrailerNames() {
+        return null;
+    }
+
+    @Override
+    public synchronized int available() {
+        return remaining.remaining();
+    }
+
+    @Override
+    public synchronized void produce(DataStreamChannel channel) throws IOException {
+        if (remaining.hasRemaining()) {
+            channel.write(remaining);
+        }
+        if (!remaining.hasRemaining()) {
+            channel.endStream();
+        }
+    }
+
+    @Override
+    public void failed(Exception cause) {
+    }
+
+    // Rewinds for a repeated exchange
+    @Override
+    public synchronized void releaseResources() {
+        remaining = ByteBuffer.wrap(content, 0, length);
+    }
+}
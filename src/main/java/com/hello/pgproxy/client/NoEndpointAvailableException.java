@@ -0,0 +1,11 @@
+package com.hello.pgproxy.client;
+
+/**
+ * Every replica is at its own limit or paused, so the call was never sent.
+ * This is local to the proxy and says nothing about the backend's health.
+ */
+public class NoEndpointAvailableException extends RuntimeException {
+    public NoEndpointAvailableException() {
+        super("No backend replica available", null, false, false);
+    }
+}
@@ -0,0 +1,41 @@
+package com.hello.pgproxy.client;
+
+import org.springframework.http.HttpHeaders;
+
+import java.util.List;
+
+/**
+ * Selects the backend response headers that are relayed to the client as they are.
+ * Hop-by-hop and framing headers describe the backend connection, the servlet container sets its own.
+ */
+public final class PassthroughHeaders {
+    private static final List<String> CONNECTION_HEADERS = List.of(
+            HttpHeaders.CONNECTION,
+            "Keep-Alive",
+            HttpHeaders.PROXY_AUTHENTICATE,
+            HttpHeaders.PROXY_AUTHORIZATION,
+            HttpHeaders.TE,
+            HttpHeaders.TRAILER,
+            HttpHeaders.TRANSFER_ENCODING,
+            HttpHeaders.UPGRADE,
+            HttpHeaders.CONTENT_LENGTH
+    );
+
+    private PassthroughHeaders() {
+    }
+
+    public static HttpHeaders relay(HttpHeaders backendHeaders) {
+        final HttpHeaders relayed = new HttpHeaders();
+        if (backendHeaders == null) {
+            return relayed;
+        }
+
+        backendHeaders.forEach((name, values) -> {
+            if (CONNECTION_HEADERS.stream().noneMatch(name::equalsIgnoreCase)) {
+                relayed.addAll(name, values);
+            }
+        });
+
+        return relayed;
+    }
+}
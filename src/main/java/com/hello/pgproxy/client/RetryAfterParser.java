@@ -0,0 +1,44 @@
+package com.hello.pgproxy.client;
+
+import org.springframework.http.HttpHeaders;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Reads a {@code Retry-After} header, given either as delay-seconds or as an HTTP-date.
+ */
+public final class RetryAfterParser {
+    private RetryAfterParser() {
+    }
+
+    /**
+     * @return the hinted delay in milliseconds, or 0 if the header is absent, malformed or already in the past
+     */
+    public static long toMillis(HttpHeaders headers) {
+        return headers == null ? 0 : toMillis(headers.getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    public static long toMillis(String value) {
+        if (value == null || value.isBlank()) {
+            return 0;
+        }
+
+        final String trimmed = value.trim();
+        try {
+            return Math.max(0, Long.parseLong(trimmed) * 1000);
+        } catch (NumberFormatException ignored) {
+            // Not delay-seconds, fall through to HTTP-date
+        }
+
+        try {
+            final Instant retryAt = ZonedDateTime.parse(trimmed, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            return Math.max(0, Duration.between(Instant.now(), retryAt).toMillis());
+        } catch (DateTimeParseException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.hello.pgproxy.configuration;
+
+import com.hello.pgproxy.model.BackendOutcome;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+@Data
+@Configuration
+@ConfigurationProperties("backend.outcomes")
+public class BackendOutcomeProperties {
+    // Error status code of the backend -> outcome, codes not listed are fatal
+    private Map<Integer, BackendOutcome> status = new HashMap<>(Map.of(
+            429, BackendOutcome.BACKPRESSURE,
+            502, BackendOutcome.BACKPRESSURE,
+            503, BackendOutcome.BACKPRESSURE,
+            504, BackendOutcome.BACKPRESSURE
+    ));
+    // Connect or read timed out
+    private BackendOutcome timeout = BackendOutcome.BACKPRESSURE;
+    private BackendOutcome connectionRefused = BackendOutcome.BACKPRESSURE;
+    // Any other I/O failure, e.g. a connection reset
+    private BackendOutcome ioError = BackendOutcome.RETRYABLE;
+    // Statuses by which the backend refuses a call without processing it, so the call is sent again
+    private Set<Integer> unprocessedStatus = new HashSet<>(Set.of(429, 503));
+    // The backend deduplicates payments by id, so even a call which may have been processed is sent again
+    private boolean idempotentRetries = false;
+}
@@ -0,0 +1,59 @@
+package com.hello.pgproxy.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Configuration
+@ConfigurationProperties("backend")
+public class BackendProperties {
+    private String url;
+    // Backend replicas balanced by the proxy, url is used when empty
+    private List<String> urls = new ArrayList<>();
+    private Endpoint endpoint = new Endpoint();
+    private Client client = new Client();
+
+    public List<String> getEndpointUrls() {
+        return urls.isEmpty() ? List.of(url) : urls;
+    }
+
+    @Data
+    public static class Client {
+        // Multiplex calls over fewer connections, HTTP/2 with prior knowledge (h2c) on plain http
+        private boolean http2 = false;
+        private long connectTimeout = 1000;
+        // Time to wait for the backend response of a single call
+        private long readTimeout = 10000;
+        private boolean metricsEnabled = true;
+        // Complete calls from the client's callbacks instead of blocking a virtual thread per call
+        private boolean async = false;
+        // Relay status, headers and body bytes to the client without decoding them into Strings
+        private boolean passthrough = false;
+        private Pool pool = new Pool();
+    }
+
+    @Data
+    public static class Pool {
+        // Open connections to all replicas together and to each one; calls beyond them wait for a free connection
+        private int maxTotal = 1024;
+        private int maxPerRoute = 1024;
+        // Idle keep-alive connections are closed after this, and any connection after its time to live
+        private long idleTimeout = 30000;
+        private long timeToLive = 300000;
+    }
+
+    @Data
+    public static class Endpoint {
+        private int initialLimit = 64;
+        private int maxLimit = 10000;
+        // Multiplicative decrease of the endpoint's own limit on overload
+        private double decreaseFactor = 0.9;
+        // First pause of an overloaded endpoint, doubling with consecutive overloads
+        private long pause = 20;
+        private long maxPause = 5000;
+    }
+}
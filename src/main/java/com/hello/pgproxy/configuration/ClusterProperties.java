@@ -0,0 +1,28 @@
+package com.hello.pgproxy.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Configuration
+@ConfigurationProperties("proxy.cluster")
+public class ClusterProperties {
+    private boolean enabled = false;
+    // UDP port this instance gossips on
+    private int port = 7946;
+    // host:port of the other proxy instances
+    private List<String> peers = new ArrayList<>();
+    private long gossipInterval = 200;
+    // Peers silent for longer are dropped from the fair share
+    private long peerTimeout = 2000;
+    // Cut of the shared capacity estimate when any instance saw overload in a round
+    private double decreaseFactor = 0.9;
+    // Growth of the shared capacity estimate per round while the cluster uses it and nobody saw overload
+    private double increaseFactor = 1.1;
+    // Cluster-wide in-flight share of the estimate above which it probes one slot higher per round
+    private double utilization = 0.9;
+}
@@ -1,9 +1,14 @@
 package com.hello.pgproxy.configuration;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Data
 @Configuration
 @ConfigurationProperties("proxy.concurrency")
@@ -13,5 +18,115 @@ public class ConcurrencyProperties {
     private long unpauseDelay;
     private long scaleUpInterval;
     private long scaleDownInterval;
+    // Multiplicative decrease applied by the simple handler on overload
+    private double scaleDownFactor = 0.95;
     private String backpressureHandler;
+    private Circuit circuit = new Circuit();
+    private SlowStart slowStart = new SlowStart();
+    // Amount bands with reserved shares of the limit, empty means a single shared pool
+    private List<ConcurrencyClass> classes = new ArrayList<>();
+    private Tuner tuner = new Tuner();
+    private Snapshot snapshot = new Snapshot();
+    private Retry retry = new Retry();
+    private Shedding shedding = new Shedding();
+    private Batch batch = new Batch();
+
+    @Data
+    public static class Circuit {
+        // Consecutive 503 trips without a success before dispatch goes half-open behind a single probe
+        private int probeThreshold = 2;
+        private double backoffMultiplier = 2.0;
+        // Fraction of the pause randomly shaved off, so paused proxies do not resume in lockstep
+        private double jitter = 0.5;
+        private long maxPause = 5000;
+        // Upper bound for a backend Retry-After hint
+        private long maxRetryAfter = 30000;
+    }
+
+    @Data
+    public static class SlowStart {
+        // Multiplicative decrease applied to the limit on overload
+        private double decreaseFactor = 0.7;
+        // Mean latency above baseline * tolerance counts as an inflection and ends exponential growth
+        private double latencyTolerance = 1.5;
+    }
+
+    @Data
+    public static class ConcurrencyClass {
+        private String name;
+        // Payments with amount_cents >= minAmount belong to this class (the highest matching band wins)
+        private long minAmount;
+        // Share of the concurrency limit held for this class
+        private double reserved;
+        // Share of the unused reservation other classes may borrow; the rest stays as headroom
+        private double borrowable;
+    }
+
+    @Data
+    public static class Tuner {
+        private boolean enabled = false;
+        // Length of one measurement window, every trial is judged over a full window
+        private long evaluationPeriod = 10000;
+        // Windows with fewer completions are discarded as too noisy to compare
+        private long minSamples = 100;
+        // Relative change applied to a parameter per trial
+        private double step = 0.1;
+        // Weight of timed out amount_cents subtracted from the completed amount_cents
+        private double timeoutPenalty = 1.0;
+        // Guard rails, the tuner never leaves these ranges
+        private Range scaleUpInterval = new Range(50, 5000);
+        private Range scaleDownInterval = new Range(50, 5000);
+        private Range unpauseDelay = new Range(5, 1000);
+        private Range scaleDownFactor = new Range(0.5, 0.99);
+    }
+
+    @Data
+    public static class Retry {
+        // Backend attempts per task, including the first one
+        private int maxAttempts = 5;
+        private long baseBackoff = 20;
+        private long maxBackoff = 2000;
+        // Retry tokens earned per successful call, i.e. retries stay below this share of successes
+        private double budgetRatio = 0.1;
+        // Bucket size, bounding the retry burst after a long healthy period
+        private double budgetMax = 100;
+        private double budgetInitial = 10;
+    }
+
+    @Data
+    public static class Shedding {
+        // Reject at admission with 503 when the estimated wait exceeds the client's timeout
+        private boolean enabled = true;
+        private long minRetryAfter = 1000;
+    }
+
+    @Data
+    public static class Batch {
+        // Items of one batch waiting for their result at a time, reading pauses beyond
+        private int maxInFlight = 256;
+    }
+
+    @Data
+    public static class Snapshot {
+        private boolean enabled = false;
+        // Snapshot file in a state directory of the deployment's choosing, required when enabled
+        private String path;
+        private long interval = 10000;
+        // Snapshots older than this are ignored, the backend may have changed since
+        private long maxAge = 600000;
+        // Share of the persisted limit to resume with, further reduced by the persisted 503 rate
+        private double discount = 0.8;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Range {
+        private double min;
+        private double max;
+
+        public double clamp(double value) {
+            return Math.max(min, Math.min(max, value));
+        }
+    }
 }
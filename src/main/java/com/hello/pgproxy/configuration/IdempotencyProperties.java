@@ -0,0 +1,15 @@
+package com.hello.pgproxy.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties("proxy.idempotency")
+public class IdempotencyProperties {
+    private boolean enabled = true;
+    // How long (ms) a final backend response answers repeats of its payment id
+    private long ttl = 60000;
+    private int maxEntries = 100000;
+}
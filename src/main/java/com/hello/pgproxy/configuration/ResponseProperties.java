@@ -9,4 +9,6 @@ import org.springframework.context.annotation.Configuration;
 @ConfigurationProperties("response")
 public class ResponseProperties {
     private long timeout;
+    // Time kept back from a backend call's budget, so the client gets the answer before its own timeout
+    private long deadlineMargin = 50;
 }
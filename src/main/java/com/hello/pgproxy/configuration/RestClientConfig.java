@@ -1,15 +1,67 @@
 package com.hello.pgproxy.configuration;
 
-import lombok.Getter;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.TlsConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.client.RestTemplate;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Configuration
-@Getter
 public class RestClientConfig {
+    /**
+     * Bounded keep-alive pool of backend connections. With h2c every call to a replica is multiplexed over its connections.
+     */
     @Bean
-    public RestTemplate backendRestTemplate() {
-        return new RestTemplate();
+    public PoolingAsyncClientConnectionManager backendConnectionManager(BackendProperties backendProperties) {
+        final BackendProperties.Client client = backendProperties.getClient();
+        final BackendProperties.Pool pool = client.getPool();
+
+        return PoolingAsyncClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(pool.getMaxTotal())
+                .setMaxConnPerRoute(pool.getMaxPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(client.getConnectTimeout()))
+                        .setTimeToLive(TimeValue.ofMilliseconds(pool.getTimeToLive()))
+                        .build())
+                // Applies to plain http too: HTTP/2 is then spoken with prior knowledge (h2c)
+                .setDefaultTlsConfig(TlsConfig.custom()
+                        .setVersionPolicy(client.isHttp2() ? HttpVersionPolicy.FORCE_HTTP_2 : HttpVersionPolicy.FORCE_HTTP_1)
+                        .build())
+                .build();
+    }
+
+    /**
+     * Retries and redirects stay off: resending a payment is decided by the executor alone.
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpAsyncClient backendHttpClient(BackendProperties backendProperties,
+                                                      PoolingAsyncClientConnectionManager backendConnectionManager) {
+        final CloseableHttpAsyncClient client = HttpAsyncClients.custom()
+                .setConnectionManager(backendConnectionManager)
+                .evictIdleConnections(TimeValue.ofMilliseconds(backendProperties.getClient().getPool().getIdleTimeout()))
+                .disableAutomaticRetries()
+                .disableRedirectHandling()
+                .disableCookieManagement()
+                .build();
+        client.start();
+
+        return client;
+    }
+
+    /**
+     * Completes backend calls off the client's I/O threads, since the completion answers the client and updates the limiter.
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService backendCallbackExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
     }
 }
@@ -0,0 +1,15 @@
+package com.hello.pgproxy.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties("proxy.tcp")
+public class TcpIngressProperties {
+    private boolean enabled = false;
+    private int port = 9082;
+    // Pipelined requests of one connection waiting for their result; reading from it pauses beyond
+    private int maxInFlightPerConnection = 1024;
+}
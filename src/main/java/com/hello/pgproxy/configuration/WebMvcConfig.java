@@ -0,0 +1,24 @@
+package com.hello.pgproxy.configuration;
+
+import com.hello.pgproxy.controller.ClientRequestHttpMessageConverter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.List;
+
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequiredArgsConstructor
+public class WebMvcConfig implements WebMvcConfigurer {
+    private final JsonMapper jsonMapper;
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // Ahead of the Jackson converter, which would otherwise claim ClientRequest bodies first
+        converters.addFirst(new ClientRequestHttpMessageConverter(jsonMapper));
+    }
+}
@@ -0,0 +1,89 @@
+package com.hello.pgproxy.controller;
+
+import com.hello.pgproxy.model.ClientRequest;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.List;
+
+/**
+ * Reads {@link ClientRequest} bodies with {@link ClientRequestParser} instead of reflective databinding.
+ * Bodies the parser does not expect, including oversized ones, go to Jackson, so malformed input is rejected
+ * with the same 400 as before.
+ * <p>
+ * Read-only: responses are left to the Jackson converter.
+ */
+public class ClientRequestHttpMessageConverter implements HttpMessageConverter<ClientRequest> {
+    // Far above a real payment body, which stays under 100 bytes
+    static final int MAX_FAST_PATH_BYTES = 1024;
+
+    private static final List<MediaType> SUPPORTED_MEDIA_TYPES =
+            List.of(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+
+    private final JsonMapper jsonMapper;
+
+    public ClientRequestHttpMessageConverter(JsonMapper jsonMapper) {
+        this.jsonMapper = jsonMapper;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return ClientRequest.class == clazz
+                && (mediaType == null || SUPPORTED_MEDIA_TYPES.stream().anyMatch(supported -> supported.includes(mediaType)));
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public List<MediaType> getSupportedMediaTypes() {
+        return SUPPORTED_MEDIA_TYPES;
+    }
+
+    @Override
+    public ClientRequest read(Class<? extends ClientRequest> clazz, HttpInputMessage inputMessage)
+            throws IOException, HttpMessageNotReadableException {
+        final InputStream body = inputMessage.getBody();
+        final byte[] head = body.readNBytes(MAX_FAST_PATH_BYTES + 1);
+
+        if (head.length <= MAX_FAST_PATH_BYTES) {
+            try {
+                final ClientRequest request = ClientRequestParser.parse(head, head.length);
+                if (request != null) {
+                    return request;
+                }
+            } catch (IllegalArgumentException e) {
+                throw new HttpMessageNotReadableException("JSON parse error: " + e.getMessage(), e, inputMessage);
+            }
+        }
+
+        try {
+            return jsonMapper.readValue(new SequenceInputStream(new ByteArrayInputStream(head), body), ClientRequest.class);
+        } catch (JacksonException e) {
+            throw new HttpMessageNotReadableException("JSON parse error: " + e.getOriginalMessage(), e, inputMessage);
+        }
+    }
+
+    // Never chosen while canWrite is false; writes what the Jackson converter would
+    @Override
+    public void write(ClientRequest clientRequest, MediaType contentType, HttpOutputMessage outputMessage) throws IOException {
+        outputMessage.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        try {
+            jsonMapper.writeValue(outputMessage.getBody(), clientRequest);
+        } catch (JacksonException e) {
+            throw new HttpMessageNotWritableException("Could not write JSON: " + e.getOriginalMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.hello.pgproxy.controller;
+
+import com.hello.pgproxy.model.ClientRequest;
+
+import java.util.UUID;
+
+/**
+ * Single-pass parser for the common shape of a payment body, {@code {"id": "<uuid>", "amount_cents": <long>}}
+ * in any key order. The UUID and the amount are decoded from the bytes straight into longs.
+ * <p>
+ * Anything it does not expect (escapes, other keys, fractions, non-canonical ids, ...) makes it give up with null,
+ * so the caller can hand the body to Jackson and keep its exact semantics and error messages.
+ */
+final class ClientRequestParser {
+    private static final byte[] ID = {'i', 'd'};
+    private static final byte[] AMOUNT_CENTS = {'a', 'm', 'o', 'u', 'n', 't', '_', 'c', 'e', 'n', 't', 's'};
+    private static final int UUID_LENGTH = 36;
+
+    private final byte[] bytes;
+    private final int length;
+    private int position;
+
+    private ClientRequestParser(byte[] bytes, int length) {
+        this.bytes = bytes;
+        this.length = length;
+    }
+
+    /**
+     * @return the parsed request, or null if the body is not in the expected shape
+     * @throws IllegalArgumentException if the id has the canonical UUID layout but is not hex
+     */
+    static ClientRequest parse(byte[] bytes, int length) {
+        return new ClientRequestParser(bytes, length).parseObject();
+    }
+
+    private ClientRequest parseObject() {
+        UUID id = null;
+        Long amountCents = null;
+
+        if (!consume('{')) {
+            return null;
+        }
+        if (consume('}')) {
+            return atEnd() ? new ClientRequest(null, null) : null;
+        }
+
+        do {
+            if (!consumeQuote()) {
+                return null;
+            }
+            final int keyStart = position;
+            final int keyEnd = indexOfQuote();
+            if (keyEnd < 0 || !consume(':')) {
+                return null;
+            }
+
+            if (matches(keyStart, keyEnd, ID)) {
+                if (consumeNull()) {
+                    id = null;
+                } else if ((id = parseUuid()) == null) {
+                    return null;
+                }
+            } else if (matches(keyStart, keyEnd, AMOUNT_CENTS)) {
+                if (consumeNull()) {
+                    amountCents = null;
+                } else if ((amountCents = parseLong()) == null) {
+                    return null;
+                }
+            } else {
+                return null;
+            }
+        } while (consume(','));
+
+        return consume('}') && atEnd() ? new ClientRequest(id, amountCents) : null;
+    }
+
+    // Reads up to the closing quote of a key, which must not contain escapes
+    private int indexOfQuote() {
+        for (int i = position; i < length; i++) {
+            final byte b = bytes[i];
+            if (b == '"') {
+                position = i + 1;
+                return i;
+            }
+            if (b == '\\') {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private UUID parseUuid() {
+        if (!consumeQuote() || position + UUID_LENGTH >= length || bytes[position + UUID_LENGTH] != '"') {
+            return null;
+        }
+
+        final int start = position;
+        if (bytes[start + 8] != '-' || bytes[start + 13] != '-' || bytes[start + 18] != '-' || bytes[start + 23] != '-') {
+            return null;
+        }
+
+        final long msb = (hex(start, 8) << 32) | (hex(start + 9, 4) << 16) | hex(start + 14, 4);
+        final long lsb = (hex(start + 19, 4) << 48) | hex(start + 24, 12);
+        position = start + UUID_LENGTH + 1;
+
+        return new UUID(msb, lsb);
+    }
+
+    private long hex(int from, int digits) {
+        long value = 0;
+        for (int i = from; i < from + digits; i++) {
+            final int digit = Character.digit(bytes[i], 16);
+            if (digit < 0) {
+                throw new IllegalArgumentException("Invalid id: not a UUID");
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    private Long parseLong() {
+        final boolean negative = position < length && bytes[position] == '-';
+        if (negative) {
+            position++;
+        }
+
+        final int start = position;
+        long value = 0;
+        while (position < length && bytes[position] >= '0' && bytes[position] <= '9') {
+            // Accumulated negatively, so Long.MIN_VALUE fits and overflow is a single check
+            final int digit = bytes[position] - '0';
+            if (value < (Long.MIN_VALUE + digit) / 10) {
+                return null;
+            }
+            value = value * 10 - digit;
+            position++;
+        }
+
+        final int digits = position - start;
+        // Leading zeros and fractions or exponents are left to Jackson
+        if (digits == 0 || (digits > 1 && bytes[start] == '0') || (position < length && isNumberContinuation(bytes[position]))) {
+            return null;
+        }
+        if (!negative && value == Long.MIN_VALUE) {
+            return null;
+        }
+
+        skipWhitespace();
+        return negative ? value : -value;
+    }
+
+    private static boolean isNumberContinuation(byte b) {
+        return b == '.' || b == 'e' || b == 'E';
+    }
+
+    private boolean consumeNull() {
+        if (position + 4 <= length && bytes[position] == 'n' && bytes[position + 1] == 'u'
+                && bytes[position + 2] == 'l' && bytes[position + 3] == 'l') {
+            position += 4;
+            skipWhitespace();
+            return true;
+        }
+        return false;
+    }
+
+    private boolean matches(int from, int to, byte[] expected) {
+        if (to - from != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (bytes[from + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Opens a string, whose content starts right after the quote
+    private boolean consumeQuote() {
+        skipWhitespace();
+        if (position < length && bytes[position] == '"') {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    // Skips whitespace around the expected token as well
+    private boolean consume(char expected) {
+        skipWhitespace();
+        if (position < length && bytes[position] == expected) {
+            position++;
+            skipWhitespace();
+            return true;
+        }
+        return false;
+    }
+
+    private boolean atEnd() {
+        skipWhitespace();
+        return position == length;
+    }
+
+    private void skipWhitespace() {
+        while (position < length) {
+            final byte b = bytes[position];
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                return;
+            }
+            position++;
+        }
+    }
+}
@@ -1,25 +1,31 @@
 package com.hello.pgproxy.controller;
 
-import com.hello.pgproxy.configuration.ResponseProperties;
 import com.hello.pgproxy.model.ClientRequest;
-import com.hello.pgproxy.service.PriorityTaskQueueService;
+import com.hello.pgproxy.service.PaymentBatchProcessor;
+import com.hello.pgproxy.service.PaymentSubmitter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
-import org.springframework.http.HttpStatus;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.IOException;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequiredArgsConstructor
 @Tag(name = "Payment Processing", description = "Endpoints for handling payment requests and managing backpressure.") // 컨트롤러 전체 태그
 public class PaymentController {
-    private final PriorityTaskQueueService priorityTaskQueueService;
-    private final ResponseProperties responseProperties;
+    private final PaymentSubmitter paymentSubmitter;
+    private final PaymentBatchProcessor paymentBatchProcessor;
 
     @Operation(
             summary = "Submit a payment request through the proxy",
@@ -39,24 +45,28 @@ public class PaymentController {
     )
     @PostMapping("/payments")
     public DeferredResult<ResponseEntity<?>> processPayment(@RequestBody ClientRequest request) {
-        DeferredResult<ResponseEntity<?>> deferredResponse = createDeferredResult();
-
-        if (request.getId() == null || request.getAmount_cents() == null) {
-            deferredResponse.setResult(ResponseEntity.badRequest().body("Missing ID or Amount"));
-            return deferredResponse;
-        }
-
-        priorityTaskQueueService.enqueue(request, deferredResponse);
+        // The submitter answers at the response timeout itself, so the servlet never times the request out first
+        final DeferredResult<ResponseEntity<?>> deferredResponse = new DeferredResult<>(0L);
+        paymentSubmitter.submit(request, deferredResponse::setResult);
 
         return deferredResponse;
     }
 
-    private DeferredResult<ResponseEntity<?>> createDeferredResult() {
-        DeferredResult<ResponseEntity<?>> result = new DeferredResult<>(responseProperties.getTimeout());
-        result.onTimeout(() -> result.setErrorResult(
-                ResponseEntity.status(HttpStatus.REQUEST_TIMEOUT).body("Request Timed Out"))
-        );
-
-        return result;
+    @Operation(
+            summary = "Submit a batch of payment requests",
+            description = "Accepts NDJSON or a JSON array. Each item is prioritized on its own and its result is streamed back "
+                    + "as an NDJSON line with id, status and body, in completion order."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Per-item results, one JSON object per line."
+    )
+    @PostMapping(
+            value = "/payments/batch",
+            consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE
+    )
+    public ResponseBodyEmitter processBatch(HttpServletRequest request) throws IOException {
+        return paymentBatchProcessor.process(request.getInputStream());
     }
 }
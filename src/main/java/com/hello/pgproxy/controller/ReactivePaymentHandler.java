@@ -0,0 +1,45 @@
+package com.hello.pgproxy.controller;
+
+import com.hello.pgproxy.model.ClientRequest;
+import com.hello.pgproxy.service.PaymentSubmitter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * WebFlux counterpart of {@link PaymentController} with the same {@code /payments} contract.
+ * The submitter's result callback completes a {@link Mono} sink, so no servlet async machinery or request thread is involved.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactivePaymentHandler {
+    private final PaymentSubmitter paymentSubmitter;
+
+    public Mono<ServerResponse> processPayment(ServerRequest serverRequest) {
+        return serverRequest.bodyToMono(ClientRequest.class)
+                .flatMap(this::submit)
+                .flatMap(ReactivePaymentHandler::toServerResponse)
+                // An empty body decodes to nothing instead of a request
+                .switchIfEmpty(ServerResponse.badRequest().bodyValue("Missing ID or Amount"));
+    }
+
+    private Mono<ResponseEntity<?>> submit(ClientRequest request) {
+        final Sinks.One<ResponseEntity<?>> sink = Sinks.one();
+        paymentSubmitter.submit(request, sink::tryEmitValue);
+
+        return sink.asMono();
+    }
+
+    private static Mono<ServerResponse> toServerResponse(ResponseEntity<?> entity) {
+        final ServerResponse.BodyBuilder builder = ServerResponse.status(entity.getStatusCode())
+                .headers(headers -> entity.getHeaders().forEach(headers::addAll));
+
+        return entity.getBody() == null ? builder.build() : builder.bodyValue(entity.getBody());
+    }
+}
@@ -0,0 +1,18 @@
+package com.hello.pgproxy.controller;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.server.RequestPredicates;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactivePaymentRouter {
+    @Bean
+    public RouterFunction<ServerResponse> paymentRoutes(ReactivePaymentHandler reactivePaymentHandler) {
+        return RouterFunctions.route(RequestPredicates.POST("/payments"), reactivePaymentHandler::processPayment);
+    }
+}
@@ -3,6 +3,15 @@ package com.hello.pgproxy.model;
 public enum BackendExecutionStatus {
     COMPLETED,
     BACKPRESSURE_CONTROL_NEEDED,
+    // Overloaded, but the call may have been processed, so the client got the failure instead of a resend
+    BACKPRESSURE_ANSWERED,
+    RETRY_NEEDED,
+    // Only one replica is overloaded, another one can take the task right away
+    REROUTE_NEEDED,
+    // Every replica is at its own limit or paused, so the call was never sent
+    ENDPOINT_UNAVAILABLE,
     ERROR,
+    // The client's deadline passed before the call, so the backend was never asked
+    DEADLINE_EXCEEDED,
     UNKNOWN
 }
@@ -0,0 +1,13 @@
+package com.hello.pgproxy.model;
+
+/**
+ * How a failed backend call is handled.
+ */
+public enum BackendOutcome {
+    // The backend is overloaded: shrink the limit, pause dispatch and retry the task later
+    BACKPRESSURE,
+    // A transient failure of this call only: retry the task without touching the limit
+    RETRYABLE,
+    // Answer the client right away
+    FATAL
+}
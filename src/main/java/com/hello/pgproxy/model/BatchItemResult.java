@@ -0,0 +1,19 @@
+package com.hello.pgproxy.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * One NDJSON line of a batch response: the outcome a single payment request would have been answered with.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchItemResult {
+    private UUID id;
+    private int status;
+    private String body;
+}
@@ -0,0 +1,46 @@
+package com.hello.pgproxy.model;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * System.nanoTime() by which every client waiting on a task has given up, 0 while one of them waits forever.
+ * It only ever moves later: a repeat of the payment with more time left extends the deadline of the task it joins.
+ */
+public class PaymentDeadline {
+    private final AtomicLong nanos;
+
+    public PaymentDeadline(long nanos) {
+        this.nanos = new AtomicLong(nanos);
+    }
+
+    public long getNanos() {
+        return nanos.get();
+    }
+
+    /**
+     * @return nanoseconds until the last client stops waiting, Long.MAX_VALUE without a deadline
+     */
+    public long getRemainingNanos(long nowNanos) {
+        final long deadline = nanos.get();
+        return deadline == 0 ? Long.MAX_VALUE : deadline - nowNanos;
+    }
+
+    /**
+     * Moves the deadline to the later of the current one and this one.
+     */
+    public void extendTo(long deadlineNanos) {
+        nanos.accumulateAndGet(deadlineNanos, PaymentDeadline::later);
+    }
+
+    private static long later(long current, long candidate) {
+        if (current == 0 || candidate == 0) {
+            return 0;
+        }
+        return candidate - current > 0 ? candidate : current;
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(nanos.get());
+    }
+}
@@ -13,6 +13,31 @@ public class PrioritizedTask implements Comparable<PrioritizedTask> {
     private final Long verification;
     // Task will hold the response until request really processed.
     private final DeferredResult<ResponseEntity<?>> deferredResponse;
+    // When the clients waiting on this task stop waiting, null if they wait forever
+    private final PaymentDeadline deadline;
+    // Stage boundaries (System.nanoTime()) for the latency breakdown, 0 if not tracked
+    private final long admittedNanos;
+    private final long verificationStartedNanos;
+    private final long verifiedNanos;
+    // Entered the priority queue; moved again when a retry comes back from its backoff
+    private long queuedNanos;
+    // Retry-After hint (ms) from the backend's last overload response for this task, 0 if none.
+    private long retryAfterMillis;
+    // Backend calls of this task which failed with overload so far
+    private int attempts;
+    // Circuit generation of the latest dispatch, so late successes from before a trip are not taken as probes
+    private long dispatchEpoch;
+
+    /**
+     * @return nanoseconds until the client stops waiting, Long.MAX_VALUE without a deadline
+     */
+    public long getRemainingNanos(long nowNanos) {
+        return deadline == null ? Long.MAX_VALUE : deadline.getRemainingNanos(nowNanos);
+    }
+
+    public long getAmountCents() {
+        return request.getAmount_cents();
+    }
 
     // This ensures that which task should be forwarded first to achieve the (maybe business) goal.
     @Override
@@ -0,0 +1,277 @@
+package com.hello.pgproxy.service;
+
+import com.hello.pgproxy.configuration.ConcurrencyProperties;
+import com.hello.pgproxy.service.backpressure.BackpressureCircuit;
+import com.hello.pgproxy.service.backpressure.BackpressureSettings;
+import com.hello.pgproxy.service.backpressure.BackpressureSignalRecorder;
+import jakarta.annotation.PreDestroy;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Hill-climbs the backpressure parameters against revenue throughput:
+ * completed amount_cents per second minus the weighted amount_cents of requests that timed out.
+ * One parameter is nudged per window and kept while the objective improves. A trial which does not beat the
+ * baseline is rolled back, and the next baseline is measured afresh before the opposite direction or the next parameter is tried,
+ * so drifting backend load does not leave a stale score to beat.
+ * Values never leave the configured ranges, noisy windows (too few completions, open circuit) are discarded,
+ * and {@link #freeze()} pins the learned values.
+ * <p>
+ * The operator's {@code start} is left alone: the limit the tuner runs at survives a restart through the limiter snapshot.
+ */
+@Service
+@ConditionalOnProperty(prefix = "proxy.concurrency.tuner", name = "enabled", havingValue = "true")
+@Slf4j
+public class BackpressureAutoTuner {
+    private final ConcurrencyProperties.Tuner tunerProperties;
+    private final BackpressurePolicyManager backpressurePolicyManager;
+    private final BackpressureSignalRecorder backpressureSignalRecorder;
+    private final BackpressureCircuit backpressureCircuit;
+    private final List<TunedParameter> parameters;
+
+    private final ScheduledExecutorService tunerExecutor = Executors.newSingleThreadScheduledExecutor();
+
+    public enum Phase {
+        // Measuring the objective with the current values
+        BASELINE,
+        // Measuring the objective with one parameter nudged
+        TRIAL
+    }
+
+    private record TunedParameter(
+            String name,
+            ConcurrencyProperties.Range range,
+            ToDoubleFunction<BackpressureSettings> getter,
+            BiFunction<BackpressureSettings, Double, BackpressureSettings> setter
+    ) {
+    }
+
+    private record Totals(long completed, long completedAmountCents, long timedOutAmountCents) {
+    }
+
+    @Value
+    public static class TunerState {
+        boolean frozen;
+        Phase phase;
+        String parameter;
+        int direction;
+        // Objective in amount_cents per second, null until measured
+        Double bestScore;
+        Double lastScore;
+    }
+
+    // Search state, guarded by this
+    private Phase phase = Phase.BASELINE;
+    private int parameterIndex;
+    private int direction = 1;
+    private int failedDirections;
+    private double untriedValue;
+    // The value under trial as the settings hold it, e.g. rounded
+    private double trialValue;
+    private double bestScore = Double.NaN;
+    private double lastScore = Double.NaN;
+    private boolean frozen;
+    private Totals windowStart = new Totals(0, 0, 0);
+    private long windowStartNanos;
+
+    public BackpressureAutoTuner(
+            ConcurrencyProperties concurrencyProperties,
+            BackpressurePolicyManager backpressurePolicyManager,
+            BackpressureSignalRecorder backpressureSignalRecorder,
+            BackpressureCircuit backpressureCircuit
+    ) {
+        this.tunerProperties = concurrencyProperties.getTuner();
+        this.backpressurePolicyManager = backpressurePolicyManager;
+        this.backpressureSignalRecorder = backpressureSignalRecorder;
+        this.backpressureCircuit = backpressureCircuit;
+        this.parameters = List.of(
+                new TunedParameter("scaleUpInterval", tunerProperties.getScaleUpInterval(),
+                        BackpressureSettings::getScaleUpInterval,
+                        (settings, value) -> settings.toBuilder().scaleUpInterval(Math.round(value)).build()),
+                new TunedParameter("scaleDownInterval", tunerProperties.getScaleDownInterval(),
+                        BackpressureSettings::getScaleDownInterval,
+                        (settings, value) -> settings.toBuilder().scaleDownInterval(Math.round(value)).build()),
+                new TunedParameter("unpauseDelay", tunerProperties.getUnpauseDelay(),
+                        BackpressureSettings::getUnpauseDelay,
+                        (settings, value) -> settings.toBuilder().unpauseDelay(Math.round(value)).build()),
+                new TunedParameter("scaleDownFactor", tunerProperties.getScaleDownFactor(),
+                        BackpressureSettings::getScaleDownFactor,
+                        (settings, value) -> settings.toBuilder().scaleDownFactor(value).build())
+        );
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        synchronized (this) {
+            windowStart = currentTotals();
+            windowStartNanos = System.nanoTime();
+        }
+        tunerExecutor.scheduleAtFixedRate(
+                () -> evaluate(System.nanoTime()),
+                tunerProperties.getEvaluationPeriod(),
+                tunerProperties.getEvaluationPeriod(),
+                TimeUnit.MILLISECONDS
+        );
+    }
+
+    @PreDestroy
+    public void stop() {
+        tunerExecutor.shutdownNow();
+    }
+
+    /**
+     * Rolls back an unjudged trial and stops tuning; values kept so far stay in effect.
+     */
+    public synchronized void freeze() {
+        if (phase == Phase.TRIAL) {
+            rollback();
+        }
+        phase = Phase.BASELINE;
+        frozen = true;
+        log.info("Backpressure tuner frozen at {}", backpressurePolicyManager.getSettings());
+    }
+
+    public synchronized void unfreeze() {
+        frozen = false;
+        phase = Phase.BASELINE;
+        log.info("Backpressure tuner resumed");
+    }
+
+    public synchronized TunerState getState() {
+        return new TunerState(
+                frozen,
+                phase,
+                parameters.get(parameterIndex).name(),
+                direction,
+                Double.isNaN(bestScore) ? null : bestScore,
+                Double.isNaN(lastScore) ? null : lastScore
+        );
+    }
+
+    /**
+     * Closes the current measurement window and takes one search step.
+     */
+    synchronized void evaluate(long nowNanos) {
+        final Totals totals = currentTotals();
+        final Totals previous = windowStart;
+        final double seconds = (nowNanos - windowStartNanos) / 1e9;
+        windowStart = totals;
+        windowStartNanos = nowNanos;
+
+        final long completed = totals.completed() - previous.completed();
+        if (frozen || seconds <= 0) {
+            return;
+        }
+        if (completed < tunerProperties.getMinSamples() || !backpressureCircuit.isClosed()) {
+            // Not comparable; a pending trial is judged over the next window instead
+            log.debug("Backpressure tuner skipped a window with {} completions", completed);
+            return;
+        }
+
+        final double penalty = tunerProperties.getTimeoutPenalty() * (totals.timedOutAmountCents() - previous.timedOutAmountCents());
+        final double score = (totals.completedAmountCents() - previous.completedAmountCents() - penalty) / seconds;
+        lastScore = score;
+        step(score);
+    }
+
+    private void step(double score) {
+        final TunedParameter parameter = parameters.get(parameterIndex);
+
+        if (phase == Phase.TRIAL) {
+            if (score > bestScore) {
+                log.info("Backpressure tuner kept {}={} ({} -> {} cents/s)",
+                        parameter.name(), parameter.getter().applyAsDouble(backpressurePolicyManager.getSettings()), bestScore, score);
+                failedDirections = 0;
+            } else {
+                log.info("Backpressure tuner rolled back {} ({} <= {} cents/s)", parameter.name(), score, bestScore);
+                rollback();
+                giveUpDirection();
+                // Re-measure before the next trial
+                phase = Phase.BASELINE;
+                return;
+            }
+        }
+
+        bestScore = score;
+        startTrial();
+    }
+
+    private void startTrial() {
+        final TunedParameter parameter = parameters.get(parameterIndex);
+        final BackpressureSettings current = backpressurePolicyManager.getSettings();
+        untriedValue = parameter.getter().applyAsDouble(current);
+
+        final double proposed = parameter.range().clamp(untriedValue * (1 + direction * tunerProperties.getStep()));
+        trialValue = parameter.getter().applyAsDouble(parameter.setter().apply(current, proposed));
+        if (trialValue == untriedValue) {
+            // Pinned at a guard rail, try elsewhere on the next window
+            giveUpDirection();
+            phase = Phase.BASELINE;
+            return;
+        }
+
+        if (!apply(parameter, proposed)) {
+            // Nothing changed, so there is no trial to judge or roll back
+            giveUpDirection();
+            phase = Phase.BASELINE;
+            return;
+        }
+        phase = Phase.TRIAL;
+    }
+
+    // A value changed through the actuator during the trial is the operator's, not ours to revert
+    private void rollback() {
+        final TunedParameter parameter = parameters.get(parameterIndex);
+        try {
+            final BackpressureSettings updated = backpressurePolicyManager.updateSettings(settings ->
+                    parameter.getter().applyAsDouble(settings) == trialValue
+                            ? parameter.setter().apply(settings, untriedValue)
+                            : settings);
+            if (parameter.getter().applyAsDouble(updated) != untriedValue) {
+                log.info("Backpressure tuner left {} changed during its trial", parameter.name());
+            }
+        } catch (IllegalArgumentException e) {
+            log.warn("Backpressure tuner could not roll back {}={}", parameter.name(), untriedValue, e);
+        }
+    }
+
+    private void giveUpDirection() {
+        direction = -direction;
+        if (++failedDirections >= 2) {
+            failedDirections = 0;
+            parameterIndex = (parameterIndex + 1) % parameters.size();
+        }
+    }
+
+    /**
+     * @return true if the policy now runs with the trial value
+     */
+    private boolean apply(TunedParameter parameter, double value) {
+        try {
+            final BackpressureSettings updated = backpressurePolicyManager.updateSettings(settings -> parameter.setter().apply(settings, value));
+            return parameter.getter().applyAsDouble(updated) == trialValue;
+        } catch (IllegalArgumentException e) {
+            log.warn("Backpressure tuner could not apply {}={}", parameter.name(), value, e);
+            return false;
+        }
+    }
+
+    private Totals currentTotals() {
+        return new Totals(
+                backpressureSignalRecorder.getCompletedCount(),
+                backpressureSignalRecorder.getCompletedAmountCents(),
+                backpressureSignalRecorder.getTimedOutAmountCents()
+        );
+    }
+}
@@ -2,18 +2,31 @@ package com.hello.pgproxy.service;
 
 import com.hello.pgproxy.configuration.ConcurrencyProperties;
 import com.hello.pgproxy.model.PrioritizedTask;
+import com.hello.pgproxy.service.backpressure.BackpressureCircuit;
 import com.hello.pgproxy.service.backpressure.BackpressureHandler;
 import com.hello.pgproxy.service.backpressure.BackpressureIntervalControl;
+import com.hello.pgproxy.service.backpressure.BackpressureSettings;
+import com.hello.pgproxy.service.backpressure.BackpressureSignalRecorder;
+import com.hello.pgproxy.service.backpressure.BackpressureSignals;
+import com.hello.pgproxy.service.backpressure.LimiterSnapshot;
+import com.hello.pgproxy.service.backpressure.LimiterSnapshotStore;
+import com.hello.pgproxy.service.cluster.ClusterConcurrencyShare;
+import com.hello.pgproxy.service.retry.RetryLane;
 import jakarta.annotation.PostConstruct;
-import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -21,58 +34,148 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class BackpressurePolicyManager {
     private final ConcurrencyProperties concurrencyProperties;
     private final List<BackpressureHandler> backpressureHandlers;
-    private final PriorityTaskQueueService priorityTaskQueueService; // Dependency for requeue
+    private final PriorityTaskQueueService priorityTaskQueueService;
     private final BackpressureIntervalControl backpressureIntervalControl;
     private final ConcurrencyLockObject concurrencyLockObject;
-
-    @Getter
-    private volatile boolean isPaused = false;
-
-    // Concurrency is managed externally (by the FlowManager) but the logic is here
-    private BackpressureHandler activeBackpressureHandler;
+    private final BackpressureSignalRecorder backpressureSignalRecorder;
+    private final BackpressureCircuit backpressureCircuit;
+    private final LimiterSnapshotStore limiterSnapshotStore;
+    private final RetryLane retryLane;
+    private final ClusterConcurrencyShare clusterConcurrencyShare;
+
+    // Concurrency is managed externally (by the FlowManager) but the logic is here.
+    // Settings and the handler they name are swapped together, so every decision reads one consistent pair.
+    private final AtomicReference<ActivePolicy> activePolicy = new AtomicReference<>();
+    private Map<String, BackpressureHandler> handlersByName;
+
+    private record ActivePolicy(BackpressureSettings settings, BackpressureHandler handler) {
+    }
 
     @PostConstruct
     public void init() {
-        activeBackpressureHandler = getActiveBackpressureHandler();
+        handlersByName = backpressureHandlers.stream()
+                .collect(Collectors.toMap(BackpressureHandler::getHandlerName, Function.identity()));
+        activePolicy.set(resolve(BackpressureSettings.from(concurrencyProperties)));
+        limiterSnapshotStore.loadForWarmStart().ifPresent(this::warmStart);
     }
 
     public int getInitialConcurrencyLimit() {
-        return concurrencyProperties.getStart();
+        return activePolicy.get().settings().getStart();
+    }
+
+    public boolean isPaused() {
+        return backpressureCircuit.isOpen();
+    }
+
+    public BackpressureHandler getActiveHandler() {
+        return activePolicy.get().handler();
+    }
+
+    public BackpressureSettings getSettings() {
+        return activePolicy.get().settings();
+    }
+
+    public Set<String> getAvailableHandlerNames() {
+        return handlersByName.keySet();
     }
 
-    public synchronized void increaseConcurrencyLimit(AtomicInteger currentConcurrencyLimit) {
-        int concurrencyLimit = currentConcurrencyLimit.get();
-        if (concurrencyLimit < concurrencyProperties.getMax()
-                && backpressureIntervalControl.hasConcurrencyModifiableTimePassed(concurrencyProperties.getScaleUpInterval())
-        ) {
-            int newConcurrency = activeBackpressureHandler.getScaleUpConcurrency(concurrencyLimit);
-            currentConcurrencyLimit.set(newConcurrency);
-            backpressureIntervalControl.resetTimestamp();
+    /**
+     * Applies new settings atomically. In-flight requests and the current limit are left untouched;
+     * a lowered max is enforced on the next completion.
+     *
+     * @throws IllegalArgumentException if the result is invalid or names an unknown handler
+     */
+    public BackpressureSettings updateSettings(UnaryOperator<BackpressureSettings> update) {
+        final ActivePolicy updated = activePolicy.updateAndGet(current -> resolve(update.apply(current.settings())));
+        log.info("Backpressure policy updated: {}", updated.settings());
+
+        return updated.settings();
+    }
+
+    /**
+     * Stamped on a task when it is dispatched, see {@link #increaseConcurrencyLimit(AtomicInteger, long)}.
+     */
+    public long getDispatchEpoch() {
+        return backpressureCircuit.getDispatchEpoch();
+    }
+
+    public void increaseConcurrencyLimit(AtomicInteger currentConcurrencyLimit) {
+        increaseConcurrencyLimit(currentConcurrencyLimit, backpressureCircuit.getDispatchEpoch());
+    }
+
+    /**
+     * Called from every completing thread, so it never locks: the interval control elects a single
+     * winner per change window and the handler's decision is applied to the limit with a CAS loop.
+     *
+     * @param dispatchEpoch {@link #getDispatchEpoch()} when the completed task was dispatched
+     */
+    public void increaseConcurrencyLimit(AtomicInteger currentConcurrencyLimit, long dispatchEpoch) {
+        final ActivePolicy policy = activePolicy.get();
+        final BackpressureSettings settings = policy.settings();
+
+        final int max = effectiveMax(settings);
+        final int concurrencyLimit = currentConcurrencyLimit.get();
+        if (concurrencyLimit > max) {
+            clampToMax(currentConcurrencyLimit, max);
+            return;
+        }
+
+        // While recovering from an outage the circuit restores the limit itself
+        if (!backpressureCircuit.onSuccess(currentConcurrencyLimit, dispatchEpoch)) {
+            return;
+        }
+
+        if (concurrencyLimit >= max) {
+            return;
+        }
+
+        // The claim moves the timestamp, so the time since the previous change is the one it saw
+        final long nanosSinceLastChange = backpressureIntervalControl.tryAcquireChange(settings.getScaleUpInterval());
+        if (nanosSinceLastChange >= 0) {
+            final int recommended = policy.handler().getScaleUpConcurrency(
+                    sampleSignals(concurrencyLimit, max, settings, nanosSinceLastChange));
+            final int newConcurrency = applyChange(currentConcurrencyLimit, recommended - concurrencyLimit, max);
 
             log.info("Backpressure control: scale up concurrency {} -> {}", concurrencyLimit, newConcurrency);
         }
     }
 
-    public synchronized void handleBackpressure(PrioritizedTask failedTask, AtomicInteger currentConcurrencyLimit) {
-        if (backpressureIntervalControl.hasConcurrencyModifiableTimePassed(concurrencyProperties.getScaleDownInterval())) {
-            int old = currentConcurrencyLimit.get();
-            int newConcurrency = activeBackpressureHandler.getScaleDownConcurrency(old);
-            currentConcurrencyLimit.set(newConcurrency);
-            backpressureIntervalControl.resetTimestamp();
+    public void handleBackpressure(PrioritizedTask failedTask, AtomicInteger currentConcurrencyLimit) {
+        handleBackpressure(failedTask, currentConcurrencyLimit, true);
+    }
+
+    /**
+     * @param resend false if the client was answered already and the task must not be sent again
+     */
+    public void handleBackpressure(PrioritizedTask failedTask, AtomicInteger currentConcurrencyLimit, boolean resend) {
+        final ActivePolicy policy = activePolicy.get();
+        final BackpressureSettings settings = policy.settings();
+
+        // Only the first overload response of a burst scales down; the circuit owns the limit until it closes again
+        final long nanosSinceLastChange = backpressureCircuit.isClosed()
+                ? backpressureIntervalControl.tryAcquireChange(settings.getScaleDownInterval())
+                : -1;
+        if (nanosSinceLastChange >= 0) {
+            final int max = effectiveMax(settings);
+            final int old = currentConcurrencyLimit.get();
+            final int recommended = policy.handler().getScaleDownConcurrency(
+                    sampleSignals(old, max, settings, nanosSinceLastChange));
+            final int newConcurrency = applyChange(currentConcurrencyLimit, recommended - old, max);
 
             log.info("Backpressure control: scale down concurrency {} -> {}", old, newConcurrency);
         }
 
-        // Re-queue the failed task using the dedicated queue service
-        priorityTaskQueueService.requeue(failedTask);
-
-        if (!isPaused) {
-            isPaused = true;
+        // Back off before the failed task competes for dispatch again, or reject it once out of attempts or budget
+        if (resend) {
+            retryLane.retry(failedTask);
+        }
 
+        final long pause = backpressureCircuit.trip(settings.getUnpauseDelay(), failedTask.getRetryAfterMillis());
+        if (pause >= 0) {
             CompletableFuture
-                    .delayedExecutor(concurrencyProperties.getUnpauseDelay(), TimeUnit.MILLISECONDS)
+                    .delayedExecutor(pause, TimeUnit.MILLISECONDS)
                     .execute(() -> {
-                        isPaused = false;
+                        backpressureCircuit.onPauseElapsed(currentConcurrencyLimit);
                         // Notify the monitor in the FlowManager to resume processing
                         synchronized (concurrencyLockObject) {
                             concurrencyLockObject.notify();
@@ -81,12 +184,67 @@ public class BackpressurePolicyManager {
         }
     }
 
-    private BackpressureHandler getActiveBackpressureHandler() {
-        final String handlerName = concurrencyProperties.getBackpressureHandler();
+    private void warmStart(LimiterSnapshot snapshot) {
+        final ActivePolicy policy = activePolicy.get();
+        final BackpressureSettings settings = policy.settings();
+        final int start = Math.max(1, Math.min(settings.getMax(), snapshot.getConcurrencyLimit()));
+
+        activePolicy.set(new ActivePolicy(settings.toBuilder().start(start).build(), policy.handler()));
+        // Learned state of another handler means nothing to this one, only the limit carries over
+        if (policy.handler().getHandlerName().equals(snapshot.getHandlerName())) {
+            policy.handler().restore(snapshot);
+        }
+
+        log.info("Warm start from limiter snapshot: concurrency {} -> {}, {}", settings.getStart(), start, snapshot);
+    }
+
+    /**
+     * Applies the handler's decision as a delta against the latest limit, so a concurrent change made
+     * between sampling and applying is never overwritten.
+     */
+    private static int applyChange(AtomicInteger currentConcurrencyLimit, int delta, int max) {
+        int current;
+        int next;
+        do {
+            current = currentConcurrencyLimit.get();
+            next = Math.max(1, Math.min(max, current + delta));
+        } while (!currentConcurrencyLimit.compareAndSet(current, next));
+
+        return next;
+    }
+
+    private static void clampToMax(AtomicInteger currentConcurrencyLimit, int max) {
+        int current;
+        while ((current = currentConcurrencyLimit.get()) > max) {
+            if (currentConcurrencyLimit.compareAndSet(current, max)) {
+                log.info("Backpressure control: clamp concurrency {} -> {}", current, max);
+                return;
+            }
+        }
+    }
+
+    // In cluster mode this instance only owns its fair share of the backend
+    private int effectiveMax(BackpressureSettings settings) {
+        return Math.min(settings.getMax(), clusterConcurrencyShare.getFairShare());
+    }
+
+    private BackpressureSignals sampleSignals(int concurrencyLimit, int max, BackpressureSettings settings,
+                                              long nanosSinceLastChange) {
+        return backpressureSignalRecorder.snapshot(
+                concurrencyLimit,
+                max,
+                settings.getScaleDownFactor(),
+                priorityTaskQueueService.getRemainingTaskCount(),
+                nanosSinceLastChange
+        );
+    }
+
+    private ActivePolicy resolve(BackpressureSettings settings) {
+        final BackpressureHandler handler = handlersByName.get(settings.validate().getBackpressureHandler());
+        if (handler == null) {
+            throw new IllegalArgumentException("Unknown backpressure handler: " + settings.getBackpressureHandler());
+        }
 
-        return backpressureHandlers.stream()
-                .filter(handler -> handlerName.equals(handler.getHandlerName()))
-                .findFirst()
-                .orElseThrow();
+        return new ActivePolicy(settings, handler);
     }
 }
@@ -0,0 +1,89 @@
+package com.hello.pgproxy.service;
+
+import com.hello.pgproxy.configuration.ConcurrencyProperties;
+import com.hello.pgproxy.model.PrioritizedTask;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Splits the adaptive concurrency limit between amount-band classes.
+ * Each class holds {@code reserved * limit} slots. Other classes may borrow the {@code borrowable} share of
+ * whatever part of that reservation is unused; the remainder stays free, so a burst of that class always finds headroom.
+ * Payments matching no class form the default band, which has no reservation of its own.
+ */
+@Service
+public class ConcurrencyReservationManager {
+    private final List<ConcurrencyProperties.ConcurrencyClass> classes;
+    // Active requests per class, the last slot being the default band
+    private final AtomicIntegerArray activeByClass;
+
+    public ConcurrencyReservationManager(ConcurrencyProperties concurrencyProperties) {
+        this.classes = concurrencyProperties.getClasses().stream()
+                .sorted(Comparator.comparingLong(ConcurrencyProperties.ConcurrencyClass::getMinAmount).reversed())
+                .toList();
+        this.activeByClass = new AtomicIntegerArray(classes.size() + 1);
+    }
+
+    public boolean isEnabled() {
+        return !classes.isEmpty();
+    }
+
+    public int getDefaultClass() {
+        return classes.size();
+    }
+
+    public String getClassName(int concurrencyClass) {
+        return concurrencyClass == getDefaultClass() ? "default" : classes.get(concurrencyClass).getName();
+    }
+
+    public int classOf(PrioritizedTask task) {
+        if (task == null || classes.isEmpty() || task.getRequest() == null || task.getRequest().getAmount_cents() == null) {
+            return getDefaultClass();
+        }
+        return classOf(task.getRequest().getAmount_cents());
+    }
+
+    public int classOf(long amount) {
+        for (int i = 0; i < classes.size(); i++) {
+            if (amount >= classes.get(i).getMinAmount()) {
+                return i;
+            }
+        }
+        return getDefaultClass();
+    }
+
+    /**
+     * @param concurrencyClass class of the task to dispatch
+     * @param activeRequests   requests in flight over all classes
+     * @param concurrencyLimit current adaptive limit
+     * @return true if the class may take one more slot without eating into another class's protected headroom
+     */
+    public boolean hasCapacity(int concurrencyClass, int activeRequests, int concurrencyLimit) {
+        int protectedSlots = 0;
+        for (int i = 0; i < classes.size(); i++) {
+            if (i == concurrencyClass) {
+                continue;
+            }
+            final ConcurrencyProperties.ConcurrencyClass other = classes.get(i);
+            final int unused = Math.max(0, (int) (concurrencyLimit * other.getReserved()) - activeByClass.get(i));
+            protectedSlots += unused - (int) (unused * other.getBorrowable());
+        }
+
+        return activeRequests < concurrencyLimit - protectedSlots;
+    }
+
+    public void acquire(int concurrencyClass) {
+        activeByClass.incrementAndGet(concurrencyClass);
+    }
+
+    public void release(int concurrencyClass) {
+        activeByClass.decrementAndGet(concurrencyClass);
+    }
+
+    public int getActiveRequests(int concurrencyClass) {
+        return activeByClass.get(concurrencyClass);
+    }
+}
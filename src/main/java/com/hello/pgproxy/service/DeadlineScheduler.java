@@ -0,0 +1,43 @@
+package com.hello.pgproxy.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared timer for per-request deadlines. A request answered in time cancels its timer, which then leaves the queue
+ * right away instead of holding on to the request until the deadline passes.
+ * <p>
+ * The timer thread only hands fired tasks to virtual threads, so a slow callback cannot delay other deadlines.
+ */
+@Component
+public class DeadlineScheduler {
+    private final ScheduledThreadPoolExecutor timer =
+            new ScheduledThreadPoolExecutor(1, Thread.ofPlatform().name("deadlines").daemon().factory());
+
+    public DeadlineScheduler() {
+        timer.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * @return the timer, to be cancelled once the deadline no longer matters
+     */
+    public ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+        return timer.schedule(() -> Thread.startVirtualThread(task), delay, unit);
+    }
+
+    /**
+     * @return timers neither fired nor cancelled yet
+     */
+    public int getPendingCount() {
+        return timer.getQueue().size();
+    }
+
+    @PreDestroy
+    public void stop() {
+        timer.shutdownNow();
+    }
+}
@@ -0,0 +1,95 @@
+package com.hello.pgproxy.service;
+
+import com.hello.pgproxy.configuration.ConcurrencyProperties;
+import com.hello.pgproxy.service.backpressure.BackpressureCircuit;
+import com.hello.pgproxy.service.backpressure.BackpressureHandler;
+import com.hello.pgproxy.service.backpressure.BackpressureSignalRecorder;
+import com.hello.pgproxy.service.backpressure.LimiterSnapshot;
+import com.hello.pgproxy.service.backpressure.LimiterSnapshotStore;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically persists the limiter state read back by {@link BackpressurePolicyManager} on the next startup.
+ * Lives apart from the policy manager because it reads the live limit from {@link PaymentFlowManager}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LimiterSnapshotWriter {
+    private final ConcurrencyProperties concurrencyProperties;
+    private final LimiterSnapshotStore limiterSnapshotStore;
+    private final BackpressurePolicyManager backpressurePolicyManager;
+    private final PaymentFlowManager paymentFlowManager;
+    private final BackpressureSignalRecorder backpressureSignalRecorder;
+    private final BackpressureCircuit backpressureCircuit;
+
+    private final ScheduledExecutorService snapshotExecutor = Executors.newSingleThreadScheduledExecutor();
+
+    // Outcome totals at the previous snapshot, guarded by this
+    private long previousBackpressures;
+    private long previousOutcomes;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!limiterSnapshotStore.isEnabled()) {
+            return;
+        }
+
+        final long interval = concurrencyProperties.getSnapshot().getInterval();
+        snapshotExecutor.scheduleWithFixedDelay(this::write, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        snapshotExecutor.shutdownNow();
+        if (limiterSnapshotStore.isEnabled()) {
+            // The freshest state is the most useful one for the instance replacing us
+            write();
+        }
+    }
+
+    synchronized void write() {
+        // During an outage the limit is held down by the circuit and tells nothing about capacity
+        if (!backpressureCircuit.isClosed()) {
+            return;
+        }
+
+        final BackpressureHandler handler = backpressurePolicyManager.getActiveHandler();
+        final LimiterSnapshot snapshot = LimiterSnapshot.builder()
+                .handlerName(handler.getHandlerName())
+                .concurrencyLimit(paymentFlowManager.getCurrentConcurrencyLimit())
+                .lastKnownGoodConcurrency(handler.getLastKnownGoodConcurrency())
+                .baselineLatencyNanos(handler.getBaselineLatencyNanos())
+                .backpressureRate(sampleBackpressureRate())
+                .savedAtMillis(System.currentTimeMillis())
+                .build();
+
+        try {
+            limiterSnapshotStore.save(snapshot);
+        } catch (IOException e) {
+            log.warn("Failed to persist limiter snapshot", e);
+        }
+    }
+
+    private double sampleBackpressureRate() {
+        final long backpressures = backpressureSignalRecorder.getBackpressureCount();
+        final long outcomes = backpressures + backpressureSignalRecorder.getCompletedCount() + backpressureSignalRecorder.getErrorCount();
+
+        final long windowBackpressures = backpressures - previousBackpressures;
+        final long windowOutcomes = outcomes - previousOutcomes;
+        previousBackpressures = backpressures;
+        previousOutcomes = outcomes;
+
+        return windowOutcomes == 0 ? 0 : (double) windowBackpressures / windowOutcomes;
+    }
+}
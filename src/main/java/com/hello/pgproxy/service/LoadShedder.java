@@ -0,0 +1,67 @@
+package com.hello.pgproxy.service;
+
+import com.hello.pgproxy.configuration.ConcurrencyProperties;
+import com.hello.pgproxy.configuration.ResponseProperties;
+import com.hello.pgproxy.service.backpressure.BackpressureSignalRecorder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rejects a request at admission when it would most likely time out in the queue anyway,
+ * before any verification work is spent on it.
+ * <p>
+ * By Little's law a full limit of calls completes per backend latency, so the tasks ahead of a new amount
+ * are drained in {@code ahead / limit} rounds, followed by its own call.
+ */
+@Service
+public class LoadShedder {
+    private final ConcurrencyProperties.Shedding properties;
+    private final ResponseProperties responseProperties;
+    private final PriorityTaskQueueService priorityTaskQueueService;
+    private final PaymentFlowManager paymentFlowManager;
+    private final BackpressureSignalRecorder backpressureSignalRecorder;
+
+    public LoadShedder(ConcurrencyProperties concurrencyProperties, ResponseProperties responseProperties,
+                       PriorityTaskQueueService priorityTaskQueueService, PaymentFlowManager paymentFlowManager,
+                       BackpressureSignalRecorder backpressureSignalRecorder) {
+        this.properties = concurrencyProperties.getShedding();
+        this.responseProperties = responseProperties;
+        this.priorityTaskQueueService = priorityTaskQueueService;
+        this.paymentFlowManager = paymentFlowManager;
+        this.backpressureSignalRecorder = backpressureSignalRecorder;
+    }
+
+    /**
+     * @return 0 to admit the request, otherwise the Retry-After in milliseconds to reject it with
+     */
+    public long evaluate(long amountCents) {
+        final long latencyNanos = backpressureSignalRecorder.getRecentLatencyNanos();
+        // Nothing measured yet, so there is no basis for turning anyone away
+        if (!properties.isEnabled() || latencyNanos == 0) {
+            return 0;
+        }
+
+        final long ahead = priorityTaskQueueService.countQueuedAtOrAbove(amountCents);
+        final int limit = Math.max(1, paymentFlowManager.getCurrentConcurrencyLimit());
+        final double expectedWaitNanos = ((double) ahead / limit + 1) * latencyNanos;
+        final long budgetNanos = TimeUnit.MILLISECONDS.toNanos(
+                responseProperties.getTimeout() - responseProperties.getDeadlineMargin());
+        if (expectedWaitNanos <= budgetNanos) {
+            return 0;
+        }
+
+        // Roughly when the backlog ahead will have drained enough for it to fit
+        return Math.max(properties.getMinRetryAfter(),
+                TimeUnit.NANOSECONDS.toMillis((long) expectedWaitNanos - budgetNanos));
+    }
+
+    public static ResponseEntity<?> toRejection(long retryAfterMillis) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(TimeUnit.MILLISECONDS.toSeconds(retryAfterMillis + 999)))
+                .body("Proxy Overloaded");
+    }
+}
@@ -0,0 +1,126 @@
+package com.hello.pgproxy.service;
+
+import com.hello.pgproxy.configuration.ConcurrencyProperties;
+import com.hello.pgproxy.model.BatchItemResult;
+import com.hello.pgproxy.model.ClientRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.exc.JacksonIOException;
+import tools.jackson.databind.MappingIterator;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Feeds the items of a batch request into the priority queue one by one, each with its own priority and deadline,
+ * and streams every result back as an NDJSON line as soon as it is known.
+ * <p>
+ * The body is parsed incrementally and at most {@code proxy.concurrency.batch.max-in-flight} items of a batch
+ * are pending at a time, so memory stays bounded however large the batch is.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentBatchProcessor {
+    private final PaymentSubmitter paymentSubmitter;
+    private final ConcurrencyProperties concurrencyProperties;
+    private final JsonMapper jsonMapper;
+
+    // Reading the body blocks until the client sends more, so each batch gets its own virtual thread
+    private final ExecutorService batchReaderPool = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * @param body NDJSON or a JSON array of payment requests
+     */
+    public ResponseBodyEmitter process(InputStream body) {
+        // The batch ends when its last item is answered, each item has its own timeout
+        final ResponseBodyEmitter emitter = new ResponseBodyEmitter(0L);
+        batchReaderPool.execute(() -> run(body, emitter));
+
+        return emitter;
+    }
+
+    void run(InputStream body, ResponseBodyEmitter emitter) {
+        final int maxInFlight = concurrencyProperties.getBatch().getMaxInFlight();
+        final Semaphore inFlight = new Semaphore(maxInFlight);
+        final AtomicBoolean aborted = new AtomicBoolean(false);
+        Throwable failure = null;
+
+        try {
+            // A root-level array is iterated element by element, otherwise values follow each other as NDJSON
+            final MappingIterator<ClientRequest> items = jsonMapper.readerFor(ClientRequest.class).readValues(body);
+            while (!aborted.get() && items.hasNextValue()) {
+                final ClientRequest request = items.nextValue();
+                inFlight.acquire();
+                try {
+                    paymentSubmitter.submit(request, result -> {
+                        emit(emitter, request, result, aborted);
+                        inFlight.release();
+                    });
+                } catch (RuntimeException e) {
+                    inFlight.release();
+                    throw e;
+                }
+            }
+        } catch (JacksonIOException e) {
+            // Reading the body failed, usually because the client went away, so there is nobody to answer
+            log.warn("Batch request body unreadable, aborting the batch", e);
+            aborted.set(true);
+            failure = e;
+        } catch (JacksonException e) {
+            // No way to find the next item boundary reliably, so the rest of the batch is dropped
+            log.warn("Malformed batch item, stopping the batch", e);
+            emit(emitter, null, ResponseEntity.badRequest().body("Malformed Item"), aborted);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            // The emitter has no timeout, it must be completed whatever happened
+            log.error("Batch failed", e);
+            aborted.set(true);
+            failure = e;
+        } finally {
+            inFlight.acquireUninterruptibly(maxInFlight);
+            if (failure == null) {
+                emitter.complete();
+            } else {
+                emitter.completeWithError(failure);
+            }
+        }
+    }
+
+    private void emit(ResponseBodyEmitter emitter, ClientRequest request, ResponseEntity<?> result, AtomicBoolean aborted) {
+        if (aborted.get()) {
+            return;
+        }
+
+        final BatchItemResult line = new BatchItemResult(
+                request == null ? null : request.getId(), result.getStatusCode().value(), bodyOf(result));
+        try {
+            emitter.send(jsonMapper.writeValueAsString(line) + "\n", MediaType.APPLICATION_NDJSON);
+        } catch (IOException | IllegalStateException e) {
+            // The client went away, pending items still complete but nothing more is read
+            log.warn("Batch response aborted", e);
+            aborted.set(true);
+        }
+    }
+
+    private static String bodyOf(ResponseEntity<?> result) {
+        final Object body = result.getBody();
+        if (body instanceof byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        return body == null ? null : body.toString();
+    }
+}
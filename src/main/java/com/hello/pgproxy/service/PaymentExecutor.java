@@ -1,7 +1,13 @@
 package com.hello.pgproxy.service;
 
 import com.hello.pgproxy.client.BackendApiClient;
+import com.hello.pgproxy.client.BackendOutcomeClassifier;
+import com.hello.pgproxy.client.NoEndpointAvailableException;
+import com.hello.pgproxy.client.PassthroughHeaders;
+import com.hello.pgproxy.client.RetryAfterParser;
+import com.hello.pgproxy.configuration.ResponseProperties;
 import com.hello.pgproxy.model.BackendExecutionStatus;
+import com.hello.pgproxy.model.BackendOutcome;
 import com.hello.pgproxy.model.BackendRequest;
 import com.hello.pgproxy.model.ClientRequest;
 import com.hello.pgproxy.model.PrioritizedTask;
@@ -11,55 +17,157 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class PaymentExecutor {
     private final BackendApiClient backendApiClient;
+    private final BackendOutcomeClassifier backendOutcomeClassifier;
+    private final ResponseProperties responseProperties;
 
     public BackendExecutionStatus execute(PrioritizedTask task) {
+        final Duration budget = remainingBudget(task);
+        if (budget == null) {
+            return skipExpired(task);
+        }
+
         try {
-            final ResponseEntity<?> response = forwardRequestToBackend(task);
+            final ResponseEntity<?> response = backendApiClient.postForEntity(toBackendRequest(task), budget);
             task.getDeferredResponse().setResult(response);
             log.info("Payment has been completed for request id: {}", task.getRequest().getId());
 
             // Success: Delegate scale-up logic
             return BackendExecutionStatus.COMPLETED;
-        } catch (HttpServerErrorException.ServiceUnavailable e) {
-            log.warn("Payment service unavailable for request id: {}", task.getRequest().getId(), e);
+        } catch (Exception e) {
+            return handleFailure(task, e);
+        }
+    }
 
-            // Failure: Delegate backpressure handling logic
-            return BackendExecutionStatus.BACKPRESSURE_CONTROL_NEEDED;
-        } catch (HttpClientErrorException e) {
-            // Client Error (400) - Pass through to client
-            final ResponseEntity responseEntity = ResponseEntity
-                    .status(e.getStatusCode())
-                    .body(e.getResponseBodyAsString());
+    /**
+     * Non-blocking variant of {@link #execute}: the returned future completes on the HTTP client's callback,
+     * after the client response has been set, and never completes exceptionally for backend failures.
+     */
+    public CompletableFuture<BackendExecutionStatus> executeAsync(PrioritizedTask task) {
+        final Duration budget = remainingBudget(task);
+        if (budget == null) {
+            return CompletableFuture.completedFuture(skipExpired(task));
+        }
 
-            task.getDeferredResponse().setResult(responseEntity);
-            log.warn("Got client error for request id: {}", task.getRequest().getId(), e);
+        return backendApiClient.postForEntityAsync(toBackendRequest(task), budget)
+                .handle((response, failure) -> {
+                    if (failure != null) {
+                        return handleFailure(task, BackendApiClient.unwrap(failure));
+                    }
 
-            return BackendExecutionStatus.ERROR;
-        } catch (Exception e) {
-            task.getDeferredResponse().setResult(
-                    ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build()
-            );
-            log.error("Got error for request id: {}", task.getRequest().getId(), e);
+                    task.getDeferredResponse().setResult(response);
+                    log.info("Payment has been completed for request id: {}", task.getRequest().getId());
 
-            return BackendExecutionStatus.ERROR;
+                    return BackendExecutionStatus.COMPLETED;
+                });
+    }
+
+    private BackendExecutionStatus handleFailure(PrioritizedTask task, Throwable e) {
+        // Nothing was sent and the backend is fine, the task only waits for a replica with room
+        if (e instanceof NoEndpointAvailableException) {
+            log.debug("No backend replica available for request id: {}", task.getRequest().getId());
+            return BackendExecutionStatus.ENDPOINT_UNAVAILABLE;
+        }
+
+        final BackendOutcome outcome = backendOutcomeClassifier.classify(e);
+        if (outcome != BackendOutcome.FATAL && !backendOutcomeClassifier.isSafeToResend(e)) {
+            return answerUnknownOutcome(task, outcome, e);
         }
+
+        switch (outcome) {
+            case BACKPRESSURE -> {
+                // Another replica can take it, so only the overloaded one backs off
+                if (backendApiClient.canReroute()) {
+                    log.info("Backend replica overloaded, rerouting request id: {}", task.getRequest().getId());
+                    return BackendExecutionStatus.REROUTE_NEEDED;
+                }
+
+                log.warn("Payment service overloaded for request id: {}", task.getRequest().getId(), e);
+                if (e instanceof RestClientResponseException responseException) {
+                    task.setRetryAfterMillis(RetryAfterParser.toMillis(responseException.getResponseHeaders()));
+                }
+
+                // Failure: Delegate backpressure handling logic
+                return BackendExecutionStatus.BACKPRESSURE_CONTROL_NEEDED;
+            }
+            case RETRYABLE -> {
+                log.warn("Retryable failure for request id: {}", task.getRequest().getId(), e);
+                return BackendExecutionStatus.RETRY_NEEDED;
+            }
+            default -> {
+                if (e instanceof HttpClientErrorException clientError) {
+                    // Client Error (400) - Pass through to client
+                    final ResponseEntity responseEntity = backendApiClient.isPassthrough()
+                            ? ResponseEntity.status(clientError.getStatusCode())
+                                    .headers(PassthroughHeaders.relay(clientError.getResponseHeaders()))
+                                    .body(clientError.getResponseBodyAsByteArray())
+                            : ResponseEntity.status(clientError.getStatusCode())
+                                    .body(clientError.getResponseBodyAsString());
+
+                    task.getDeferredResponse().setResult(responseEntity);
+                    log.warn("Got client error for request id: {}", task.getRequest().getId(), e);
+                } else {
+                    task.getDeferredResponse().setResult(
+                            ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build()
+                    );
+                    log.error("Got error for request id: {}", task.getRequest().getId(), e);
+                }
+
+                return BackendExecutionStatus.ERROR;
+            }
+        }
+    }
+
+    // Sending the call again could charge twice, so the client learns that the outcome is unknown
+    private BackendExecutionStatus answerUnknownOutcome(PrioritizedTask task, BackendOutcome outcome, Throwable e) {
+        task.getDeferredResponse().setResult(ResponseEntity.status(HttpStatus.BAD_GATEWAY).build());
+        log.error("Payment outcome unknown, not resending request id: {}", task.getRequest().getId(), e);
+
+        // An overloaded replica throttles itself; only an overload of the whole backend shrinks the global limit
+        if (outcome == BackendOutcome.BACKPRESSURE && !backendApiClient.canReroute()) {
+            if (e instanceof RestClientResponseException responseException) {
+                task.setRetryAfterMillis(RetryAfterParser.toMillis(responseException.getResponseHeaders()));
+            }
+            return BackendExecutionStatus.BACKPRESSURE_ANSWERED;
+        }
+
+        return BackendExecutionStatus.ERROR;
     }
 
-    private ResponseEntity<?> forwardRequestToBackend(PrioritizedTask task) {
+    /**
+     * @return time the backend call may take, or null if the client will be gone before it could answer
+     */
+    private Duration remainingBudget(PrioritizedTask task) {
+        final long budgetNanos = task.getRemainingNanos(System.nanoTime())
+                - TimeUnit.MILLISECONDS.toNanos(responseProperties.getDeadlineMargin());
+
+        return budgetNanos > 0 ? Duration.ofNanos(budgetNanos) : null;
+    }
+
+    // The client's own timeout answers it and records the lost amount, so only the permit is given back
+    private BackendExecutionStatus skipExpired(PrioritizedTask task) {
+        log.warn("Deadline exceeded before the backend call for request id: {}", task.getRequest().getId());
+
+        return BackendExecutionStatus.DEADLINE_EXCEEDED;
+    }
+
+    private static BackendRequest toBackendRequest(PrioritizedTask task) {
         final ClientRequest request = task.getRequest();
-        final BackendRequest body = BackendRequest.builder()
+
+        return BackendRequest.builder()
                 .id(request.getId())
                 .amount_cents(request.getAmount_cents())
                 .verification(task.getVerification())
                 .build();
-
-        return backendApiClient.postForEntity(body);
     }
 }
\ No newline at end of file
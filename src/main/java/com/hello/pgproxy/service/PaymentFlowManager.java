@@ -1,12 +1,21 @@
 package com.hello.pgproxy.service;
 
+import com.hello.pgproxy.client.BackendEndpointPool;
+import com.hello.pgproxy.configuration.BackendProperties;
 import com.hello.pgproxy.model.BackendExecutionStatus;
 import com.hello.pgproxy.model.PrioritizedTask;
+import com.hello.pgproxy.service.backpressure.BackpressureSignalRecorder;
+import com.hello.pgproxy.service.latency.StageLatencyRecorder;
+import com.hello.pgproxy.service.retry.RetryBudget;
+import com.hello.pgproxy.service.retry.RetryLane;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -19,6 +28,13 @@ public class PaymentFlowManager {
     private final PriorityTaskQueueService priorityTaskQueueService;
     private final PaymentExecutor paymentExecutor;
     private final ConcurrencyLockObject concurrencyLockObject;
+    private final BackpressureSignalRecorder backpressureSignalRecorder;
+    private final ConcurrencyReservationManager concurrencyReservationManager;
+    private final RetryBudget retryBudget;
+    private final RetryLane retryLane;
+    private final BackendProperties backendProperties;
+    private final StageLatencyRecorder stageLatencyRecorder;
+    private final BackendEndpointPool backendEndpointPool;
 
     // I/O thread pool
     private final ExecutorService backendWorkPool = Executors.newVirtualThreadPerTaskExecutor();
@@ -26,42 +42,142 @@ public class PaymentFlowManager {
 
     // Concurrency state variables
     private final AtomicInteger currentConcurrencyLimit = new AtomicInteger(0);
+    private boolean asyncExecution;
 
     @PostConstruct
     public void init() {
         // Initialization logic for the flow manager
         currentConcurrencyLimit.set(backpressurePolicyManager.getInitialConcurrencyLimit());
+        backpressureSignalRecorder.setInFlightSource(activeRequests::get);
+        asyncExecution = backendProperties.getClient().isAsync();
+    }
+
+    public int getCurrentConcurrencyLimit() {
+        return currentConcurrencyLimit.get();
+    }
+
+    /**
+     * @return dispatched tasks holding a concurrency permit
+     */
+    public int getActiveRequests() {
+        return activeRequests.get();
     }
 
     public void processNext() throws InterruptedException {
         synchronized (concurrencyLockObject) {
             // Wait logic uses the state managed in this class
-            while (backpressurePolicyManager.isPaused() || activeRequests.get() >= currentConcurrencyLimit.get()) {
-                concurrencyLockObject.wait();
+            // With an empty queue the head is the default band, so this falls back to the global limit check
+            while (true) {
+                if (backpressurePolicyManager.isPaused()
+                        || !hasCapacity(concurrencyReservationManager.classOf(priorityTaskQueueService.peek()))) {
+                    concurrencyLockObject.wait();
+                } else if (!backendEndpointPool.hasAvailableEndpoint()) {
+                    // A completion frees a replica slot and notifies, but a paused replica resumes silently
+                    concurrencyLockObject.wait(Math.max(1, backendProperties.getEndpoint().getPause()));
+                } else {
+                    break;
+                }
             }
         }
 
         final PrioritizedTask task = priorityTaskQueueService.take();
+        final int concurrencyClass = concurrencyReservationManager.classOf(task);
+
+        // A lower band may have arrived at the head after the check; it must not take another class's headroom.
+        // Losing that race is no attempt, so it does not count as a requeue
+        if (!hasCapacity(concurrencyClass)) {
+            priorityTaskQueueService.putBack(task);
+            return;
+        }
 
+        task.setDispatchEpoch(backpressurePolicyManager.getDispatchEpoch());
         activeRequests.incrementAndGet();
+        concurrencyReservationManager.acquire(concurrencyClass);
 
-        backendWorkPool.submit(() -> {
+        final long dispatchedAt = System.nanoTime();
+        if (asyncExecution) {
+            // No thread waits on the call; the HTTP client's completion callback finishes the task
+            final CompletableFuture<BackendExecutionStatus> execution;
             try {
-                // Delegate execution to the dedicated service
-                final BackendExecutionStatus executionResult = paymentExecutor.execute(task);
+                execution = paymentExecutor.executeAsync(task);
+            } catch (RuntimeException e) {
+                failUnexpectedly(task, e);
+                release(concurrencyClass);
+                return;
+            }
 
-                switch (executionResult) {
-                    case COMPLETED -> backpressurePolicyManager.increaseConcurrencyLimit(currentConcurrencyLimit);
-                    case BACKPRESSURE_CONTROL_NEEDED ->
-                            backpressurePolicyManager.handleBackpressure(task, currentConcurrencyLimit);
+            execution.whenComplete((executionResult, failure) -> {
+                try {
+                    if (failure != null) {
+                        failUnexpectedly(task, failure);
+                    } else {
+                        onExecuted(task, executionResult, dispatchedAt);
+                    }
+                } finally {
+                    release(concurrencyClass);
                 }
+            });
+            return;
+        }
+
+        backendWorkPool.submit(() -> {
+            try {
+                // Delegate execution to the dedicated service
+                onExecuted(task, paymentExecutor.execute(task), dispatchedAt);
+            } catch (RuntimeException e) {
+                failUnexpectedly(task, e);
             } finally {
                 // Ensure synchronization is handled after execution
-                activeRequests.decrementAndGet();
-                synchronized (concurrencyLockObject) {
-                    concurrencyLockObject.notify();
-                }
+                release(concurrencyClass);
             }
         });
     }
+
+    private void onExecuted(PrioritizedTask task, BackendExecutionStatus executionResult, long dispatchedAt) {
+        final long completedAt = System.nanoTime();
+        backpressureSignalRecorder.recordCompletion(executionResult, completedAt - dispatchedAt, task.getAmountCents());
+        // Before a retry counts this attempt
+        stageLatencyRecorder.record(task, executionResult, dispatchedAt, completedAt);
+
+        switch (executionResult) {
+            case COMPLETED -> {
+                retryBudget.deposit();
+                backpressurePolicyManager.increaseConcurrencyLimit(currentConcurrencyLimit, task.getDispatchEpoch());
+            }
+            case BACKPRESSURE_CONTROL_NEEDED ->
+                    backpressurePolicyManager.handleBackpressure(task, currentConcurrencyLimit);
+            case BACKPRESSURE_ANSWERED ->
+                    backpressurePolicyManager.handleBackpressure(task, currentConcurrencyLimit, false);
+            // A one-off failure says nothing about backend capacity, so the limit stays as is
+            case RETRY_NEEDED -> retryLane.retry(task);
+            // Not a retry: the backend as a whole took no harm, so no attempt, budget or backoff is spent
+            case REROUTE_NEEDED -> {
+                task.setQueuedNanos(completedAt);
+                priorityTaskQueueService.requeue(task);
+            }
+            // Lost the last replica slot to another dispatch; the dispatcher waits for a free one before taking it again
+            case ENDPOINT_UNAVAILABLE -> {
+                task.setQueuedNanos(completedAt);
+                priorityTaskQueueService.putBack(task);
+            }
+        }
+    }
+
+    // Not a backend outcome the executor could classify, so the client gets a 500 instead of waiting for its timeout
+    private static void failUnexpectedly(PrioritizedTask task, Throwable failure) {
+        log.error("Unexpected failure completing request id: {}", task.getRequest().getId(), failure);
+        task.getDeferredResponse().setResult(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+    }
+
+    private void release(int concurrencyClass) {
+        activeRequests.decrementAndGet();
+        concurrencyReservationManager.release(concurrencyClass);
+        synchronized (concurrencyLockObject) {
+            concurrencyLockObject.notify();
+        }
+    }
+
+    private boolean hasCapacity(int concurrencyClass) {
+        return concurrencyReservationManager.hasCapacity(concurrencyClass, activeRequests.get(), currentConcurrencyLimit.get());
+    }
 }
@@ -0,0 +1,69 @@
+package com.hello.pgproxy.service;
+
+import com.hello.pgproxy.configuration.ResponseProperties;
+import com.hello.pgproxy.model.ClientRequest;
+import com.hello.pgproxy.service.backpressure.BackpressureSignalRecorder;
+import com.hello.pgproxy.service.idempotency.IdempotencyGate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Admission of a payment for every ingress path (MVC and reactive {@code /payments}, batch items, TCP frames):
+ * validation, load shedding, the idempotency gate, the deadline and queueing, with the outcome delivered to a callback.
+ */
+@Service
+@RequiredArgsConstructor
+public class PaymentSubmitter {
+    private final IdempotencyGate idempotencyGate;
+    private final LoadShedder loadShedder;
+    private final ResponseProperties responseProperties;
+    private final BackpressureSignalRecorder backpressureSignalRecorder;
+    private final DeadlineScheduler deadlineScheduler;
+
+    /**
+     * @param onResult called exactly once with the response the request would get over HTTP
+     */
+    public void submit(ClientRequest request, Consumer<ResponseEntity<?>> onResult) {
+        if (request == null || request.getId() == null || request.getAmount_cents() == null) {
+            onResult.accept(ResponseEntity.badRequest().body("Missing ID or Amount"));
+            return;
+        }
+
+        // Turned away before the verification work, when it would only time out in the queue
+        final long retryAfterMillis = loadShedder.evaluate(request.getAmount_cents());
+        if (retryAfterMillis > 0) {
+            onResult.accept(LoadShedder.toRejection(retryAfterMillis));
+            return;
+        }
+
+        final DeferredResult<ResponseEntity<?>> deferredResponse = new DeferredResult<>();
+        final long timeout = responseProperties.getTimeout();
+        // Not a servlet-managed result, so it times out on its own; whoever sets the result first wins
+        final ScheduledFuture<?> timer = deadlineScheduler.schedule(() -> {
+            if (deferredResponse.setResult(ResponseEntity.status(HttpStatus.REQUEST_TIMEOUT).body("Request Timed Out"))) {
+                // Lost revenue, weighed against completed amounts by the tuner
+                backpressureSignalRecorder.recordTimeout(request.getAmount_cents());
+            }
+        }, timeout, TimeUnit.MILLISECONDS);
+        deferredResponse.setResultHandler(result -> {
+            timer.cancel(false);
+            onResult.accept((ResponseEntity<?>) result);
+        });
+
+        try {
+            // The same budget the response times out on, so backend calls never outlive the client
+            idempotencyGate.enqueue(request, deferredResponse, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout));
+        } catch (RuntimeException e) {
+            // The caller answers a rejected submission itself
+            timer.cancel(false);
+            throw e;
+        }
+    }
+}
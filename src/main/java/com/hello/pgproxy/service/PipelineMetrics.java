@@ -0,0 +1,91 @@
+package com.hello.pgproxy.service;
+
+import com.hello.pgproxy.service.backpressure.BackpressureSignalRecorder;
+import com.hello.pgproxy.service.retry.RetryLane;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * Meters of each pipeline stage: queue, verification, limiter and backend.
+ * The stages only bump their own {@link java.util.concurrent.atomic.LongAdder}s; every meter here is a function
+ * of those, read when scraped, so the request path never allocates nor looks up a meter.
+ */
+@Component
+@RequiredArgsConstructor
+public class PipelineMetrics implements MeterBinder {
+    private final PriorityTaskQueueService priorityTaskQueueService;
+    private final PaymentFlowManager paymentFlowManager;
+    private final BackpressurePolicyManager backpressurePolicyManager;
+    private final BackpressureSignalRecorder backpressureSignalRecorder;
+    private final RetryLane retryLane;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        // Queue
+        Gauge.builder("proxy.queue.depth", priorityTaskQueueService, PriorityTaskQueueService::getRemainingTaskCount)
+                .description("Verified tasks waiting for dispatch")
+                .register(registry);
+        Gauge.builder("proxy.retry.backing.off", retryLane, RetryLane::getBackingOffCount)
+                .description("Tasks waiting out a backoff before they are queued again")
+                .register(registry);
+        FunctionCounter.builder("proxy.queue.requeues", priorityTaskQueueService, PriorityTaskQueueService::getRequeueCount)
+                .description("Tasks queued again for another attempt or replica")
+                .register(registry);
+
+        // Verification
+        FunctionTimer.builder("proxy.verification", priorityTaskQueueService,
+                        PriorityTaskQueueService::getVerificationCount,
+                        PriorityTaskQueueService::getVerificationNanos,
+                        TimeUnit.NANOSECONDS)
+                .description("Verification number computations")
+                .register(registry);
+
+        // Limiter
+        Gauge.builder("proxy.concurrency.limit", paymentFlowManager, PaymentFlowManager::getCurrentConcurrencyLimit)
+                .description("Current concurrency limit towards the backend")
+                .register(registry);
+        Gauge.builder("proxy.concurrency.active", paymentFlowManager, PaymentFlowManager::getActiveRequests)
+                .description("Dispatched tasks holding a concurrency permit")
+                .register(registry);
+        Gauge.builder("proxy.concurrency.paused", backpressurePolicyManager, manager -> manager.isPaused() ? 1 : 0)
+                .description("1 while dispatch is paused after backend overload")
+                .register(registry);
+
+        // Backend
+        FunctionTimer.builder("proxy.backend.rtt", backpressureSignalRecorder,
+                        BackpressureSignalRecorder::getBackendCallCount,
+                        BackpressureSignalRecorder::getBackendCallNanos,
+                        TimeUnit.NANOSECONDS)
+                .description("Backend calls from dispatch to response, whatever the outcome")
+                .register(registry);
+        outcome(registry, "completed", BackpressureSignalRecorder::getCompletedCount);
+        outcome(registry, "backpressure", BackpressureSignalRecorder::getBackpressureCount);
+        outcome(registry, "error", BackpressureSignalRecorder::getErrorCount);
+        outcome(registry, "expired", BackpressureSignalRecorder::getExpiredCount);
+        amount(registry, "completed", BackpressureSignalRecorder::getCompletedAmountCents);
+        amount(registry, "timed_out", BackpressureSignalRecorder::getTimedOutAmountCents);
+    }
+
+    private void outcome(MeterRegistry registry, String outcome, ToLongFunction<BackpressureSignalRecorder> count) {
+        FunctionCounter.builder("proxy.backend.outcomes", backpressureSignalRecorder, recorder -> count.applyAsLong(recorder))
+                .description("Dispatched tasks by outcome; expired ones were dropped at their deadline without a call")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private void amount(MeterRegistry registry, String outcome, ToLongFunction<BackpressureSignalRecorder> amountCents) {
+        FunctionCounter.builder("proxy.payments.amount", backpressureSignalRecorder, recorder -> amountCents.applyAsLong(recorder))
+                .description("Payment amounts by outcome, in cents")
+                .baseUnit("cents")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
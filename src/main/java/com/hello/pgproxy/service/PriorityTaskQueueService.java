@@ -1,6 +1,7 @@
 package com.hello.pgproxy.service;
 
 import com.hello.pgproxy.model.ClientRequest;
+import com.hello.pgproxy.model.PaymentDeadline;
 import com.hello.pgproxy.model.PrioritizedTask;
 import com.hello.pgproxy.service.verification.VerificationStrategy;
 import lombok.RequiredArgsConstructor;
@@ -11,6 +12,8 @@ import org.springframework.web.context.request.async.DeferredResult;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Service responsible for queue of payment requests with a focus on revenue maximization.
@@ -27,18 +30,51 @@ public class PriorityTaskQueueService {
 
     // Thread-safe queue that orders payment requests
     private final PriorityBlockingQueue<PrioritizedTask> queue = new PriorityBlockingQueue<>();
+    // Queued and verifying tasks per power-of-two amount band, for an O(1) estimate of the position of a new amount
+    private final AtomicLongArray queuedByMagnitude = new AtomicLongArray(Long.SIZE + 1);
+    // Stage counters read by the metrics binder
+    private final LongAdder verifications = new LongAdder();
+    private final LongAdder verificationNanos = new LongAdder();
+    private final LongAdder requeues = new LongAdder();
 
     // Allocate the dedicate thread pool for cpu intensive works
     private final int availableCores = Runtime.getRuntime().availableProcessors();
     private final ExecutorService enqueueWorkPool = Executors.newFixedThreadPool(availableCores);
 
     public void enqueue(ClientRequest request, DeferredResult<ResponseEntity<?>> deferredResult) {
+        enqueue(request, deferredResult, 0);
+    }
+
+    /**
+     * @param deadlineNanos System.nanoTime() by which the client stops waiting, 0 for none
+     */
+    public void enqueue(ClientRequest request, DeferredResult<ResponseEntity<?>> deferredResult, long deadlineNanos) {
+        enqueue(request, deferredResult, new PaymentDeadline(deadlineNanos));
+    }
+
+    /**
+     * @param deadline shared with the caller, which may still move it later
+     */
+    public void enqueue(ClientRequest request, DeferredResult<ResponseEntity<?>> deferredResult, PaymentDeadline deadline) {
+        final long admittedAt = System.nanoTime();
+        // Counted before verification, it is ahead of later arrivals from now on
+        queuedByMagnitude.incrementAndGet(magnitude(request.getAmount_cents()));
         enqueueWorkPool.submit(() -> {
+            final long startedAt = System.nanoTime();
             final Long verification = verificationStrategy.calculate(request);
+            final long verifiedAt = System.nanoTime();
+            verificationNanos.add(verifiedAt - startedAt);
+            verifications.increment();
+
             final var task = PrioritizedTask.builder()
                     .request(request)
                     .verification(verification)
                     .deferredResponse(deferredResult)
+                    .deadline(deadline)
+                    .admittedNanos(admittedAt)
+                    .verificationStartedNanos(startedAt)
+                    .verifiedNanos(verifiedAt)
+                    .queuedNanos(verifiedAt)
                     .build();
 
             queue.add(task);
@@ -46,14 +82,63 @@ public class PriorityTaskQueueService {
     }
 
     public void requeue(PrioritizedTask task) {
+        requeues.increment();
+        putBack(task);
+    }
+
+    /**
+     * Returns a task that was taken but never dispatched, e.g. because it lost a capacity race.
+     * Unlike {@link #requeue} it is not counted, since the task made no attempt.
+     */
+    public void putBack(PrioritizedTask task) {
+        queuedByMagnitude.incrementAndGet(magnitude(task.getAmountCents()));
         queue.add(task);
     }
 
     public PrioritizedTask take() throws InterruptedException {
-        return queue.take();
+        final PrioritizedTask task = queue.take();
+        queuedByMagnitude.decrementAndGet(magnitude(task.getAmountCents()));
+
+        return task;
+    }
+
+    /**
+     * @return the task which {@link #take()} would return next, or null if the queue is empty
+     */
+    public PrioritizedTask peek() {
+        return queue.peek();
     }
 
     public int getRemainingTaskCount() {
         return queue.size();
     }
+
+    public long getVerificationCount() {
+        return verifications.sum();
+    }
+
+    public long getVerificationNanos() {
+        return verificationNanos.sum();
+    }
+
+    public long getRequeueCount() {
+        return requeues.sum();
+    }
+
+    /**
+     * Upper estimate of the tasks a new request of this amount would wait behind. Amounts of the same
+     * power of two are all counted, so it is exact up to a factor of two in amount, in constant time.
+     */
+    public long countQueuedAtOrAbove(long amountCents) {
+        long count = 0;
+        for (int i = magnitude(amountCents); i < queuedByMagnitude.length(); i++) {
+            count += queuedByMagnitude.get(i);
+        }
+
+        return Math.max(0, count);
+    }
+
+    private static int magnitude(long amountCents) {
+        return Long.SIZE - Long.numberOfLeadingZeros(Math.max(0, amountCents));
+    }
 }
@@ -0,0 +1,152 @@
+package com.hello.pgproxy.service.backpressure;
+
+import com.hello.pgproxy.configuration.ConcurrencyProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Circuit-style dispatch control on top of the concurrency limit.
+ * CLOSED: the active {@link BackpressureHandler} owns the limit.
+ * OPEN: dispatch is paused for an exponentially growing, jittered delay (at least the backend's Retry-After).
+ * HALF_OPEN: entered after repeated trips; the limit drops to a single probe, which is the highest-value queued task,
+ * and doubles on every success until the limit before the outage is restored.
+ * Only calls dispatched since half-open was entered count as probes; calls still in flight from the larger limit
+ * before the trip say nothing about recovery.
+ */
+@Component
+@Slf4j
+public class BackpressureCircuit {
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final ConcurrencyProperties.Circuit properties;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveTrips = new AtomicInteger(0);
+    // Limit to restore through half-open probing, 0 when not recovering
+    private final AtomicInteger recoveryTarget = new AtomicInteger(0);
+    // Generation stamped on dispatched tasks, moved on every half-open entry
+    private final AtomicLong dispatchEpoch = new AtomicLong(0);
+
+    public BackpressureCircuit(ConcurrencyProperties concurrencyProperties) {
+        this.properties = concurrencyProperties.getCircuit();
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    public boolean isOpen() {
+        return state.get() == State.OPEN;
+    }
+
+    public boolean isClosed() {
+        return state.get() == State.CLOSED;
+    }
+
+    public long getDispatchEpoch() {
+        return dispatchEpoch.get();
+    }
+
+    /**
+     * Opens the circuit on an overload response. Responses arriving while already open do not extend the pause.
+     *
+     * @param baseDelayMillis  pause of the first trip
+     * @param retryAfterMillis backend hint, 0 if none
+     * @return pause in milliseconds if this call opened the circuit, otherwise -1
+     */
+    public long trip(long baseDelayMillis, long retryAfterMillis) {
+        final State current = state.get();
+        if (current == State.OPEN || !state.compareAndSet(current, State.OPEN)) {
+            return -1;
+        }
+
+        final int trips = consecutiveTrips.incrementAndGet();
+        final double backoff = baseDelayMillis * Math.pow(properties.getBackoffMultiplier(), trips - 1);
+        final double capped = Math.min(backoff, properties.getMaxPause());
+        final long jittered = (long) (capped * (1 - properties.getJitter() * ThreadLocalRandom.current().nextDouble()));
+        final long pause = Math.max(jittered, Math.min(retryAfterMillis, properties.getMaxRetryAfter()));
+
+        if (trips > 1) {
+            log.info("Backpressure circuit: {} consecutive trips, pausing dispatch for {} ms", trips, pause);
+        }
+
+        return pause;
+    }
+
+    /**
+     * Ends a pause. After repeated trips the circuit goes half-open and the limit is cut to a single probe.
+     */
+    public void onPauseElapsed(AtomicInteger currentConcurrencyLimit) {
+        if (consecutiveTrips.get() < properties.getProbeThreshold()) {
+            state.compareAndSet(State.OPEN, State.CLOSED);
+            return;
+        }
+
+        // Keep the original target across repeated half-open attempts of the same outage
+        recoveryTarget.compareAndSet(0, currentConcurrencyLimit.get());
+        // Moved before the limit drops, so the probe is stamped with the new generation
+        dispatchEpoch.incrementAndGet();
+        currentConcurrencyLimit.set(1);
+
+        if (state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+            log.info("Backpressure circuit: half-open, probing before restoring concurrency {}", recoveryTarget.get());
+        }
+    }
+
+    /**
+     * Records a successful backend call dispatched in the current generation.
+     *
+     * @return true if the circuit is closed and the handler may scale the limit as usual
+     */
+    public boolean onSuccess(AtomicInteger currentConcurrencyLimit) {
+        return onSuccess(currentConcurrencyLimit, dispatchEpoch.get());
+    }
+
+    /**
+     * Records a successful backend call.
+     *
+     * @param dispatchedInEpoch {@link #getDispatchEpoch()} when the call was dispatched
+     * @return true if the circuit is closed and the handler may scale the limit as usual
+     */
+    public boolean onSuccess(AtomicInteger currentConcurrencyLimit, long dispatchedInEpoch) {
+        final State current = state.get();
+        if (current == State.CLOSED) {
+            if (consecutiveTrips.get() != 0) {
+                consecutiveTrips.set(0);
+            }
+            return true;
+        }
+
+        if (current == State.HALF_OPEN && dispatchedInEpoch >= dispatchEpoch.get()) {
+            restoreGradually(currentConcurrencyLimit);
+        }
+
+        return false;
+    }
+
+    private void restoreGradually(AtomicInteger currentConcurrencyLimit) {
+        final int target = recoveryTarget.get();
+
+        int limit;
+        int next;
+        do {
+            limit = currentConcurrencyLimit.get();
+            next = Math.max(1, Math.min(target, limit * 2));
+        } while (!currentConcurrencyLimit.compareAndSet(limit, next));
+
+        if (next >= target && state.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+            consecutiveTrips.set(0);
+            recoveryTarget.set(0);
+            log.info("Backpressure circuit: closed, concurrency restored to {}", next);
+        }
+    }
+}
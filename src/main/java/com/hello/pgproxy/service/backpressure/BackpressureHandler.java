@@ -6,16 +6,38 @@ public interface BackpressureHandler {
     /**
      * Caculate Scale-downed concurrency limit
      *
-     * @param concurrency current concurrency limit
+     * @param signals snapshot of the current limit, in-flight count, queue depth and recent outcomes
      * @return recommended concurrency limit for scale down
      */
-    int getScaleDownConcurrency(int concurrency);
+    int getScaleDownConcurrency(BackpressureSignals signals);
 
     /**
      * Caculate Scale-up concurrency limit
      *
-     * @param concurrency current concurrency limit
+     * @param signals snapshot of the current limit, in-flight count, queue depth and recent outcomes
      * @return recommended concurrency limit for scale up
      */
-    int getScaleUpConcurrency(int concurrency);
+    int getScaleUpConcurrency(BackpressureSignals signals);
+
+    /**
+     * @return highest limit known to run without overload, 0 if the handler does not track it
+     */
+    default int getLastKnownGoodConcurrency() {
+        return 0;
+    }
+
+    /**
+     * @return uncongested backend round trip, 0 if unknown or not tracked
+     */
+    default long getBaselineLatencyNanos() {
+        return 0;
+    }
+
+    /**
+     * Seeds learned state from before a restart. Called once at startup, before the first decision.
+     *
+     * @param snapshot state persisted by this handler, with the limit already discounted
+     */
+    default void restore(LimiterSnapshot snapshot) {
+    }
 }
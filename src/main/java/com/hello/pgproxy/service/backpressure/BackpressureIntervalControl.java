@@ -2,18 +2,43 @@ package com.hello.pgproxy.service.backpressure;
 
 import org.springframework.stereotype.Component;
 
-import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Rate-limits concurrency changes on a monotonic {@link System#nanoTime()} clock.
+ * State is a single atomic long, so callers never lock nor allocate.
+ */
 @Component
 public class BackpressureIntervalControl {
-    private Instant concurrencyChangeTimestamp = Instant.now();
+    private final AtomicLong concurrencyChangeNanos = new AtomicLong(System.nanoTime());
 
     public boolean hasConcurrencyModifiableTimePassed(long givenInterval) {
-        Instant targetTime = concurrencyChangeTimestamp.plusMillis(givenInterval);
-        return Instant.now().isAfter(targetTime);
+        return System.nanoTime() - concurrencyChangeNanos.get() > TimeUnit.MILLISECONDS.toNanos(givenInterval);
+    }
+
+    /**
+     * Claims the right to change the concurrency limit once the interval has passed.
+     * Among racing callers only the one whose CAS succeeds wins, and the timestamp moves with the claim.
+     *
+     * @param givenInterval minimum milliseconds since the previous change
+     * @return nanoseconds since the previous change as seen by the claim, or -1 if the caller does not own this change
+     */
+    public long tryAcquireChange(long givenInterval) {
+        final long last = concurrencyChangeNanos.get();
+        final long now = System.nanoTime();
+        final long elapsed = now - last;
+
+        return elapsed > TimeUnit.MILLISECONDS.toNanos(givenInterval) && concurrencyChangeNanos.compareAndSet(last, now)
+                ? elapsed
+                : -1;
+    }
+
+    public long getNanosSinceLastChange() {
+        return System.nanoTime() - concurrencyChangeNanos.get();
     }
 
     public void resetTimestamp() {
-        concurrencyChangeTimestamp = Instant.now();
+        concurrencyChangeNanos.set(System.nanoTime());
     }
 }
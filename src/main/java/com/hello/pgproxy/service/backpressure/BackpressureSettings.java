@@ -0,0 +1,52 @@
+package com.hello.pgproxy.service.backpressure;
+
+import com.hello.pgproxy.configuration.ConcurrencyProperties;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Immutable set of backpressure parameters which is swapped as a whole when tuned at runtime.
+ * Readers take one reference per decision, so a handler never sees a half-applied change.
+ */
+@Value
+@Builder(toBuilder = true)
+public class BackpressureSettings {
+    String backpressureHandler;
+    int start;
+    int max;
+    long unpauseDelay;
+    long scaleUpInterval;
+    long scaleDownInterval;
+    double scaleDownFactor;
+
+    public static BackpressureSettings from(ConcurrencyProperties properties) {
+        return BackpressureSettings.builder()
+                .backpressureHandler(properties.getBackpressureHandler())
+                .start(properties.getStart())
+                .max(properties.getMax())
+                .unpauseDelay(properties.getUnpauseDelay())
+                .scaleUpInterval(properties.getScaleUpInterval())
+                .scaleDownInterval(properties.getScaleDownInterval())
+                .scaleDownFactor(properties.getScaleDownFactor())
+                .build();
+    }
+
+    /**
+     * @throws IllegalArgumentException if any parameter is out of its valid range
+     */
+    public BackpressureSettings validate() {
+        if (max < 1) {
+            throw new IllegalArgumentException("max must be at least 1: " + max);
+        }
+        if (start < 1 || start > max) {
+            throw new IllegalArgumentException("start must be within [1, max]: " + start);
+        }
+        if (unpauseDelay < 0 || scaleUpInterval < 0 || scaleDownInterval < 0) {
+            throw new IllegalArgumentException("delays and intervals must not be negative");
+        }
+        if (scaleDownFactor <= 0 || scaleDownFactor >= 1) {
+            throw new IllegalArgumentException("scaleDownFactor must be within (0, 1): " + scaleDownFactor);
+        }
+        return this;
+    }
+}
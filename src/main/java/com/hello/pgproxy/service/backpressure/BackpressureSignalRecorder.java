@@ -0,0 +1,132 @@
+package com.hello.pgproxy.service.backpressure;
+
+import com.hello.pgproxy.model.BackendExecutionStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Aggregates the signals fed to {@link BackpressureHandler}.
+ * Completing threads only touch striped {@link LongAdder}s, so recording never allocates nor contends on a single cell.
+ * The window baseline is only moved by {@link #snapshot}, which runs once per scaling decision
+ * and swaps it atomically so concurrent samples never count the same outcomes twice.
+ */
+@Component
+public class BackpressureSignalRecorder {
+    // Read from the dispatcher's own permit count, so the handlers never see a second copy drift from it
+    private volatile IntSupplier inFlight = () -> 0;
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder backpressures = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder latencyNanos = new LongAdder();
+    // Every backend call whatever its outcome, and tasks dropped at their deadline without one
+    private final LongAdder backendCalls = new LongAdder();
+    private final LongAdder backendCallNanos = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    // Cumulative business outcomes, never windowed here; consumers keep their own baseline
+    private final LongAdder completedAmountCents = new LongAdder();
+    private final LongAdder timedOutAmountCents = new LongAdder();
+    // Smoothed latency of successful calls, 0 until measured; racy updates only lose a sample
+    private volatile long recentLatencyNanos = 0;
+
+    // Totals observed at the previous snapshot
+    private final AtomicReference<Totals> sampled = new AtomicReference<>(new Totals(0, 0, 0, 0));
+
+    private record Totals(long successes, long backpressures, long errors, long latencyNanos) {
+    }
+
+    public void setInFlightSource(IntSupplier inFlight) {
+        this.inFlight = inFlight;
+    }
+
+    public void recordCompletion(BackendExecutionStatus status, long elapsedNanos, long amountCents) {
+        if (status != BackendExecutionStatus.DEADLINE_EXCEEDED && status != BackendExecutionStatus.ENDPOINT_UNAVAILABLE) {
+            backendCalls.increment();
+            backendCallNanos.add(elapsedNanos);
+        }
+
+        switch (status) {
+            case COMPLETED -> {
+                successes.increment();
+                latencyNanos.add(elapsedNanos);
+                completedAmountCents.add(amountCents);
+                final long latency = recentLatencyNanos;
+                recentLatencyNanos = latency == 0 ? elapsedNanos : latency + (elapsedNanos - latency) / 8;
+            }
+            case BACKPRESSURE_CONTROL_NEEDED, BACKPRESSURE_ANSWERED -> backpressures.increment();
+            // The replica throttles itself; the backend as a whole is neither overloaded nor failing
+            case REROUTE_NEEDED, ENDPOINT_UNAVAILABLE -> {
+            }
+            // Says nothing about the backend; the client's timeout records the lost amount
+            case DEADLINE_EXCEEDED -> expired.increment();
+            default -> errors.increment();
+        }
+    }
+
+    /**
+     * A client gave up waiting for this payment.
+     */
+    public void recordTimeout(long amountCents) {
+        timedOutAmountCents.add(amountCents);
+    }
+
+    public long getCompletedCount() {
+        return successes.sum();
+    }
+
+    public long getBackpressureCount() {
+        return backpressures.sum();
+    }
+
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    public long getExpiredCount() {
+        return expired.sum();
+    }
+
+    public long getBackendCallCount() {
+        return backendCalls.sum();
+    }
+
+    public long getBackendCallNanos() {
+        return backendCallNanos.sum();
+    }
+
+    public long getRecentLatencyNanos() {
+        return recentLatencyNanos;
+    }
+
+    public long getCompletedAmountCents() {
+        return completedAmountCents.sum();
+    }
+
+    public long getTimedOutAmountCents() {
+        return timedOutAmountCents.sum();
+    }
+
+    public BackpressureSignals snapshot(int concurrencyLimit, int maxConcurrency, double scaleDownFactor,
+                                        int queueDepth, long nanosSinceLastChange) {
+        final Totals totals = new Totals(successes.sum(), backpressures.sum(), errors.sum(), latencyNanos.sum());
+        final Totals previous = sampled.getAndSet(totals);
+
+        final long windowSuccesses = totals.successes() - previous.successes();
+        final long windowLatencyNanos = totals.latencyNanos() - previous.latencyNanos();
+
+        return BackpressureSignals.builder()
+                .concurrencyLimit(concurrencyLimit)
+                .maxConcurrency(maxConcurrency)
+                .scaleDownFactor(scaleDownFactor)
+                .inFlight(Math.max(0, inFlight.getAsInt()))
+                .queueDepth(queueDepth)
+                .successCount(windowSuccesses)
+                .backpressureCount(totals.backpressures() - previous.backpressures())
+                .errorCount(totals.errors() - previous.errors())
+                .averageLatencyNanos(windowSuccesses == 0 ? 0 : windowLatencyNanos / windowSuccesses)
+                .nanosSinceLastChange(nanosSinceLastChange)
+                .build();
+    }
+}
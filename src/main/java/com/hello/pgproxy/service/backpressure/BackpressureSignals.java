@@ -0,0 +1,40 @@
+package com.hello.pgproxy.service.backpressure;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Immutable view of the limiter inputs at the moment a scaling decision is sampled.
+ * Counters and latency are deltas over the window since the previous sample, so handlers see recent behaviour only.
+ */
+@Value
+@Builder
+public class BackpressureSignals {
+    int concurrencyLimit;
+    int maxConcurrency;
+    // Configured multiplicative decrease, handlers with their own policy may ignore it
+    @Builder.Default
+    double scaleDownFactor = 0.95;
+    int inFlight;
+    int queueDepth;
+
+    long successCount;
+    long backpressureCount;
+    long errorCount;
+
+    // Mean backend round trip of successful calls in the window, 0 when nothing completed.
+    long averageLatencyNanos;
+    long nanosSinceLastChange;
+
+    public long getSampleCount() {
+        return successCount + backpressureCount + errorCount;
+    }
+
+    /**
+     * @return ratio of successful calls in the window, or 1.0 when the window is empty
+     */
+    public double getSuccessRate() {
+        final long samples = getSampleCount();
+        return samples == 0 ? 1.0 : (double) successCount / samples;
+    }
+}
@@ -0,0 +1,21 @@
+package com.hello.pgproxy.service.backpressure;
+
+/**
+ * Adapter for handlers written against the original API which only received the current limit.
+ * Implementing this instead of {@link BackpressureHandler} keeps such handlers working unchanged.
+ */
+public interface LimitOnlyBackpressureHandler extends BackpressureHandler {
+    int getScaleDownConcurrency(int concurrency);
+
+    int getScaleUpConcurrency(int concurrency);
+
+    @Override
+    default int getScaleDownConcurrency(BackpressureSignals signals) {
+        return getScaleDownConcurrency(signals.getConcurrencyLimit());
+    }
+
+    @Override
+    default int getScaleUpConcurrency(BackpressureSignals signals) {
+        return getScaleUpConcurrency(signals.getConcurrencyLimit());
+    }
+}
@@ -0,0 +1,61 @@
+package com.hello.pgproxy.service.backpressure;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.Properties;
+
+/**
+ * Learned limiter state carried over a restart, so a rollout does not relearn backend capacity from scratch.
+ */
+@Value
+@Builder(toBuilder = true)
+public class LimiterSnapshot {
+    String handlerName;
+    int concurrencyLimit;
+    // 0 when the handler does not track it
+    int lastKnownGoodConcurrency;
+    // Uncongested backend round trip, 0 when unknown
+    long baselineLatencyNanos;
+    // Share of backend calls answered with 503 since the previous snapshot
+    double backpressureRate;
+    long savedAtMillis;
+
+    public Properties toProperties() {
+        final Properties properties = new Properties();
+        properties.setProperty("handler-name", handlerName);
+        properties.setProperty("concurrency-limit", Integer.toString(concurrencyLimit));
+        properties.setProperty("last-known-good-concurrency", Integer.toString(lastKnownGoodConcurrency));
+        properties.setProperty("baseline-latency-nanos", Long.toString(baselineLatencyNanos));
+        properties.setProperty("backpressure-rate", Double.toString(backpressureRate));
+        properties.setProperty("saved-at-millis", Long.toString(savedAtMillis));
+
+        return properties;
+    }
+
+    /**
+     * @throws IllegalArgumentException if a value is missing or malformed
+     */
+    public static LimiterSnapshot fromProperties(Properties properties) {
+        try {
+            return LimiterSnapshot.builder()
+                    .handlerName(required(properties, "handler-name"))
+                    .concurrencyLimit(Integer.parseInt(required(properties, "concurrency-limit")))
+                    .lastKnownGoodConcurrency(Integer.parseInt(required(properties, "last-known-good-concurrency")))
+                    .baselineLatencyNanos(Long.parseLong(required(properties, "baseline-latency-nanos")))
+                    .backpressureRate(Double.parseDouble(required(properties, "backpressure-rate")))
+                    .savedAtMillis(Long.parseLong(required(properties, "saved-at-millis")))
+                    .build();
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed limiter snapshot: " + e.getMessage(), e);
+        }
+    }
+
+    private static String required(Properties properties, String key) {
+        final String value = properties.getProperty(key);
+        if (value == null) {
+            throw new IllegalArgumentException("Limiter snapshot is missing " + key);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,86 @@
+package com.hello.pgproxy.service.backpressure;
+
+import com.hello.pgproxy.configuration.ConcurrencyProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * Keeps the latest {@link LimiterSnapshot} in a small local properties file.
+ * Writes go to a sibling temp file which is then moved over the snapshot, so a crash mid-write never leaves a torn file behind.
+ */
+@Component
+@Slf4j
+public class LimiterSnapshotStore {
+    private final ConcurrencyProperties.Snapshot properties;
+    private final Path path;
+
+    /**
+     * @throws IllegalArgumentException if enabled without a path, rather than writing to wherever the process was started
+     */
+    public LimiterSnapshotStore(ConcurrencyProperties concurrencyProperties) {
+        this.properties = concurrencyProperties.getSnapshot();
+        if (properties.isEnabled() && (properties.getPath() == null || properties.getPath().isBlank())) {
+            throw new IllegalArgumentException("proxy.concurrency.snapshot.path must be set when snapshots are enabled");
+        }
+        this.path = properties.getPath() == null ? null : Path.of(properties.getPath());
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public void save(LimiterSnapshot snapshot) throws IOException {
+        final Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        final Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp)) {
+            snapshot.toProperties().store(writer, "pgproxy limiter snapshot");
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads the snapshot to warm start from. The limit is discounted by the configured factor and by the 503 rate seen
+     * before the restart, so a proxy never resumes above what the backend last sustained.
+     *
+     * @return the discounted snapshot, or empty if disabled, missing, unreadable or older than the staleness cutoff
+     */
+    public Optional<LimiterSnapshot> loadForWarmStart() {
+        if (!properties.isEnabled() || path == null || !Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+
+        final LimiterSnapshot snapshot;
+        try (Reader reader = Files.newBufferedReader(path)) {
+            final Properties stored = new Properties();
+            stored.load(reader);
+            snapshot = LimiterSnapshot.fromProperties(stored);
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Ignoring unreadable limiter snapshot {}", path, e);
+            return Optional.empty();
+        }
+
+        final long age = System.currentTimeMillis() - snapshot.getSavedAtMillis();
+        if (age < 0 || age > properties.getMaxAge()) {
+            log.info("Ignoring limiter snapshot saved {} ms ago, cold start instead", age);
+            return Optional.empty();
+        }
+
+        final double discount = properties.getDiscount() * (1 - Math.min(1, Math.max(0, snapshot.getBackpressureRate())));
+        return Optional.of(snapshot.toBuilder()
+                .concurrencyLimit(Math.max(1, (int) (snapshot.getConcurrencyLimit() * discount)))
+                .build());
+    }
+}
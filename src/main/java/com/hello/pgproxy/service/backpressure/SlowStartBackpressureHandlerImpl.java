@@ -0,0 +1,120 @@
+package com.hello.pgproxy.service.backpressure;
+
+import com.hello.pgproxy.configuration.ConcurrencyProperties;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * TCP-style handler for finding backend capacity quickly.
+ * Slow start: the limit doubles per step until the first overload or a latency inflection.
+ * Fast recovery: after a drop the limit closes half the gap to the last known good limit per step.
+ * Congestion avoidance: once there, the limit grows by one per step and holds while latency is inflated.
+ */
+@Component
+@Slf4j
+public class SlowStartBackpressureHandlerImpl implements BackpressureHandler {
+    public enum Phase {
+        SLOW_START,
+        FAST_RECOVERY,
+        CONGESTION_AVOIDANCE
+    }
+
+    private final ConcurrencyProperties.SlowStart properties;
+
+    @Getter
+    private volatile Phase phase = Phase.SLOW_START;
+    // Highest limit that completed a window without overload
+    @Getter
+    private volatile int lastKnownGoodConcurrency = 0;
+    // Lowest mean latency seen in a window, i.e. the uncongested round trip, 0 until measured
+    @Getter
+    private volatile long baselineLatencyNanos = 0;
+
+    public SlowStartBackpressureHandlerImpl(ConcurrencyProperties concurrencyProperties) {
+        this.properties = concurrencyProperties.getSlowStart();
+    }
+
+    @Override
+    public String getHandlerName() {
+        return "slow-start";
+    }
+
+    @Override
+    public int getScaleDownConcurrency(BackpressureSignals signals) {
+        final int concurrency = signals.getConcurrencyLimit();
+        final int decreased = Math.max(1, (int) (concurrency * properties.getDecreaseFactor()));
+
+        // The limit which just overloaded the backend is not good, whatever earlier windows said
+        lastKnownGoodConcurrency = Math.min(lastKnownGoodConcurrency, concurrency - 1);
+        phase = lastKnownGoodConcurrency > decreased ? Phase.FAST_RECOVERY : Phase.CONGESTION_AVOIDANCE;
+
+        return decreased;
+    }
+
+    @Override
+    public int getScaleUpConcurrency(BackpressureSignals signals) {
+        final int concurrency = signals.getConcurrencyLimit();
+        final int max = signals.getMaxConcurrency();
+        final boolean latencyInflated = observeLatency(signals.getAverageLatencyNanos());
+
+        if (signals.getBackpressureCount() == 0 && signals.getSuccessCount() > 0 && concurrency > lastKnownGoodConcurrency) {
+            lastKnownGoodConcurrency = concurrency;
+        }
+
+        // Nothing is waiting and half of the slots are idle: growing now would only overshoot later
+        if (signals.getQueueDepth() == 0 && signals.getInFlight() < concurrency / 2) {
+            return concurrency;
+        }
+
+        return switch (phase) {
+            case SLOW_START -> {
+                if (latencyInflated) {
+                    phase = Phase.CONGESTION_AVOIDANCE;
+                    log.info("Slow start: latency inflection at concurrency {}, switching to congestion avoidance", concurrency);
+                    yield concurrency;
+                }
+                yield Math.min(max, Math.max(concurrency + 1, concurrency * 2));
+            }
+            case FAST_RECOVERY -> {
+                final int gap = lastKnownGoodConcurrency - concurrency;
+                if (latencyInflated || gap <= 1) {
+                    phase = Phase.CONGESTION_AVOIDANCE;
+                    yield latencyInflated ? concurrency : Math.min(max, concurrency + 1);
+                }
+                yield Math.min(max, concurrency + (gap + 1) / 2);
+            }
+            case CONGESTION_AVOIDANCE -> latencyInflated ? concurrency : Math.min(max, concurrency + 1);
+        };
+    }
+
+    /**
+     * Resumes in fast recovery towards the persisted last known good limit instead of probing with exponential growth.
+     */
+    @Override
+    public void restore(LimiterSnapshot snapshot) {
+        lastKnownGoodConcurrency = snapshot.getLastKnownGoodConcurrency();
+        baselineLatencyNanos = snapshot.getBaselineLatencyNanos();
+        phase = lastKnownGoodConcurrency > snapshot.getConcurrencyLimit() ? Phase.FAST_RECOVERY : Phase.CONGESTION_AVOIDANCE;
+    }
+
+    /**
+     * Tracks the latency baseline and reports whether the given window is inflated against it.
+     * The baseline follows lower values at once and drifts slowly towards higher ones, so a permanent shift
+     * in backend latency does not freeze the limit forever.
+     */
+    private boolean observeLatency(long averageLatencyNanos) {
+        if (averageLatencyNanos <= 0) {
+            return false;
+        }
+
+        final long baseline = baselineLatencyNanos;
+        if (baseline == 0 || averageLatencyNanos < baseline) {
+            baselineLatencyNanos = averageLatencyNanos;
+            return false;
+        }
+
+        baselineLatencyNanos = baseline + (averageLatencyNanos - baseline) / 16;
+        return averageLatencyNanos > baseline * properties.getLatencyTolerance();
+    }
+}
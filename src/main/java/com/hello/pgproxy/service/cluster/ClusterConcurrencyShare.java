@@ -0,0 +1,20 @@
+package com.hello.pgproxy.service.cluster;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * This instance's fair share of the backend capacity estimated by the cluster.
+ * Unbounded unless a {@link ClusterCoordinator} is running.
+ */
+@Component
+public class ClusterConcurrencyShare {
+    private volatile int fairShare = Integer.MAX_VALUE;
+
+    public int getFairShare() {
+        return fairShare;
+    }
+
+    void setFairShare(int fairShare) {
+        this.fairShare = fairShare;
+    }
+}
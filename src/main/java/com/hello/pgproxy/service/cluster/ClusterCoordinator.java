@@ -0,0 +1,208 @@
+package com.hello.pgproxy.service.cluster;
+
+import com.hello.pgproxy.configuration.ClusterProperties;
+import com.hello.pgproxy.service.PaymentFlowManager;
+import com.hello.pgproxy.service.backpressure.BackpressureSignalRecorder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shares one backend capacity estimate between proxy instances, so N instances do not probe N times as fast
+ * nor cut in lockstep on the same overload.
+ * Every round each instance gossips its limit, in-flight count and overload count over UDP, averages its capacity estimate
+ * with the peers' ones and applies one cluster-wide step: a cut to the in-flight level at which anyone saw overload,
+ * or multiplicative growth while the cluster is using its capacity, as fast as the members' own limiters would probe.
+ * Its own limit is then capped at estimate / members through {@link ClusterConcurrencyShare}.
+ */
+@Service
+@ConditionalOnProperty(prefix = "proxy.cluster", name = "enabled", havingValue = "true")
+@Slf4j
+public class ClusterCoordinator {
+    private final ClusterProperties clusterProperties;
+    private final PaymentFlowManager paymentFlowManager;
+    private final BackpressureSignalRecorder backpressureSignalRecorder;
+    private final ClusterConcurrencyShare clusterConcurrencyShare;
+
+    private final UUID nodeId = UUID.randomUUID();
+    private final List<SocketAddress> peerAddresses = new CopyOnWriteArrayList<>();
+    private final Map<UUID, Peer> peers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService gossipExecutor = Executors.newSingleThreadScheduledExecutor();
+
+    private DatagramChannel channel;
+
+    // Round state, only touched by the gossip thread
+    private volatile int estimate;
+    private long countedBackpressures;
+
+    private static final class Peer {
+        volatile ClusterMessage latest;
+        volatile long lastSeenNanos;
+        // Overload count already accounted for in a round; a new or returning peer's first count is its baseline,
+        // so overloads from before it was (re)discovered do not cut the estimate
+        long countedBackpressures;
+
+        Peer(ClusterMessage first) {
+            this.countedBackpressures = first.backpressures();
+        }
+    }
+
+    public ClusterCoordinator(
+            ClusterProperties clusterProperties,
+            PaymentFlowManager paymentFlowManager,
+            BackpressureSignalRecorder backpressureSignalRecorder,
+            ClusterConcurrencyShare clusterConcurrencyShare
+    ) {
+        this.clusterProperties = clusterProperties;
+        this.paymentFlowManager = paymentFlowManager;
+        this.backpressureSignalRecorder = backpressureSignalRecorder;
+        this.clusterConcurrencyShare = clusterConcurrencyShare;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() throws IOException {
+        channel = DatagramChannel.open().bind(new InetSocketAddress(clusterProperties.getPort()));
+        for (String peer : clusterProperties.getPeers()) {
+            final int separator = peer.lastIndexOf(':');
+            addPeer(new InetSocketAddress(peer.substring(0, separator), Integer.parseInt(peer.substring(separator + 1))));
+        }
+
+        Thread.ofVirtual().name("cluster-gossip-receiver").start(this::receiveLoop);
+        gossipExecutor.scheduleAtFixedRate(this::round, 0, clusterProperties.getGossipInterval(), TimeUnit.MILLISECONDS);
+        log.info("Cluster coordination started on {} as {} with peers {}", channel.getLocalAddress(), nodeId, peerAddresses);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        gossipExecutor.shutdownNow();
+        if (channel != null) {
+            channel.close();
+        }
+        clusterConcurrencyShare.setFairShare(Integer.MAX_VALUE);
+    }
+
+    public int getEstimate() {
+        return estimate;
+    }
+
+    public int getMemberCount() {
+        return livePeers().size() + 1;
+    }
+
+    int getLocalPort() throws IOException {
+        return ((InetSocketAddress) channel.getLocalAddress()).getPort();
+    }
+
+    void addPeer(SocketAddress address) {
+        peerAddresses.add(address);
+    }
+
+    private void receiveLoop() {
+        final ByteBuffer buffer = ByteBuffer.allocate(ClusterMessage.SIZE * 2);
+        while (channel.isOpen()) {
+            try {
+                buffer.clear();
+                channel.receive(buffer);
+                buffer.flip();
+
+                final ClusterMessage message = ClusterMessage.readFrom(buffer);
+                if (message != null && !message.nodeId().equals(nodeId)) {
+                    final Peer peer = peers.computeIfAbsent(message.nodeId(), id -> new Peer(message));
+                    peer.latest = message;
+                    peer.lastSeenNanos = System.nanoTime();
+                }
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                log.warn("Failed to receive cluster gossip", e);
+            }
+        }
+    }
+
+    private void round() {
+        try {
+            updateEstimate();
+            broadcast();
+        } catch (RuntimeException | IOException e) {
+            // A failing round must not cancel the schedule
+            log.warn("Cluster gossip round failed", e);
+        }
+    }
+
+    private void updateEstimate() {
+        final List<Peer> live = livePeers();
+        final int members = live.size() + 1;
+
+        final long ownBackpressures = backpressureSignalRecorder.getBackpressureCount();
+        long newBackpressures = ownBackpressures - countedBackpressures;
+        countedBackpressures = ownBackpressures;
+
+        long totalLimit = paymentFlowManager.getCurrentConcurrencyLimit();
+        long totalInFlight = paymentFlowManager.getActiveRequests();
+        long estimateSum = estimate;
+        int estimates = estimate > 0 ? 1 : 0;
+        for (Peer peer : live) {
+            final ClusterMessage message = peer.latest;
+            totalLimit += message.concurrencyLimit();
+            totalInFlight += message.inFlight();
+            newBackpressures += Math.max(0, message.backpressures() - peer.countedBackpressures);
+            peer.countedBackpressures = message.backpressures();
+            if (message.estimate() > 0) {
+                estimateSum += message.estimate();
+                estimates++;
+            }
+        }
+
+        // Averaging with the peers makes every instance converge on the same estimate
+        long next = estimates == 0 ? totalLimit : estimateSum / estimates;
+        if (newBackpressures > 0) {
+            next = Math.max(members, (long) (Math.min(next, totalInFlight) * clusterProperties.getDecreaseFactor()));
+        } else if (totalInFlight >= next * clusterProperties.getUtilization()) {
+            // At least one slot per member, as many as independent limiters would have added
+            next = Math.max(next + members, (long) Math.ceil(next * clusterProperties.getIncreaseFactor()));
+        }
+
+        estimate = (int) Math.min(Integer.MAX_VALUE, next);
+        clusterConcurrencyShare.setFairShare((int) Math.max(1, (estimate + members - 1) / members));
+    }
+
+    private void broadcast() throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(ClusterMessage.SIZE);
+        new ClusterMessage(
+                nodeId,
+                paymentFlowManager.getCurrentConcurrencyLimit(),
+                paymentFlowManager.getActiveRequests(),
+                backpressureSignalRecorder.getBackpressureCount(),
+                estimate
+        ).writeTo(buffer);
+
+        for (SocketAddress address : peerAddresses) {
+            buffer.rewind();
+            channel.send(buffer, address);
+        }
+    }
+
+    private List<Peer> livePeers() {
+        final long cutoff = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(clusterProperties.getPeerTimeout());
+        peers.values().removeIf(peer -> peer.lastSeenNanos - cutoff < 0);
+        return List.copyOf(peers.values());
+    }
+}
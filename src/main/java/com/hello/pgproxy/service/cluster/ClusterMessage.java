@@ -0,0 +1,42 @@
+package com.hello.pgproxy.service.cluster;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * State one proxy instance gossips to the others every round.
+ *
+ * @param backpressures cumulative overload responses, receivers diff consecutive values
+ * @param estimate      sender's view of the shared backend capacity, 0 before its first round
+ */
+record ClusterMessage(UUID nodeId, int concurrencyLimit, int inFlight, long backpressures, int estimate) {
+    private static final int MAGIC = 0x50475058; // "PGPX"
+    static final int SIZE = 4 + 16 + 4 + 4 + 8 + 4;
+
+    void writeTo(ByteBuffer buffer) {
+        buffer.putInt(MAGIC)
+                .putLong(nodeId.getMostSignificantBits())
+                .putLong(nodeId.getLeastSignificantBits())
+                .putInt(concurrencyLimit)
+                .putInt(inFlight)
+                .putLong(backpressures)
+                .putInt(estimate);
+    }
+
+    /**
+     * @return the decoded message, or null if the datagram is not one of ours
+     */
+    static ClusterMessage readFrom(ByteBuffer buffer) {
+        if (buffer.remaining() < SIZE || buffer.getInt() != MAGIC) {
+            return null;
+        }
+
+        return new ClusterMessage(
+                new UUID(buffer.getLong(), buffer.getLong()),
+                buffer.getInt(),
+                buffer.getInt(),
+                buffer.getLong(),
+                buffer.getInt()
+        );
+    }
+}
@@ -0,0 +1,67 @@
+package com.hello.pgproxy.service.idempotency;
+
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Final responses by payment id, bounded in size and age. Every entry lives for the same TTL,
+ * so insertion order is expiry order and eviction only ever looks at the head of a FIFO.
+ */
+final class CompletedResponseCache {
+    private record Entry(UUID id, ResponseEntity<?> response, long expiresAtNanos) {
+        boolean isExpired(long nowNanos) {
+            return expiresAtNanos - nowNanos <= 0;
+        }
+    }
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+    // ConcurrentLinkedQueue.size() walks the whole queue
+    private final AtomicInteger size = new AtomicInteger(0);
+
+    CompletedResponseCache(int maxEntries, long ttlMillis) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    /**
+     * @return the response, or null if none or expired
+     */
+    ResponseEntity<?> get(UUID id) {
+        final Entry entry = entries.get(id);
+
+        return entry == null || entry.isExpired(System.nanoTime()) ? null : entry.response();
+    }
+
+    void put(UUID id, ResponseEntity<?> response) {
+        final long now = System.nanoTime();
+        final Entry entry = new Entry(id, response, now + ttlNanos);
+        entries.put(id, entry);
+        insertionOrder.add(entry);
+        size.incrementAndGet();
+
+        evict(now);
+    }
+
+    private void evict(long nowNanos) {
+        Entry head;
+        while ((head = insertionOrder.peek()) != null && (size.get() > maxEntries || head.isExpired(nowNanos))) {
+            final Entry evicted = insertionOrder.poll();
+            if (evicted == null) {
+                return;
+            }
+            size.decrementAndGet();
+            // A newer response of the same id stays
+            entries.remove(evicted.id(), evicted);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.hello.pgproxy.service.idempotency;
+
+import com.hello.pgproxy.configuration.IdempotencyProperties;
+import com.hello.pgproxy.model.ClientRequest;
+import com.hello.pgproxy.model.PaymentDeadline;
+import com.hello.pgproxy.service.DeadlineScheduler;
+import com.hello.pgproxy.service.PriorityTaskQueueService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keyed by payment id in front of {@link PriorityTaskQueueService}, so a retried payment is neither verified
+ * nor forwarded twice:
+ * - A repeat of a queued or in-flight payment waits for the outcome of the existing task, whose deadline moves
+ *   to the later of the two so the task is not dropped while the repeat still waits.
+ * - A repeat of a completed payment gets the cached final (2xx/4xx) response right away.
+ * Overload rejections and retryable statuses are not cached, a later retry of those is forwarded again.
+ */
+@Service
+@RequiredArgsConstructor
+public class IdempotencyGate {
+    private final PriorityTaskQueueService priorityTaskQueueService;
+    private final IdempotencyProperties idempotencyProperties;
+    private final DeadlineScheduler deadlineScheduler;
+
+    private final Map<UUID, InFlight> inFlight = new ConcurrentHashMap<>();
+    private CompletedResponseCache completedResponses;
+
+    // Clients waiting on one task; only added to inside a compute() of its map entry
+    private static final class InFlight {
+        final Queue<DeferredResult<ResponseEntity<?>>> waiters = new ConcurrentLinkedQueue<>();
+        // Shared with the task, extended by each repeat that joins
+        final PaymentDeadline deadline;
+        // Drops the entry at the task's deadline, cancelled once the task completes
+        volatile ScheduledFuture<?> expiry;
+
+        InFlight(long deadlineNanos) {
+            this.deadline = new PaymentDeadline(deadlineNanos);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        completedResponses = new CompletedResponseCache(idempotencyProperties.getMaxEntries(), idempotencyProperties.getTtl());
+    }
+
+    /**
+     * Same contract as {@link PriorityTaskQueueService#enqueue(ClientRequest, DeferredResult, long)},
+     * except that the result may come from another request with the same id.
+     */
+    public void enqueue(ClientRequest request, DeferredResult<ResponseEntity<?>> deferredResult, long deadlineNanos) {
+        if (!idempotencyProperties.isEnabled()) {
+            priorityTaskQueueService.enqueue(request, deferredResult, new PaymentDeadline(deadlineNanos));
+            return;
+        }
+
+        final UUID id = request.getId();
+        final InFlight created = new InFlight(deadlineNanos);
+        final ResponseEntity<?>[] cached = new ResponseEntity<?>[1];
+        // The cache is checked under the same key lock as completion removes the entry, so a repeat never misses both
+        final InFlight joined = inFlight.compute(id, (key, existing) -> {
+            // A task already past its deadline may be dropped any moment, so the repeat starts a new one
+            if (existing != null && existing.deadline.getRemainingNanos(System.nanoTime()) > 0) {
+                existing.deadline.extendTo(deadlineNanos);
+                existing.waiters.add(deferredResult);
+                return existing;
+            }
+
+            cached[0] = completedResponses.get(key);
+            if (cached[0] != null) {
+                return null;
+            }
+
+            created.waiters.add(deferredResult);
+            return created;
+        });
+
+        if (cached[0] != null) {
+            deferredResult.setResult(cached[0]);
+            return;
+        }
+        if (joined != created) {
+            return;
+        }
+
+        // The task gets a result of its own, so one client's timeout is not handed to the others
+        final DeferredResult<ResponseEntity<?>> taskResponse = new DeferredResult<>();
+        taskResponse.setResultHandler(result -> complete(id, created, (ResponseEntity<?>) result));
+        priorityTaskQueueService.enqueue(request, taskResponse, created.deadline);
+        scheduleExpiry(id, created);
+    }
+
+    int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    // A task past its deadline is dropped without a result; later repeats must start a new one
+    private void scheduleExpiry(UUID id, InFlight entry) {
+        final long remainingNanos = entry.deadline.getRemainingNanos(System.nanoTime());
+        if (remainingNanos == Long.MAX_VALUE) {
+            return;
+        }
+
+        entry.expiry = deadlineScheduler.schedule(() -> expire(id, entry), Math.max(0, remainingNanos), TimeUnit.NANOSECONDS);
+        // Completed before the timer was stored, so complete() had nothing to cancel
+        if (inFlight.get(id) != entry) {
+            entry.expiry.cancel(false);
+        }
+    }
+
+    // A repeat may have moved the deadline since the timer was set, then it waits for the new one
+    private void expire(UUID id, InFlight entry) {
+        if (entry.deadline.getRemainingNanos(System.nanoTime()) > 0) {
+            scheduleExpiry(id, entry);
+            return;
+        }
+        inFlight.remove(id, entry);
+    }
+
+    private void complete(UUID id, InFlight entry, ResponseEntity<?> response) {
+        // Cached before the entry goes, so a repeat in between finds one or the other
+        if (isFinal(response.getStatusCode())) {
+            completedResponses.put(id, response);
+        }
+        inFlight.remove(id, entry);
+        final ScheduledFuture<?> expiry = entry.expiry;
+        if (expiry != null) {
+            expiry.cancel(false);
+        }
+
+        entry.waiters.forEach(waiter -> waiter.setResult(response));
+    }
+
+    // 408 and 429 ask for a retry, so they are not the answer to the payment
+    private static boolean isFinal(HttpStatusCode status) {
+        return status.is2xxSuccessful()
+                || (status.is4xxClientError()
+                && status.value() != HttpStatus.REQUEST_TIMEOUT.value()
+                && status.value() != HttpStatus.TOO_MANY_REQUESTS.value());
+    }
+}
@@ -0,0 +1,148 @@
+package com.hello.pgproxy.service.latency;
+
+import com.hello.pgproxy.model.BackendExecutionStatus;
+import com.hello.pgproxy.model.PrioritizedTask;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Where a request's time went, per stage and amount band, from the timestamps carried by its {@link PrioritizedTask}.
+ * Completing threads write into HdrHistogram {@link Recorder}s, which take no lock and do not allocate.
+ * Readers drain them into histograms accumulated since the last {@link #reset()}.
+ */
+@Component
+public class StageLatencyRecorder {
+    public enum Stage {
+        // Waiting for a thread of the verification pool
+        VERIFICATION_WAIT,
+        // Verification number search
+        VERIFICATION,
+        // Waiting in the priority queue for a concurrency permit
+        QUEUE_WAIT,
+        // Backend call, once per attempt
+        BACKEND
+    }
+
+    /**
+     * Percentiles in milliseconds.
+     */
+    public record StagePercentiles(long count, double p50, double p90, double p99, double p999, double max) {
+    }
+
+    // Exclusive upper bounds of the amount bands in cents; the last band is open ended
+    private static final long[] BAND_BOUNDS = {1_000, 10_000, 100_000, 1_000_000};
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(2);
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final Recorder[][] recorders = new Recorder[Stage.values().length][BAND_BOUNDS.length + 1];
+    // Guarded by this
+    private final Histogram[][] accumulated = new Histogram[Stage.values().length][BAND_BOUNDS.length + 1];
+
+    public StageLatencyRecorder() {
+        for (int stage = 0; stage < recorders.length; stage++) {
+            for (int band = 0; band < recorders[stage].length; band++) {
+                recorders[stage][band] = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+                accumulated[stage][band] = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+            }
+        }
+    }
+
+    /**
+     * Records the stages a task went through up to the end of one backend attempt.
+     * Verification is only recorded for the first trip through the queue, and an expired task or one
+     * that found no free replica had no backend call.
+     */
+    public void record(PrioritizedTask task, BackendExecutionStatus status, long dispatchedAtNanos, long completedAtNanos) {
+        final int band = bandOf(task.getAmountCents());
+
+        // Retries, reroutes and waits for a replica move queuedNanos when they requeue the task
+        if (task.getQueuedNanos() == task.getVerifiedNanos() && task.getAdmittedNanos() != 0) {
+            record(Stage.VERIFICATION_WAIT, band, task.getVerificationStartedNanos() - task.getAdmittedNanos());
+            record(Stage.VERIFICATION, band, task.getVerifiedNanos() - task.getVerificationStartedNanos());
+        }
+        if (task.getQueuedNanos() != 0) {
+            record(Stage.QUEUE_WAIT, band, dispatchedAtNanos - task.getQueuedNanos());
+        }
+        if (status != BackendExecutionStatus.DEADLINE_EXCEEDED && status != BackendExecutionStatus.ENDPOINT_UNAVAILABLE) {
+            record(Stage.BACKEND, band, completedAtNanos - dispatchedAtNanos);
+        }
+    }
+
+    /**
+     * @return percentiles by stage and amount band since the last reset; bands without samples are left out
+     */
+    public synchronized Map<String, Map<String, StagePercentiles>> snapshot() {
+        final Map<String, Map<String, StagePercentiles>> snapshot = new LinkedHashMap<>();
+        for (Stage stage : Stage.values()) {
+            final Map<String, StagePercentiles> bands = new LinkedHashMap<>();
+            for (int band = 0; band <= BAND_BOUNDS.length; band++) {
+                final Histogram histogram = accumulated[stage.ordinal()][band];
+                histogram.add(recorders[stage.ordinal()][band].getIntervalHistogram());
+                if (histogram.getTotalCount() > 0) {
+                    bands.put(bandName(band), toPercentiles(histogram));
+                }
+            }
+            snapshot.put(stage.name().toLowerCase(Locale.ROOT), bands);
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Starts a new interval.
+     *
+     * @return the percentiles of the interval which ended
+     */
+    public synchronized Map<String, Map<String, StagePercentiles>> reset() {
+        final Map<String, Map<String, StagePercentiles>> snapshot = snapshot();
+        for (Histogram[] bands : accumulated) {
+            for (Histogram histogram : bands) {
+                histogram.reset();
+            }
+        }
+
+        return snapshot;
+    }
+
+    static int bandOf(long amountCents) {
+        for (int band = 0; band < BAND_BOUNDS.length; band++) {
+            if (amountCents < BAND_BOUNDS[band]) {
+                return band;
+            }
+        }
+        return BAND_BOUNDS.length;
+    }
+
+    static String bandName(int band) {
+        if (band == BAND_BOUNDS.length) {
+            return BAND_BOUNDS[band - 1] + "+";
+        }
+        return (band == 0 ? 0 : BAND_BOUNDS[band - 1]) + "-" + (BAND_BOUNDS[band] - 1);
+    }
+
+    private void record(Stage stage, int band, long elapsedNanos) {
+        final long micros = Math.max(0, Math.min(HIGHEST_TRACKABLE_MICROS, TimeUnit.NANOSECONDS.toMicros(elapsedNanos)));
+        recorders[stage.ordinal()][band].recordValue(micros);
+    }
+
+    private static StagePercentiles toPercentiles(Histogram histogram) {
+        return new StagePercentiles(
+                histogram.getTotalCount(),
+                millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue())
+        );
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,50 @@
+package com.hello.pgproxy.service.retry;
+
+import com.hello.pgproxy.configuration.ConcurrencyProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket capping retries at a share of successful traffic.
+ * Every success deposits {@code ratio} of a token up to {@code max}; every retry withdraws one.
+ * Under sustained overload nothing is deposited, so retries dry up once the bucket is drained instead of amplifying the load.
+ */
+@Component
+public class RetryBudget {
+    // Tokens are kept in thousandths so fractional deposits need no floating point CAS
+    private static final long SCALE = 1000;
+
+    private final ConcurrencyProperties.Retry properties;
+    private final AtomicLong milliTokens;
+
+    public RetryBudget(ConcurrencyProperties concurrencyProperties) {
+        this.properties = concurrencyProperties.getRetry();
+        this.milliTokens = new AtomicLong(Math.round(properties.getBudgetInitial() * SCALE));
+    }
+
+    public void deposit() {
+        final long deposit = Math.round(properties.getBudgetRatio() * SCALE);
+        final long max = Math.round(properties.getBudgetMax() * SCALE);
+        milliTokens.updateAndGet(tokens -> Math.min(max, tokens + deposit));
+    }
+
+    /**
+     * @return true if a retry token was withdrawn
+     */
+    public boolean tryAcquire() {
+        long tokens;
+        do {
+            tokens = milliTokens.get();
+            if (tokens < SCALE) {
+                return false;
+            }
+        } while (!milliTokens.compareAndSet(tokens, tokens - SCALE));
+
+        return true;
+    }
+
+    public double getAvailableTokens() {
+        return (double) milliTokens.get() / SCALE;
+    }
+}
@@ -0,0 +1,90 @@
+package com.hello.pgproxy.service.retry;
+
+import com.hello.pgproxy.configuration.ConcurrencyProperties;
+import com.hello.pgproxy.model.PrioritizedTask;
+import com.hello.pgproxy.service.PriorityTaskQueueService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Holds tasks which hit backend overload for a backoff before they re-enter the dispatch queue.
+ * A task is answered with 503 instead once it used up its attempts or the {@link RetryBudget} is empty,
+ * so neither a single unlucky task nor a whole overloaded backlog can retry forever.
+ */
+@Service
+@Slf4j
+public class RetryLane {
+    private final ConcurrencyProperties.Retry properties;
+    private final PriorityTaskQueueService priorityTaskQueueService;
+    private final RetryBudget retryBudget;
+
+    private final AtomicInteger backingOff = new AtomicInteger(0);
+
+    public RetryLane(ConcurrencyProperties concurrencyProperties, PriorityTaskQueueService priorityTaskQueueService, RetryBudget retryBudget) {
+        this.properties = concurrencyProperties.getRetry();
+        this.priorityTaskQueueService = priorityTaskQueueService;
+        this.retryBudget = retryBudget;
+    }
+
+    /**
+     * Counts the failed attempt and either schedules the task for another one or rejects it.
+     *
+     * @return true if the task will be dispatched again
+     */
+    public boolean retry(PrioritizedTask task) {
+        final int attempts = task.getAttempts() + 1;
+        task.setAttempts(attempts);
+
+        if (attempts >= properties.getMaxAttempts()) {
+            log.warn("Giving up on request id: {} after {} attempts", task.getRequest().getId(), attempts);
+            reject(task);
+            return false;
+        }
+        if (!retryBudget.tryAcquire()) {
+            log.warn("Retry budget exhausted, rejecting request id: {}", task.getRequest().getId());
+            reject(task);
+            return false;
+        }
+
+        backingOff.incrementAndGet();
+        CompletableFuture
+                .delayedExecutor(backoffMillis(attempts), TimeUnit.MILLISECONDS)
+                .execute(() -> {
+                    backingOff.decrementAndGet();
+                    // The backoff is not queue wait
+                    task.setQueuedNanos(System.nanoTime());
+                    priorityTaskQueueService.requeue(task);
+                });
+
+        return true;
+    }
+
+    public int getBackingOffCount() {
+        return backingOff.get();
+    }
+
+    // Exponential with equal jitter, so retries of one burst spread out
+    private long backoffMillis(int attempts) {
+        final double exponential = properties.getBaseBackoff() * Math.pow(2, attempts - 1);
+        final double capped = Math.min(exponential, properties.getMaxBackoff());
+
+        return (long) (capped / 2 + ThreadLocalRandom.current().nextDouble(capped / 2 + 1));
+    }
+
+    private void reject(PrioritizedTask task) {
+        final var response = ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE);
+        if (task.getRetryAfterMillis() > 0) {
+            response.header(HttpHeaders.RETRY_AFTER, Long.toString(TimeUnit.MILLISECONDS.toSeconds(task.getRetryAfterMillis() + 999)));
+        }
+
+        task.getDeferredResponse().setResult(response.body("Backend Overloaded"));
+    }
+}
@@ -0,0 +1,64 @@
+package com.hello.pgproxy.service.tcp;
+
+import com.hello.pgproxy.model.ClientRequest;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Binary frames of the TCP ingress, big-endian, each prefixed by the length of the rest of the frame:
+ * <pre>
+ * request:  int32 length (32) | int64 correlation id | int64 id msb | int64 id lsb | int64 amount_cents
+ * response: int32 length      | int64 correlation id | int16 HTTP status | body bytes (UTF-8)
+ * </pre>
+ * Responses carry the correlation id of their request, so they may come back in any order.
+ */
+final class TcpFrame {
+    static final int LENGTH_PREFIX = Integer.BYTES;
+    static final int REQUEST_LENGTH = 4 * Long.BYTES;
+    static final int RESPONSE_HEADER_LENGTH = Long.BYTES + Short.BYTES;
+
+    record Request(long correlationId, ClientRequest clientRequest) {
+    }
+
+    private TcpFrame() {
+    }
+
+    /**
+     * Reads one request frame if it has fully arrived.
+     *
+     * @return the request, or null if more bytes are needed; the buffer position is only moved past a whole frame
+     * @throws IllegalArgumentException if the length prefix is not the one of a request frame
+     */
+    static Request readRequest(ByteBuffer buffer) {
+        if (buffer.remaining() < LENGTH_PREFIX) {
+            return null;
+        }
+
+        final int length = buffer.getInt(buffer.position());
+        if (length != REQUEST_LENGTH) {
+            throw new IllegalArgumentException("Unexpected frame length " + length);
+        }
+        if (buffer.remaining() < LENGTH_PREFIX + length) {
+            return null;
+        }
+
+        buffer.position(buffer.position() + LENGTH_PREFIX);
+        final long correlationId = buffer.getLong();
+        final UUID id = new UUID(buffer.getLong(), buffer.getLong());
+        final long amountCents = buffer.getLong();
+
+        return new Request(correlationId, new ClientRequest(id, amountCents));
+    }
+
+    static ByteBuffer writeResponse(long correlationId, int status, byte[] body) {
+        final ByteBuffer frame = ByteBuffer.allocate(LENGTH_PREFIX + RESPONSE_HEADER_LENGTH + body.length);
+        frame.putInt(RESPONSE_HEADER_LENGTH + body.length)
+                .putLong(correlationId)
+                .putShort((short) status)
+                .put(body)
+                .flip();
+
+        return frame;
+    }
+}
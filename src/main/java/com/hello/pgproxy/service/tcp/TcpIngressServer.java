@@ -0,0 +1,226 @@
+package com.hello.pgproxy.service.tcp;
+
+import com.hello.pgproxy.configuration.TcpIngressProperties;
+import com.hello.pgproxy.service.PaymentSubmitter;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Length-prefixed binary ingress for internal callers, without HTTP parsing or headers (see {@link TcpFrame}).
+ * <p>
+ * A single selector thread accepts, reads and writes for all connections. Decoded requests go through the same
+ * {@link PaymentSubmitter} as every other ingress; results complete on other threads, which only queue the
+ * response frame and wake the selector up. A connection may pipeline requests and gets the responses in completion order.
+ */
+@Service
+@ConditionalOnProperty(prefix = "proxy.tcp", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class TcpIngressServer {
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final TcpIngressProperties tcpIngressProperties;
+    private final PaymentSubmitter paymentSubmitter;
+
+    // Connections with new response frames, whose interest is updated by the selector thread
+    private final Queue<Connection> writeReady = new ConcurrentLinkedQueue<>();
+
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+
+    private final class Connection {
+        final SocketChannel channel;
+        final SelectionKey key;
+        final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        final Queue<ByteBuffer> pendingWrites = new ConcurrentLinkedQueue<>();
+        final AtomicInteger inFlight = new AtomicInteger(0);
+
+        Connection(SocketChannel channel) throws IOException {
+            this.channel = channel;
+            this.key = channel.register(selector, SelectionKey.OP_READ, this);
+        }
+
+        void respond(long correlationId, ResponseEntity<?> result) {
+            pendingWrites.add(TcpFrame.writeResponse(correlationId, result.getStatusCode().value(), bodyOf(result)));
+            inFlight.decrementAndGet();
+            writeReady.add(this);
+            selector.wakeup();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open().bind(new InetSocketAddress(tcpIngressProperties.getPort()));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+        Thread.ofPlatform().name("tcp-ingress").daemon().start(this::selectLoop);
+        log.info("TCP ingress listening on {}", serverChannel.getLocalAddress());
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (selector != null) {
+            selector.close();
+        }
+        if (serverChannel != null) {
+            serverChannel.close();
+        }
+    }
+
+    int getLocalPort() throws IOException {
+        return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    }
+
+    private void selectLoop() {
+        try {
+            while (selector.isOpen()) {
+                selector.select();
+                updateInterest();
+
+                final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    final SelectionKey key = keys.next();
+                    keys.remove();
+                    handle(key);
+                }
+            }
+        } catch (ClosedSelectorException e) {
+            // Stopped
+        } catch (IOException e) {
+            log.error("TCP ingress selector failed", e);
+        }
+    }
+
+    private void handle(SelectionKey key) {
+        try {
+            if (key.isValid() && key.isAcceptable()) {
+                accept();
+            }
+            if (key.isValid() && key.isReadable()) {
+                read((Connection) key.attachment());
+            }
+            if (key.isValid() && key.isWritable()) {
+                write((Connection) key.attachment());
+            }
+        } catch (IOException | RuntimeException e) {
+            // E.g. a malformed frame, a submission rejected at shutdown or a key cancelled meanwhile; only this connection goes
+            log.warn("Closing TCP ingress connection", e);
+            close(key);
+        }
+    }
+
+    private void accept() throws IOException {
+        final SocketChannel channel = serverChannel.accept();
+        if (channel != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            new Connection(channel);
+        }
+    }
+
+    private void read(Connection connection) throws IOException {
+        if (connection.channel.read(connection.readBuffer) < 0) {
+            close(connection.key);
+            return;
+        }
+
+        submitFrames(connection);
+    }
+
+    // Stops at the in-flight cap; the rest stays buffered until a response frees a slot
+    private void submitFrames(Connection connection) {
+        final int maxInFlight = tcpIngressProperties.getMaxInFlightPerConnection();
+        final ByteBuffer buffer = connection.readBuffer.flip();
+        TcpFrame.Request request;
+        while (connection.inFlight.get() < maxInFlight && (request = TcpFrame.readRequest(buffer)) != null) {
+            final long correlationId = request.correlationId();
+            connection.inFlight.incrementAndGet();
+            paymentSubmitter.submit(request.clientRequest(), result -> connection.respond(correlationId, result));
+        }
+        buffer.compact();
+
+        if (connection.inFlight.get() >= maxInFlight) {
+            connection.key.interestOpsAnd(~SelectionKey.OP_READ);
+        }
+    }
+
+    private void write(Connection connection) throws IOException {
+        ByteBuffer frame;
+        while ((frame = connection.pendingWrites.peek()) != null) {
+            connection.channel.write(frame);
+            if (frame.hasRemaining()) {
+                // Socket buffer full, OP_WRITE stays on until it drains
+                return;
+            }
+            connection.pendingWrites.poll();
+        }
+
+        // A frame queued after the check re-adds the connection to writeReady, so nothing is stranded
+        connection.key.interestOpsAnd(~SelectionKey.OP_WRITE);
+    }
+
+    private void updateInterest() {
+        Connection connection;
+        while ((connection = writeReady.poll()) != null) {
+            if (!connection.key.isValid()) {
+                continue;
+            }
+
+            final int current = connection.key.interestOps();
+            final boolean resumeRead = (current & SelectionKey.OP_READ) == 0
+                    && connection.inFlight.get() < tcpIngressProperties.getMaxInFlightPerConnection();
+            connection.key.interestOps(current | SelectionKey.OP_WRITE | (resumeRead ? SelectionKey.OP_READ : 0));
+
+            // Frames held back at the cap may already be complete, and the client may send nothing more until they are answered
+            if (resumeRead) {
+                try {
+                    submitFrames(connection);
+                } catch (RuntimeException e) {
+                    log.warn("Closing TCP ingress connection", e);
+                    close(connection.key);
+                }
+            }
+        }
+    }
+
+    private static void close(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            log.debug("Failed to close TCP ingress connection", e);
+        }
+    }
+
+    private static byte[] bodyOf(ResponseEntity<?> result) {
+        final Object body = result.getBody();
+        if (body instanceof byte[] bytes) {
+            return bytes;
+        }
+
+        return body == null ? new byte[0] : body.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,239 @@
+package com.hello.pgproxy.client;
+
+import com.hello.pgproxy.configuration.BackendOutcomeProperties;
+import com.hello.pgproxy.configuration.BackendProperties;
+import com.hello.pgproxy.configuration.RestClientConfig;
+import com.hello.pgproxy.model.BackendRequest;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.core5.io.CloseMode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("BackendApiClient against a localhost backend")
+class BackendApiClientTest {
+    private static final UUID ID = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    private static final Duration BUDGET = Duration.ofSeconds(5);
+
+    private final RestClientConfig config = new RestClientConfig();
+    private final ExecutorService callbackExecutor = config.backendCallbackExecutor();
+    private final List<CloseableHttpAsyncClient> httpClients = new ArrayList<>();
+    private HttpServer server;
+    private BackendEndpointPool pool;
+    private volatile String lastBody;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/ok", exchange -> respond(exchange, 200, "{\"result\":\"paid\"}"));
+        server.createContext("/invalid", exchange -> respond(exchange, 400, "Invalid amount"));
+        server.createContext("/busy", exchange -> {
+            exchange.getResponseHeaders().add("Retry-After", "2");
+            respond(exchange, 503, "Busy");
+        });
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, 200, "late");
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        httpClients.forEach(httpClient -> httpClient.close(CloseMode.IMMEDIATE));
+        callbackExecutor.close();
+        server.stop(0);
+    }
+
+    @Test
+    @DisplayName("A 2xx response should be decoded into a String body with its headers")
+    void shouldDecodeSuccess() {
+        // GIVEN
+        final BackendApiClient client = client("/ok", false);
+
+        // WHEN
+        final ResponseEntity<?> response = client.postForEntity(request(), BUDGET);
+
+        // THEN
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("{\"result\":\"paid\"}", response.getBody());
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        assertEquals("{\"id\":\"" + ID + "\",\"amount_cents\":1000,\"verification\":7}", lastBody);
+        assertEquals(0, pool.getEndpoints().get(0).getOutstanding());
+    }
+
+    @Test
+    @DisplayName("In passthrough mode a 2xx response should be relayed as raw bytes without connection headers")
+    void shouldRelaySuccessInPassthrough() {
+        // GIVEN
+        final BackendApiClient client = client("/ok", true);
+
+        // WHEN
+        final ResponseEntity<?> response = client.postForEntityAsync(request(), BUDGET).join();
+
+        // THEN
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertArrayEquals("{\"result\":\"paid\"}".getBytes(StandardCharsets.UTF_8), (byte[]) response.getBody());
+        assertNull(response.getHeaders().getFirst("Content-Length"));
+        assertEquals(0, pool.getEndpoints().get(0).getOutstanding());
+    }
+
+    @Test
+    @DisplayName("A 4xx response should surface as a client error without throttling the replica")
+    void shouldThrowClientError() {
+        // GIVEN
+        final BackendApiClient client = client("/invalid", false);
+
+        // WHEN
+        final HttpClientErrorException e = assertThrows(HttpClientErrorException.class,
+                () -> client.postForEntity(request(), BUDGET));
+
+        // THEN
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+        assertEquals("Invalid amount", e.getResponseBodyAsString());
+        assertFalse(pool.getEndpoints().get(0).isPaused());
+    }
+
+    @Test
+    @DisplayName("A 503 with Retry-After should surface as a server error and pause the replica")
+    void shouldPauseReplicaOnOverload() {
+        // GIVEN: two replicas, so the overload is local to the one that answered
+        final BackendApiClient client = client("/busy", false, 2);
+
+        // WHEN
+        final CompletionException e = assertThrows(CompletionException.class,
+                () -> client.postForEntityAsync(request(), BUDGET).join());
+
+        // THEN
+        final HttpServerErrorException serverError = assertInstanceOf(HttpServerErrorException.class, e.getCause());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, serverError.getStatusCode());
+        assertEquals("2", serverError.getResponseHeaders().getFirst("Retry-After"));
+        final List<BackendEndpoint> paused = pool.getEndpoints().stream().filter(BackendEndpoint::isPaused).toList();
+        assertEquals(1, paused.size());
+        assertEquals(57, paused.get(0).getLimit());
+        assertEquals(0, paused.get(0).getOutstanding());
+    }
+
+    @Test
+    @DisplayName("A 503 from a single backend should be left to the global limiter")
+    void shouldNotThrottleSingleBackend() {
+        // GIVEN
+        final BackendApiClient client = client("/busy", false);
+
+        // WHEN
+        assertThrows(HttpServerErrorException.class, () -> client.postForEntity(request(), BUDGET));
+
+        // THEN
+        final BackendEndpoint endpoint = pool.getEndpoints().get(0);
+        assertFalse(endpoint.isPaused());
+        assertEquals(64, endpoint.getLimit());
+        assertEquals(0, endpoint.getOutstanding());
+    }
+
+    @Test
+    @DisplayName("Saturated replicas should fail the call locally without a synthetic backend status")
+    void shouldReportNoEndpointAvailable() {
+        // GIVEN
+        final BackendApiClient client = client("/ok", false, 2);
+        pool.getEndpoints().forEach(endpoint -> endpoint.onOverload(60_000));
+
+        // WHEN
+        final CompletionException e = assertThrows(CompletionException.class,
+                () -> client.postForEntityAsync(request(), BUDGET).join());
+
+        // THEN
+        assertInstanceOf(NoEndpointAvailableException.class, e.getCause());
+        assertNull(lastBody);
+        assertThrows(NoEndpointAvailableException.class, () -> client.postForEntity(request(), BUDGET));
+    }
+
+    @Test
+    @DisplayName("A call should time out after the remaining budget when it is below the read timeout")
+    void shouldTimeOutWithinBudget() {
+        // GIVEN
+        final BackendApiClient client = client("/slow", false);
+        final long startedAt = System.nanoTime();
+
+        // WHEN
+        final ResourceAccessException e = assertThrows(ResourceAccessException.class,
+                () -> client.postForEntity(request(), Duration.ofMillis(200)));
+
+        // THEN
+        assertInstanceOf(SocketTimeoutException.class, e.getCause());
+        assertTrue(Duration.ofNanos(System.nanoTime() - startedAt).toMillis() < 1500);
+        assertEquals(0, pool.getEndpoints().get(0).getOutstanding());
+    }
+
+    private BackendApiClient client(String path, boolean passthrough) {
+        return client(path, passthrough, 1);
+    }
+
+    private BackendApiClient client(String path, boolean passthrough, int replicas) {
+        final BackendProperties properties = new BackendProperties();
+        properties.setUrl("http://127.0.0.1:" + server.getAddress().getPort() + path);
+        if (replicas > 1) {
+            properties.setUrls(Collections.nCopies(replicas, properties.getUrl()));
+        }
+        properties.getClient().setPassthrough(passthrough);
+        pool = new BackendEndpointPool(properties);
+        final CloseableHttpAsyncClient httpClient =
+                config.backendHttpClient(properties, config.backendConnectionManager(properties));
+        httpClients.add(httpClient);
+
+        return new BackendApiClient(httpClient, callbackExecutor, new BackendRequestWriter(), properties, pool,
+                new BackendOutcomeClassifier(new BackendOutcomeProperties()));
+    }
+
+    private static BackendRequest request() {
+        return BackendRequest.builder()
+                .id(ID)
+                .amount_cents(1000L)
+                .verification(7L)
+                .build();
+    }
+
+    private void respond(HttpExchange exchange, int status, String body) throws IOException {
+        lastBody = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (var out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.hello.pgproxy.client;
+
+import com.hello.pgproxy.configuration.BackendProperties;
+import com.hello.pgproxy.configuration.RestClientConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BackendClientMetricsTest {
+    @Test
+    @DisplayName("Replica gauges should follow each replica's outstanding calls and limit")
+    void shouldExposeEndpointGauges() throws Exception {
+        // GIVEN
+        final BackendProperties properties = new BackendProperties();
+        properties.setUrls(List.of("http://a", "http://b"));
+        final BackendEndpointPool pool = new BackendEndpointPool(properties);
+        final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        // WHEN
+        try (PoolingAsyncClientConnectionManager connectionManager = new RestClientConfig().backendConnectionManager(properties)) {
+            new BackendClientMetrics(pool, connectionManager).bindTo(registry);
+            pool.getEndpoints().get(1).acquire();
+
+            // THEN
+            assertEquals(0, registry.get("backend.client.requests.active").tag("endpoint", "http://a").gauge().value());
+            assertEquals(1, registry.get("backend.client.requests.active").tag("endpoint", "http://b").gauge().value());
+            assertEquals(64, registry.get("backend.client.endpoint.limit").tag("endpoint", "http://a").gauge().value());
+        }
+    }
+
+    @Test
+    @DisplayName("Pool gauges should follow the connection pool's configured size and usage")
+    void shouldExposePoolGauges() throws Exception {
+        // GIVEN
+        final BackendProperties properties = new BackendProperties();
+        properties.setUrl("http://a");
+        properties.getClient().getPool().setMaxTotal(32);
+        final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        // WHEN
+        try (PoolingAsyncClientConnectionManager connectionManager = new RestClientConfig().backendConnectionManager(properties)) {
+            new BackendClientMetrics(new BackendEndpointPool(properties), connectionManager).bindTo(registry);
+
+            // THEN
+            assertEquals(32, registry.get("backend.client.pool.max").gauge().value());
+            assertEquals(0, registry.get("backend.client.pool.leased").gauge().value());
+            assertEquals(0, registry.get("backend.client.pool.pending").gauge().value());
+            assertEquals(0, registry.get("backend.client.pool.available").gauge().value());
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.hello.pgproxy.client;
+
+import com.hello.pgproxy.configuration.BackendProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BackendEndpointPoolTest {
+    private BackendProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new BackendProperties();
+        properties.setUrl("http://single");
+        properties.getEndpoint().setInitialLimit(10);
+        properties.getEndpoint().setMaxLimit(20);
+        properties.getEndpoint().setPause(60_000);
+        properties.getEndpoint().setMaxPause(60_000);
+    }
+
+    @Test
+    @DisplayName("Without a replica list the single backend url is used")
+    void shouldFallBackToSingleUrl() {
+        // WHEN
+        final BackendEndpointPool pool = new BackendEndpointPool(properties);
+
+        // THEN
+        assertEquals(1, pool.getEndpoints().size());
+        assertEquals("http://single", pool.select().getUrl());
+    }
+
+    @Test
+    @DisplayName("The less loaded of two replicas should take the call")
+    void shouldPickLessLoadedEndpoint() {
+        // GIVEN
+        properties.setUrls(List.of("http://a", "http://b"));
+        final BackendEndpointPool pool = new BackendEndpointPool(properties);
+        final BackendEndpoint busy = pool.getEndpoints().get(0);
+        busy.acquire();
+        busy.acquire();
+
+        // WHEN & THEN: with two replicas both are always probed
+        for (int i = 0; i < 20; i++) {
+            final BackendEndpoint selected = pool.select();
+            assertSame(pool.getEndpoints().get(1), selected);
+            selected.release();
+        }
+    }
+
+    @Test
+    @DisplayName("An overloaded replica should shrink, pause and be skipped while others are available")
+    void shouldThrottleOnlyOverloadedEndpoint() {
+        // GIVEN
+        properties.setUrls(List.of("http://a", "http://b", "http://c"));
+        final BackendEndpointPool pool = new BackendEndpointPool(properties);
+        final BackendEndpoint overloaded = pool.getEndpoints().get(0);
+
+        // WHEN
+        overloaded.onOverload(0);
+
+        // THEN
+        assertEquals(9, overloaded.getLimit());
+        assertTrue(overloaded.isPaused());
+        assertTrue(pool.canReroute());
+        for (int i = 0; i < 50; i++) {
+            final BackendEndpoint selected = pool.select();
+            assertFalse(selected == overloaded, "A paused replica must not be picked while others are free.");
+            selected.release();
+        }
+    }
+
+    @Test
+    @DisplayName("Overload is global only once every replica is saturated or paused")
+    void shouldReportNoAvailableEndpointWhenAllSaturated() {
+        // GIVEN
+        properties.setUrls(List.of("http://a", "http://b"));
+        properties.getEndpoint().setInitialLimit(1);
+        final BackendEndpointPool pool = new BackendEndpointPool(properties);
+
+        // WHEN
+        pool.getEndpoints().get(0).onOverload(0);
+        pool.getEndpoints().get(1).acquire();
+
+        // THEN
+        assertFalse(pool.hasAvailableEndpoint());
+        assertFalse(pool.canReroute());
+        assertNull(pool.select());
+    }
+
+    @Test
+    @DisplayName("A replica at its limit should not take another call")
+    void shouldNotExceedEndpointLimit() {
+        // GIVEN
+        properties.setUrls(List.of("http://a", "http://b"));
+        properties.getEndpoint().setInitialLimit(1);
+        final BackendEndpointPool pool = new BackendEndpointPool(properties);
+        final BackendEndpoint first = pool.select();
+        final BackendEndpoint second = pool.select();
+
+        // WHEN & THEN
+        assertNotSame(first, second);
+        assertNull(pool.select());
+        assertEquals(1, first.getOutstanding());
+
+        // WHEN
+        first.release();
+
+        // THEN
+        assertSame(first, pool.select());
+    }
+
+    @Test
+    @DisplayName("A single backend should be bounded by the global limiter only")
+    void shouldNotLimitSingleBackend() {
+        // GIVEN
+        final BackendEndpointPool pool = new BackendEndpointPool(properties);
+        final BackendEndpoint endpoint = pool.getEndpoints().get(0);
+
+        // WHEN: more calls than its initial limit of 10
+        for (int i = 0; i < 20; i++) {
+            assertSame(endpoint, pool.select());
+        }
+
+        // THEN: it never runs out of room, and an overload on it is never local
+        assertFalse(pool.isReplicated());
+        assertEquals(20, endpoint.getOutstanding());
+        assertTrue(pool.hasAvailableEndpoint());
+        assertFalse(pool.canReroute());
+    }
+
+    @Test
+    @DisplayName("Successes should grow the replica limit additively up to its max")
+    void shouldGrowLimitOnSuccess() {
+        // GIVEN
+        final BackendEndpoint endpoint = new BackendEndpoint("http://a", properties.getEndpoint());
+
+        // WHEN: a little over limit successes add one slot
+        for (int i = 0; i < 11; i++) {
+            endpoint.onSuccess(1_000L);
+        }
+
+        // THEN
+        assertEquals(11, endpoint.getLimit());
+        assertEquals(1_000L, endpoint.getLatencyNanos());
+
+        // WHEN
+        for (int i = 0; i < 10_000; i++) {
+            endpoint.onSuccess(1_000L);
+        }
+
+        // THEN
+        assertEquals(20, endpoint.getLimit());
+    }
+}
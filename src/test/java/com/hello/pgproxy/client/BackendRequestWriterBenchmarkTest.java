@@ -0,0 +1,44 @@
+package com.hello.pgproxy.client;
+
+import com.hello.pgproxy.model.BackendRequest;
+import com.hello.pgproxy.support.MicroBenchmark;
+import com.hello.pgproxy.support.MicroBenchmark.Candidate;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Rough throughput comparison of the backend body encoders. Excluded from {@code test}, run with
+ * {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class BackendRequestWriterBenchmarkTest {
+    private final BackendRequestWriter writer = new BackendRequestWriter();
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final BackendRequest request = new BackendRequest(UUID.randomUUID(), 123_456L, 1004L);
+
+    @Test
+    @DisplayName("Writer vs Jackson: ns per encoded body")
+    void compareWithJackson() throws Exception {
+        assertTrue(MicroBenchmark.compare("Backend body encoding",
+                new Candidate("jackson", this::encodeWithJackson),
+                new Candidate("writer", this::encodeWithWriter)) > 0);
+    }
+
+    private long encodeWithJackson() {
+        return jsonMapper.writeValueAsBytes(request).length;
+    }
+
+    private long encodeWithWriter() {
+        final byte[] buffer = writer.acquire();
+        final int length = writer.write(request, buffer);
+        writer.release(buffer);
+
+        return length;
+    }
+}
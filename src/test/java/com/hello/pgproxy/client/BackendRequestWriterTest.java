@@ -0,0 +1,54 @@
+package com.hello.pgproxy.client;
+
+import com.hello.pgproxy.model.BackendRequest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class BackendRequestWriterTest {
+    private final BackendRequestWriter writer = new BackendRequestWriter();
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    @Test
+    @DisplayName("The written body should be byte-identical to Jackson's")
+    void shouldMatchJackson() {
+        // GIVEN
+        final BackendRequest[] requests = {
+                new BackendRequest(UUID.randomUUID(), 5000L, 1004L),
+                new BackendRequest(new UUID(0, 0), 0L, 0L),
+                new BackendRequest(new UUID(-1, -1), Long.MAX_VALUE, Long.MIN_VALUE),
+                new BackendRequest(UUID.fromString("0a1b2c3d-4e5f-6071-8293-a4b5c6d7e8f9"), -42L, 9L),
+                new BackendRequest(null, null, null)
+        };
+
+        for (BackendRequest request : requests) {
+            // WHEN
+            final byte[] buffer = writer.acquire();
+            final int length = writer.write(request, buffer);
+
+            // THEN
+            assertEquals(jsonMapper.writeValueAsString(request), new String(buffer, 0, length, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    @DisplayName("Released buffers should be reused")
+    void shouldReuseReleasedBuffers() {
+        // GIVEN
+        final byte[] first = writer.acquire();
+
+        // WHEN
+        writer.release(first);
+
+        // THEN
+        assertSame(first, writer.acquire());
+        assertNotSame(first, writer.acquire());
+    }
+}
@@ -0,0 +1,39 @@
+package com.hello.pgproxy.client;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PassthroughHeadersTest {
+    @Test
+    @DisplayName("End-to-end headers should be relayed, connection and framing headers dropped")
+    void shouldDropConnectionHeaders() {
+        // GIVEN
+        final HttpHeaders backendHeaders = new HttpHeaders();
+        backendHeaders.set(HttpHeaders.CONTENT_TYPE, "application/json");
+        backendHeaders.set(HttpHeaders.RETRY_AFTER, "1");
+        backendHeaders.set("connection", "keep-alive");
+        backendHeaders.set(HttpHeaders.TRANSFER_ENCODING, "chunked");
+        backendHeaders.set(HttpHeaders.CONTENT_LENGTH, "42");
+
+        // WHEN
+        final HttpHeaders relayed = PassthroughHeaders.relay(backendHeaders);
+
+        // THEN
+        assertEquals("application/json", relayed.getFirst(HttpHeaders.CONTENT_TYPE));
+        assertEquals("1", relayed.getFirst(HttpHeaders.RETRY_AFTER));
+        assertFalse(relayed.containsHeader(HttpHeaders.CONNECTION));
+        assertFalse(relayed.containsHeader(HttpHeaders.TRANSFER_ENCODING));
+        assertFalse(relayed.containsHeader(HttpHeaders.CONTENT_LENGTH));
+    }
+
+    @Test
+    @DisplayName("Missing backend headers should relay nothing")
+    void shouldHandleMissingHeaders() {
+        assertTrue(PassthroughHeaders.relay(null).isEmpty());
+    }
+}
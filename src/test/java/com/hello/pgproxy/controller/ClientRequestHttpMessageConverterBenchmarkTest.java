@@ -0,0 +1,46 @@
+package com.hello.pgproxy.controller;
+
+import com.hello.pgproxy.model.ClientRequest;
+import com.hello.pgproxy.support.MicroBenchmark;
+import com.hello.pgproxy.support.MicroBenchmark.Candidate;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.JacksonJsonHttpMessageConverter;
+import org.springframework.mock.http.MockHttpInputMessage;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Rough throughput comparison of the request body converters. Excluded from {@code test}, run with
+ * {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class ClientRequestHttpMessageConverterBenchmarkTest {
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final ClientRequestHttpMessageConverter fastConverter = new ClientRequestHttpMessageConverter(jsonMapper);
+    private final JacksonJsonHttpMessageConverter defaultConverter = new JacksonJsonHttpMessageConverter(jsonMapper);
+    private final byte[] body = ("{\"id\":\"" + UUID.randomUUID() + "\",\"amount_cents\":123456}").getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    @DisplayName("Fast converter vs Jackson converter: ns per parsed body")
+    void compareWithDefaultConverter() throws Exception {
+        assertTrue(MicroBenchmark.compare("ClientRequest parsing",
+                new Candidate("jackson", () -> read(defaultConverter)),
+                new Candidate("fast", () -> read(fastConverter))) > 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private long read(HttpMessageConverter<?> converter) throws IOException {
+        final ClientRequest request = ((HttpMessageConverter<ClientRequest>) converter)
+                .read(ClientRequest.class, new MockHttpInputMessage(body));
+
+        return request.getAmount_cents();
+    }
+}
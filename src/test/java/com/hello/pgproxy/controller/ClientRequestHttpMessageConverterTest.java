@@ -0,0 +1,91 @@
+package com.hello.pgproxy.controller;
+
+import com.hello.pgproxy.model.ClientRequest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.mock.http.MockHttpInputMessage;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClientRequestHttpMessageConverterTest {
+    private static final UUID ID = UUID.fromString("3f0e8a52-8c1d-4b7e-9a55-0c6d2f1b7e10");
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final ClientRequestHttpMessageConverter converter = new ClientRequestHttpMessageConverter(jsonMapper);
+
+    @Test
+    @DisplayName("The common body shape should be parsed in any key order and spacing")
+    void shouldParseCommonShape() throws Exception {
+        assertEquals(new ClientRequest(ID, 5000L), read("{\"id\":\"" + ID + "\",\"amount_cents\":5000}"));
+        assertEquals(new ClientRequest(ID, 5000L), read(" {\n  \"amount_cents\" : 5000 ,\n  \"id\" : \"" + ID + "\"\n}\n"));
+        assertEquals(new ClientRequest(ID, Long.MIN_VALUE), read("{\"id\":\"" + ID + "\",\"amount_cents\":" + Long.MIN_VALUE + "}"));
+        assertEquals(new ClientRequest(ID, 1L), read("{\"id\":\"" + ID.toString().toUpperCase() + "\",\"amount_cents\":1}"));
+    }
+
+    @Test
+    @DisplayName("Missing and null fields should be null, as with Jackson")
+    void shouldKeepMissingFieldsNull() throws Exception {
+        final ClientRequest request = read("{\"id\":null}");
+
+        assertNull(request.getId());
+        assertNull(request.getAmount_cents());
+        assertEquals(new ClientRequest(null, null), read("{}"));
+    }
+
+    @Test
+    @DisplayName("Unexpected shapes should be handed to Jackson with the same result")
+    void shouldFallBackToJackson() throws Exception {
+        final String[] bodies = {
+                "{\"id\":\"" + ID + "\",\"amount_cents\":5000,\"note\":\"x\"}",
+                "{\"id\":\"" + ID + "\",\"amount_cents\":\"5000\"}",
+                "{\"\\u0069d\":\"" + ID + "\",\"amount_cents\":5000}",
+                "{\"id\":\"" + ID + "\",\"amount_cents\":5000}" + " ".repeat(ClientRequestHttpMessageConverter.MAX_FAST_PATH_BYTES)
+        };
+
+        for (String body : bodies) {
+            assertEquals(jsonMapper.readValue(body, ClientRequest.class), read(body), body);
+        }
+    }
+
+    @Test
+    @DisplayName("Malformed bodies should be rejected as unreadable, i.e. with 400")
+    void shouldRejectMalformedInput() {
+        final String[] bodies = {
+                "",
+                "{\"id\":\"" + ID + "\",\"amount_cents\":5000",
+                "{\"id\":\"zzzzzzzz-8c1d-4b7e-9a55-0c6d2f1b7e10\",\"amount_cents\":5000}",
+                "{\"id\":\"" + ID + "\",\"amount_cents\":99999999999999999999}",
+                "{\"id\":\"" + ID + "\",\"amount_cents\":01}",
+                "not json"
+        };
+
+        for (String body : bodies) {
+            assertThrows(HttpMessageNotReadableException.class, () -> read(body), body);
+        }
+    }
+
+    @Test
+    @DisplayName("Only ClientRequest JSON bodies should be read, and nothing written")
+    void shouldOnlyReadClientRequestJson() {
+        assertTrue(converter.canRead(ClientRequest.class, MediaType.APPLICATION_JSON));
+        assertTrue(converter.canRead(ClientRequest.class, MediaType.parseMediaType("application/vnd.payment+json")));
+        assertTrue(converter.canRead(ClientRequest.class, null));
+        assertFalse(converter.canRead(ClientRequest.class, MediaType.TEXT_PLAIN));
+        assertFalse(converter.canRead(String.class, MediaType.APPLICATION_JSON));
+        assertFalse(converter.canWrite(ClientRequest.class, MediaType.APPLICATION_JSON));
+    }
+
+    private ClientRequest read(String body) throws Exception {
+        return converter.read(ClientRequest.class, new MockHttpInputMessage(body.getBytes(StandardCharsets.UTF_8)));
+    }
+}
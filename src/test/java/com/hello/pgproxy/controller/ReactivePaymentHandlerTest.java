@@ -0,0 +1,141 @@
+package com.hello.pgproxy.controller;
+
+import com.hello.pgproxy.configuration.ResponseProperties;
+import com.hello.pgproxy.model.ClientRequest;
+import com.hello.pgproxy.service.DeadlineScheduler;
+import com.hello.pgproxy.service.LoadShedder;
+import com.hello.pgproxy.service.PaymentSubmitter;
+import com.hello.pgproxy.service.backpressure.BackpressureSignalRecorder;
+import com.hello.pgproxy.service.idempotency.IdempotencyGate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReactivePaymentHandlerTest {
+    @Mock
+    private IdempotencyGate idempotencyGate;
+    @Mock
+    private BackpressureSignalRecorder backpressureSignalRecorder;
+    @Mock
+    private LoadShedder loadShedder;
+
+    private final ResponseProperties responseProperties = new ResponseProperties();
+    private final DeadlineScheduler deadlineScheduler = new DeadlineScheduler();
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    void setUp() {
+        responseProperties.setTimeout(200);
+        final PaymentSubmitter paymentSubmitter =
+                new PaymentSubmitter(idempotencyGate, loadShedder, responseProperties, backpressureSignalRecorder, deadlineScheduler);
+        final ReactivePaymentHandler handler = new ReactivePaymentHandler(paymentSubmitter);
+        webTestClient = WebTestClient.bindToRouterFunction(new ReactivePaymentRouter().paymentRoutes(handler)).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        deadlineScheduler.stop();
+    }
+
+    @Test
+    @DisplayName("A payment completed by the flow should be answered through the Mono")
+    @SuppressWarnings("unchecked")
+    void shouldAnswerWithProcessedResult() {
+        // GIVEN: the executor completes the task right away
+        doAnswer(invocation -> {
+            final DeferredResult<ResponseEntity<?>> deferredResponse = invocation.getArgument(1);
+            deferredResponse.setResult(ResponseEntity.ok("Payment successful"));
+            return null;
+        }).when(idempotencyGate).enqueue(any(ClientRequest.class), any(DeferredResult.class), anyLong());
+
+        // WHEN & THEN
+        webTestClient.post().uri("/payments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new ClientRequest(UUID.randomUUID(), 5000L))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("Payment successful");
+    }
+
+    @Test
+    @DisplayName("A request without an amount should be rejected before queueing")
+    @SuppressWarnings("unchecked")
+    void shouldRejectIncompleteRequest() {
+        // WHEN & THEN
+        webTestClient.post().uri("/payments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new ClientRequest(UUID.randomUUID(), null))
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        verify(idempotencyGate, never()).enqueue(any(ClientRequest.class), any(DeferredResult.class), anyLong());
+    }
+
+    @Test
+    @DisplayName("A request without a body should be rejected like an incomplete one")
+    @SuppressWarnings("unchecked")
+    void shouldRejectEmptyBody() {
+        // WHEN & THEN
+        webTestClient.post().uri("/payments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(String.class).isEqualTo("Missing ID or Amount");
+
+        verify(idempotencyGate, never()).enqueue(any(ClientRequest.class), any(DeferredResult.class), anyLong());
+    }
+
+    @Test
+    @DisplayName("A request the proxy cannot serve in time should be shed with Retry-After")
+    @SuppressWarnings("unchecked")
+    void shouldShedAtAdmission() {
+        // GIVEN
+        when(loadShedder.evaluate(5000L)).thenReturn(2500L);
+
+        // WHEN & THEN
+        webTestClient.post().uri("/payments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new ClientRequest(UUID.randomUUID(), 5000L))
+                .exchange()
+                .expectStatus().isEqualTo(503)
+                .expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "3");
+
+        verify(idempotencyGate, never()).enqueue(any(ClientRequest.class), any(DeferredResult.class), anyLong());
+    }
+
+    @Test
+    @DisplayName("A payment not processed in time should time out and count as lost")
+    void shouldTimeOut() {
+        // GIVEN: the task never completes
+
+        // WHEN & THEN
+        webTestClient.post().uri("/payments")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new ClientRequest(UUID.randomUUID(), 5000L))
+                .exchange()
+                .expectStatus().isEqualTo(408);
+
+        // Recorded right after the timer answers, possibly after the response went out
+        verify(backpressureSignalRecorder, timeout(1000)).recordTimeout(5000L);
+    }
+}
@@ -0,0 +1,217 @@
+package com.hello.pgproxy.service;
+
+import com.hello.pgproxy.configuration.ConcurrencyProperties;
+import com.hello.pgproxy.model.BackendExecutionStatus;
+import com.hello.pgproxy.service.backpressure.BackpressureCircuit;
+import com.hello.pgproxy.service.backpressure.BackpressureSettings;
+import com.hello.pgproxy.service.backpressure.BackpressureSignalRecorder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("BackpressureAutoTuner Tests")
+class BackpressureAutoTunerTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicReference<BackpressureSettings> settings = new AtomicReference<>();
+    private final BackpressureSignalRecorder recorder = new BackpressureSignalRecorder();
+    private ConcurrencyProperties properties;
+    private BackpressurePolicyManager policyManager;
+    private BackpressureAutoTuner tuner;
+    private long now;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ConcurrencyProperties();
+        properties.getTuner().setMinSamples(1);
+        properties.getTuner().setStep(0.1);
+
+        settings.set(BackpressureSettings.builder()
+                .backpressureHandler("simple")
+                .start(10)
+                .max(100)
+                .unpauseDelay(20)
+                .scaleUpInterval(500)
+                .scaleDownInterval(250)
+                .scaleDownFactor(0.95)
+                .build());
+
+        policyManager = mock(BackpressurePolicyManager.class);
+        lenient().when(policyManager.getSettings()).thenAnswer(invocation -> settings.get());
+        lenient().when(policyManager.updateSettings(any())).thenAnswer(invocation ->
+                settings.updateAndGet(invocation.<UnaryOperator<BackpressureSettings>>getArgument(0)));
+
+        tuner = new BackpressureAutoTuner(properties, policyManager, recorder, new BackpressureCircuit(properties));
+        now = 0;
+    }
+
+    private void window(long completedAmountCents, long timedOutAmountCents) {
+        recorder.recordCompletion(BackendExecutionStatus.COMPLETED, 1L, completedAmountCents);
+        if (timedOutAmountCents > 0) {
+            recorder.recordTimeout(timedOutAmountCents);
+        }
+        now += SECOND;
+        tuner.evaluate(now);
+    }
+
+    @Test
+    @DisplayName("An improving trial should be kept and the search continues in the same direction")
+    void shouldKeepImprovingTrial() {
+        // WHEN: baseline, then a better trial window
+        window(1_000, 0);
+        assertEquals(550, settings.get().getScaleUpInterval());
+        window(2_000, 0);
+
+        // THEN
+        assertEquals(605, settings.get().getScaleUpInterval());
+        assertEquals(10, settings.get().getStart(), "The operator's start should stay as configured.");
+        assertEquals(2_000.0, tuner.getState().getBestScore());
+        assertEquals(BackpressureAutoTuner.Phase.TRIAL, tuner.getState().getPhase());
+    }
+
+    @Test
+    @DisplayName("A worse trial should be rolled back and the opposite direction tried after a fresh baseline")
+    void shouldRollBackWorseTrial() {
+        // GIVEN
+        window(2_000, 0);
+
+        // WHEN
+        window(1_000, 0);
+
+        // THEN
+        assertEquals(500, settings.get().getScaleUpInterval());
+        assertEquals(BackpressureAutoTuner.Phase.BASELINE, tuner.getState().getPhase());
+        assertEquals(-1, tuner.getState().getDirection());
+
+        // WHEN
+        window(1_000, 0);
+
+        // THEN
+        assertEquals(450, settings.get().getScaleUpInterval());
+    }
+
+    @Test
+    @DisplayName("A rollback should leave a value the operator changed during the trial")
+    void shouldNotRollBackOperatorChange() {
+        // GIVEN: a trial at 550, then the operator sets 700
+        window(2_000, 0);
+        settings.updateAndGet(current -> current.toBuilder().scaleUpInterval(700).build());
+
+        // WHEN: the trial loses
+        window(1_000, 0);
+
+        // THEN
+        assertEquals(700, settings.get().getScaleUpInterval());
+        assertEquals(BackpressureAutoTuner.Phase.BASELINE, tuner.getState().getPhase());
+    }
+
+    @Test
+    @DisplayName("Timed out amounts should count against the objective")
+    void shouldPenaliseTimeouts() {
+        // GIVEN
+        window(1_000, 0);
+
+        // WHEN: more revenue completed, but even more timed out
+        window(1_500, 1_000);
+
+        // THEN
+        assertEquals(500.0, tuner.getState().getLastScore());
+        assertEquals(500, settings.get().getScaleUpInterval(), "The trial should be rolled back.");
+    }
+
+    @Test
+    @DisplayName("Proposals should never leave the guard rails")
+    void shouldClampToGuardRails() {
+        // GIVEN
+        properties.getTuner().getScaleUpInterval().setMax(520);
+
+        // WHEN
+        window(1_000, 0);
+
+        // THEN
+        assertEquals(520, settings.get().getScaleUpInterval());
+    }
+
+    @Test
+    @DisplayName("A parameter pinned at both guard rails should be skipped")
+    void shouldMoveOnWhenPinned() {
+        // GIVEN
+        properties.getTuner().getScaleUpInterval().setMin(500);
+        properties.getTuner().getScaleUpInterval().setMax(500);
+
+        // WHEN
+        window(1_000, 0);
+        window(1_000, 0);
+        window(1_000, 0);
+
+        // THEN
+        assertEquals(500, settings.get().getScaleUpInterval());
+        assertEquals("scaleDownInterval", tuner.getState().getParameter());
+        assertEquals(275, settings.get().getScaleDownInterval());
+    }
+
+    @Test
+    @DisplayName("A rejected proposal should not start a trial")
+    void shouldStayInBaselineWhenApplyFails() {
+        // GIVEN
+        doThrow(new IllegalArgumentException("rejected")).when(policyManager).updateSettings(any());
+
+        // WHEN
+        window(1_000, 0);
+
+        // THEN: nothing to judge next window, the other direction is tried instead
+        assertEquals(500, settings.get().getScaleUpInterval());
+        assertEquals(BackpressureAutoTuner.Phase.BASELINE, tuner.getState().getPhase());
+        assertEquals(-1, tuner.getState().getDirection());
+    }
+
+    @Test
+    @DisplayName("Windows with too few completions should be discarded")
+    void shouldSkipSparseWindows() {
+        // GIVEN
+        properties.getTuner().setMinSamples(2);
+
+        // WHEN
+        window(1_000, 0);
+
+        // THEN
+        assertEquals(500, settings.get().getScaleUpInterval());
+        assertNull(tuner.getState().getLastScore());
+    }
+
+    @Test
+    @DisplayName("Freezing should roll back the pending trial and stop the search")
+    void shouldFreeze() {
+        // GIVEN
+        window(1_000, 0);
+
+        // WHEN
+        tuner.freeze();
+        window(5_000, 0);
+        window(5_000, 0);
+
+        // THEN
+        assertTrue(tuner.getState().isFrozen());
+        assertEquals(500, settings.get().getScaleUpInterval());
+
+        // WHEN
+        tuner.unfreeze();
+        window(5_000, 0);
+
+        // THEN
+        assertEquals(550, settings.get().getScaleUpInterval());
+    }
+}
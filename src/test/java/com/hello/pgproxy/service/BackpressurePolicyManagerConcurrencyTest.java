@@ -0,0 +1,124 @@
+package com.hello.pgproxy.service;
+
+import com.hello.pgproxy.configuration.ConcurrencyProperties;
+import com.hello.pgproxy.model.PrioritizedTask;
+import com.hello.pgproxy.service.backpressure.BackpressureCircuit;
+import com.hello.pgproxy.service.backpressure.BackpressureHandler;
+import com.hello.pgproxy.service.backpressure.BackpressureIntervalControl;
+import com.hello.pgproxy.service.backpressure.BackpressureSignalRecorder;
+import com.hello.pgproxy.service.backpressure.BackpressureSignals;
+import com.hello.pgproxy.service.backpressure.LimiterSnapshotStore;
+import com.hello.pgproxy.service.cluster.ClusterConcurrencyShare;
+import com.hello.pgproxy.service.retry.RetryLane;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+@DisplayName("BackpressurePolicyManager Lock-free Stress Test")
+class BackpressurePolicyManagerConcurrencyTest {
+    private static final int START = 500_000;
+    private static final int MAX = 2_000_000;
+    private static final int THREADS = 16;
+    private static final int ITERATIONS = 20_000;
+
+    private final AtomicInteger scaleUps = new AtomicInteger();
+    private final AtomicInteger scaleDowns = new AtomicInteger();
+
+    private BackpressurePolicyManager backpressurePolicyManager;
+
+    // Step handler counting every decision it makes, so the expected final limit is known exactly
+    private final BackpressureHandler countingHandler = new BackpressureHandler() {
+        @Override
+        public String getHandlerName() {
+            return "counting";
+        }
+
+        @Override
+        public int getScaleDownConcurrency(BackpressureSignals signals) {
+            scaleDowns.incrementAndGet();
+            return signals.getConcurrencyLimit() - 1;
+        }
+
+        @Override
+        public int getScaleUpConcurrency(BackpressureSignals signals) {
+            scaleUps.incrementAndGet();
+            return signals.getConcurrencyLimit() + 1;
+        }
+    };
+
+    @BeforeEach
+    void setUp() {
+        final ConcurrencyProperties properties = new ConcurrencyProperties();
+        properties.setStart(START);
+        properties.setMax(MAX);
+        properties.setBackpressureHandler("counting");
+        // Zero intervals let every completion compete for a change
+        properties.setScaleUpInterval(0);
+        properties.setScaleDownInterval(0);
+        properties.setUnpauseDelay(0);
+        // Keep the circuit from taking over the limit through half-open probing
+        properties.getCircuit().setProbeThreshold(Integer.MAX_VALUE);
+
+        backpressurePolicyManager = new BackpressurePolicyManager(
+                properties,
+                List.of(countingHandler),
+                mock(PriorityTaskQueueService.class),
+                new BackpressureIntervalControl(),
+                new ConcurrencyLockObject(),
+                new BackpressureSignalRecorder(),
+                new BackpressureCircuit(properties),
+                mock(LimiterSnapshotStore.class),
+                mock(RetryLane.class),
+                new ClusterConcurrencyShare()
+        );
+        backpressurePolicyManager.init();
+    }
+
+    @Test
+    @DisplayName("Concurrent scale up and scale down should never lose a limit update")
+    void concurrentChanges_ShouldNotLoseUpdates() throws InterruptedException {
+        final AtomicInteger currentConcurrencyLimit = new AtomicInteger(START);
+        final PrioritizedTask failedTask = mock(PrioritizedTask.class);
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(THREADS);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int t = 0; t < THREADS; t++) {
+                final boolean scaleDownThread = t % 2 == 1;
+                executor.submit(() -> {
+                    try {
+                        start.await();
+                        for (int i = 0; i < ITERATIONS; i++) {
+                            if (scaleDownThread) {
+                                backpressurePolicyManager.handleBackpressure(failedTask, currentConcurrencyLimit);
+                            } else {
+                                backpressurePolicyManager.increaseConcurrencyLimit(currentConcurrencyLimit);
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            start.countDown();
+            assertTrue(done.await(30, TimeUnit.SECONDS), "Stress run should finish in time.");
+        }
+
+        assertTrue(scaleUps.get() + scaleDowns.get() > 0, "Some changes should have been applied.");
+        assertEquals(START + scaleUps.get() - scaleDowns.get(), currentConcurrencyLimit.get(),
+                "Every handler decision must be reflected exactly once in the limit.");
+    }
+}
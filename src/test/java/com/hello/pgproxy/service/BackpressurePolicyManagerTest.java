@@ -2,8 +2,15 @@ package com.hello.pgproxy.service;
 
 import com.hello.pgproxy.configuration.ConcurrencyProperties;
 import com.hello.pgproxy.model.PrioritizedTask;
+import com.hello.pgproxy.service.backpressure.BackpressureCircuit;
 import com.hello.pgproxy.service.backpressure.BackpressureHandler;
 import com.hello.pgproxy.service.backpressure.BackpressureIntervalControl;
+import com.hello.pgproxy.service.backpressure.BackpressureSignalRecorder;
+import com.hello.pgproxy.service.backpressure.BackpressureSignals;
+import com.hello.pgproxy.service.backpressure.LimiterSnapshot;
+import com.hello.pgproxy.service.backpressure.LimiterSnapshotStore;
+import com.hello.pgproxy.service.cluster.ClusterConcurrencyShare;
+import com.hello.pgproxy.service.retry.RetryLane;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -11,10 +18,12 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -33,6 +42,16 @@ class BackpressurePolicyManagerTest {
     private BackpressureIntervalControl backpressureIntervalControl;
     @Mock
     private ConcurrencyLockObject concurrencyLockObject;
+    @Spy
+    private BackpressureSignalRecorder backpressureSignalRecorder = new BackpressureSignalRecorder();
+    @Spy
+    private BackpressureCircuit backpressureCircuit = new BackpressureCircuit(new ConcurrencyProperties());
+    @Mock
+    private LimiterSnapshotStore limiterSnapshotStore;
+    @Mock
+    private RetryLane retryLane;
+    @Spy
+    private ClusterConcurrencyShare clusterConcurrencyShare = new ClusterConcurrencyShare();
 
     @InjectMocks
     private BackpressurePolicyManager backpressurePolicyManager;
@@ -48,6 +67,8 @@ class BackpressurePolicyManagerTest {
     private final long SCALE_UP_INTERVAL = 5000L;
     private final long SCALE_DOWN_INTERVAL = 1000L;
     private final long UNPAUSE_DELAY = 50L;
+    // Time since the previous change as seen by a winning claim
+    private final long ELAPSED = TimeUnit.SECONDS.toNanos(6);
 
     private void setupConcurrencyProperties() {
         lenient().when(concurrencyProperties.getStart()).thenReturn(INITIAL_LIMIT);
@@ -55,6 +76,7 @@ class BackpressurePolicyManagerTest {
         lenient().when(concurrencyProperties.getScaleUpInterval()).thenReturn(SCALE_UP_INTERVAL);
         lenient().when(concurrencyProperties.getScaleDownInterval()).thenReturn(SCALE_DOWN_INTERVAL);
         lenient().when(concurrencyProperties.getUnpauseDelay()).thenReturn(UNPAUSE_DELAY);
+        lenient().when(concurrencyProperties.getScaleDownFactor()).thenReturn(0.95);
         when(concurrencyProperties.getBackpressureHandler()).thenReturn("HandlerA");
     }
 
@@ -63,10 +85,10 @@ class BackpressurePolicyManagerTest {
         when(mockHandlerA.getHandlerName()).thenReturn("HandlerA");
 
         // mock Scale Up/Down
-        lenient().when(mockHandlerA.getScaleUpConcurrency(anyInt())).thenAnswer(
-                invocation -> invocation.<Integer>getArgument(0) + 10);
-        lenient().when(mockHandlerA.getScaleDownConcurrency(anyInt())).thenAnswer(
-invocation -> invocation.<Integer>getArgument(0) - 5);
+        lenient().when(mockHandlerA.getScaleUpConcurrency(any(BackpressureSignals.class))).thenAnswer(
+                invocation -> invocation.<BackpressureSignals>getArgument(0).getConcurrencyLimit() + 10);
+        lenient().when(mockHandlerA.getScaleDownConcurrency(any(BackpressureSignals.class))).thenAnswer(
+                invocation -> invocation.<BackpressureSignals>getArgument(0).getConcurrencyLimit() - 5);
 
         // unused handler
         lenient().when(mockHandlerB.getHandlerName()).thenReturn("HandlerB");
@@ -76,6 +98,10 @@ invocation -> invocation.<Integer>getArgument(0) - 5);
         when(backpressureHandlers.stream()).thenReturn(handlers.stream());
     }
 
+    private static BackpressureSignals withLimit(int concurrencyLimit) {
+        return argThat(signals -> signals.getConcurrencyLimit() == concurrencyLimit);
+    }
+
     @BeforeEach
     void setUp() throws Exception {
         setupConcurrencyProperties();
@@ -88,7 +114,7 @@ invocation -> invocation.<Integer>getArgument(0) - 5);
     @DisplayName("Initial state verification (init and getInitialConcurrencyLimit)")
     void testInitAndInitialConcurrencyLimit() {
         final AtomicInteger concurrencyLimit = new AtomicInteger(INITIAL_LIMIT);
-        when(backpressureIntervalControl.hasConcurrencyModifiableTimePassed(anyLong())).thenReturn(true);
+        when(backpressureIntervalControl.tryAcquireChange(anyLong())).thenReturn(ELAPSED);
 
         // Assert initial limit
         assertEquals(INITIAL_LIMIT, backpressurePolicyManager.getInitialConcurrencyLimit(), "Initial limit should come from properties.");
@@ -96,8 +122,8 @@ invocation -> invocation.<Integer>getArgument(0) - 5);
         // Assert handler selection
         backpressurePolicyManager.increaseConcurrencyLimit(concurrencyLimit);
 
-        verify(mockHandlerA, times(1)).getScaleUpConcurrency(INITIAL_LIMIT);
-        verify(mockHandlerB, never()).getScaleUpConcurrency(anyInt());
+        verify(mockHandlerA, times(1)).getScaleUpConcurrency(withLimit(INITIAL_LIMIT));
+        verify(mockHandlerB, never()).getScaleUpConcurrency(any(BackpressureSignals.class));
     }
 
     @Nested
@@ -109,16 +135,17 @@ invocation -> invocation.<Integer>getArgument(0) - 5);
             final AtomicInteger currentConcurrencyLimit = new AtomicInteger(20);
 
             // Arrange: Time passed condition met
-            when(backpressureIntervalControl.hasConcurrencyModifiableTimePassed(SCALE_UP_INTERVAL))
-                    .thenReturn(true);
+            when(backpressureIntervalControl.tryAcquireChange(SCALE_UP_INTERVAL))
+                    .thenReturn(ELAPSED);
 
             // Act
             backpressurePolicyManager.increaseConcurrencyLimit(currentConcurrencyLimit);
 
             // Assert
-            verify(mockHandlerA, times(1)).getScaleUpConcurrency(20);
+            verify(mockHandlerA, times(1)).getScaleUpConcurrency(withLimit(20));
+            verify(mockHandlerA).getScaleUpConcurrency(argThat(signals -> signals.getNanosSinceLastChange() == ELAPSED));
             assertEquals(30, currentConcurrencyLimit.get(), "Limit should increase by 10 (20 -> 30).");
-            verify(backpressureIntervalControl, times(1)).resetTimestamp();
+            verify(backpressureIntervalControl, times(1)).tryAcquireChange(SCALE_UP_INTERVAL);
             verifyNoMoreInteractions(mockHandlerA);
         }
 
@@ -128,16 +155,29 @@ invocation -> invocation.<Integer>getArgument(0) - 5);
             final AtomicInteger currentConcurrencyLimit = new AtomicInteger(50);
 
             // Arrange: Time condition NOT met
-            when(backpressureIntervalControl.hasConcurrencyModifiableTimePassed(SCALE_UP_INTERVAL))
-                    .thenReturn(false);
+            when(backpressureIntervalControl.tryAcquireChange(SCALE_UP_INTERVAL))
+                    .thenReturn(-1L);
 
             // Act
             backpressurePolicyManager.increaseConcurrencyLimit(currentConcurrencyLimit);
 
             // Assert
-            verify(mockHandlerA, never()).getScaleUpConcurrency(anyInt());
+            verify(mockHandlerA, never()).getScaleUpConcurrency(any(BackpressureSignals.class));
             assertEquals(50, currentConcurrencyLimit.get(), "Limit should remain unchanged.");
-            verify(backpressureIntervalControl, never()).resetTimestamp();
+        }
+
+        @Test
+        @DisplayName("Should clamp to the cluster fair share when it is below MAX")
+        void testIncreaseConcurrencyLimit_ClampToClusterShare() {
+            final AtomicInteger currentConcurrencyLimit = new AtomicInteger(20);
+            doReturn(15).when(clusterConcurrencyShare).getFairShare();
+
+            // Act
+            backpressurePolicyManager.increaseConcurrencyLimit(currentConcurrencyLimit);
+
+            // Assert
+            assertEquals(15, currentConcurrencyLimit.get(), "Limit should be clamped to the fair share.");
+            verify(mockHandlerA, never()).getScaleUpConcurrency(any(BackpressureSignals.class));
         }
 
         @Test
@@ -149,9 +189,95 @@ invocation -> invocation.<Integer>getArgument(0) - 5);
             backpressurePolicyManager.increaseConcurrencyLimit(currentConcurrencyLimit);
 
             // Assert
-            verify(mockHandlerA, never()).getScaleUpConcurrency(anyInt());
+            verify(mockHandlerA, never()).getScaleUpConcurrency(any(BackpressureSignals.class));
             assertEquals(MAX_LIMIT, currentConcurrencyLimit.get(), "Limit should not exceed MAX_LIMIT.");
-            verify(backpressureIntervalControl, never()).resetTimestamp();
+            verify(backpressureIntervalControl, never()).tryAcquireChange(anyLong());
+        }
+    }
+
+    @Nested
+    @DisplayName("Runtime Policy Update")
+    class UpdateSettingsTests {
+        @Test
+        @DisplayName("Should switch the active handler without touching the current limit")
+        void testUpdateSettings_SwitchHandler() {
+            final AtomicInteger currentConcurrencyLimit = new AtomicInteger(20);
+            when(mockHandlerB.getScaleUpConcurrency(any(BackpressureSignals.class))).thenReturn(21);
+            when(backpressureIntervalControl.tryAcquireChange(SCALE_UP_INTERVAL)).thenReturn(ELAPSED);
+
+            // Act
+            backpressurePolicyManager.updateSettings(settings -> settings.toBuilder().backpressureHandler("HandlerB").build());
+
+            // Assert: limit untouched by the switch itself, next decision goes to HandlerB
+            assertEquals(20, currentConcurrencyLimit.get());
+            backpressurePolicyManager.increaseConcurrencyLimit(currentConcurrencyLimit);
+
+            verify(mockHandlerB, times(1)).getScaleUpConcurrency(withLimit(20));
+            verify(mockHandlerA, never()).getScaleUpConcurrency(any(BackpressureSignals.class));
+            assertEquals(21, currentConcurrencyLimit.get());
+            assertEquals("HandlerB", backpressurePolicyManager.getSettings().getBackpressureHandler());
+        }
+
+        @Test
+        @DisplayName("Should reject unknown handler and invalid parameters, keeping the previous settings")
+        void testUpdateSettings_RejectInvalid() {
+            final var before = backpressurePolicyManager.getSettings();
+
+            assertThrows(IllegalArgumentException.class, () -> backpressurePolicyManager.updateSettings(
+                    settings -> settings.toBuilder().backpressureHandler("Unknown").build()));
+            assertThrows(IllegalArgumentException.class, () -> backpressurePolicyManager.updateSettings(
+                    settings -> settings.toBuilder().start(MAX_LIMIT + 1).build()));
+
+            assertSame(before, backpressurePolicyManager.getSettings(), "Settings should be unchanged after a rejected update.");
+        }
+
+        @Test
+        @DisplayName("Should clamp the limit to a lowered max on the next completion")
+        void testUpdateSettings_LowerMaxClampsLimit() {
+            final AtomicInteger currentConcurrencyLimit = new AtomicInteger(80);
+
+            backpressurePolicyManager.updateSettings(settings -> settings.toBuilder().start(5).max(50).build());
+            backpressurePolicyManager.increaseConcurrencyLimit(currentConcurrencyLimit);
+
+            assertEquals(50, currentConcurrencyLimit.get(), "Limit should be clamped to the new max.");
+            assertEquals(5, backpressurePolicyManager.getInitialConcurrencyLimit());
+            verify(mockHandlerA, never()).getScaleUpConcurrency(any(BackpressureSignals.class));
+        }
+    }
+
+    @Nested
+    @DisplayName("Warm Start")
+    class WarmStartTests {
+        private void reinitWith(LimiterSnapshot snapshot) {
+            when(backpressureHandlers.stream()).thenReturn(Arrays.asList(mockHandlerA, mockHandlerB).stream());
+            when(limiterSnapshotStore.loadForWarmStart()).thenReturn(Optional.of(snapshot));
+            backpressurePolicyManager.init();
+        }
+
+        @Test
+        @DisplayName("Should start from the persisted limit and restore the matching handler")
+        void testWarmStart_SeedsLimitAndHandler() {
+            // GIVEN
+            final LimiterSnapshot snapshot = LimiterSnapshot.builder().handlerName("HandlerA").concurrencyLimit(40).build();
+
+            // WHEN
+            reinitWith(snapshot);
+
+            // THEN
+            assertEquals(40, backpressurePolicyManager.getInitialConcurrencyLimit());
+            verify(mockHandlerA).restore(snapshot);
+        }
+
+        @Test
+        @DisplayName("Should cap the persisted limit at max and skip restoring another handler's state")
+        void testWarmStart_ClampsAndIgnoresOtherHandler() {
+            // WHEN
+            reinitWith(LimiterSnapshot.builder().handlerName("HandlerB").concurrencyLimit(MAX_LIMIT * 2).build());
+
+            // THEN
+            assertEquals(MAX_LIMIT, backpressurePolicyManager.getInitialConcurrencyLimit());
+            verify(mockHandlerA, never()).restore(any());
+            verify(mockHandlerB, never()).restore(any());
         }
     }
 
@@ -168,21 +294,22 @@ invocation -> invocation.<Integer>getArgument(0) - 5);
         }
 
         @Test
-        @DisplayName("Should scale down, requeue, and pause when time condition met")
+        @DisplayName("Should scale down, hand over to the retry lane, and pause when time condition met")
         void testHandleBackpressure_ScaleDownSuccess() throws InterruptedException {
             // Arrange: Time passed condition met
-            when(backpressureIntervalControl.hasConcurrencyModifiableTimePassed(SCALE_DOWN_INTERVAL)).thenReturn(true);
+            when(backpressureIntervalControl.tryAcquireChange(SCALE_DOWN_INTERVAL)).thenReturn(ELAPSED);
 
             // Act
             backpressurePolicyManager.handleBackpressure(failedTask, currentConcurrencyLimit);
 
             // Assert Scale Down
-            verify(mockHandlerA, times(1)).getScaleDownConcurrency(50);
+            verify(mockHandlerA, times(1)).getScaleDownConcurrency(withLimit(50));
+            verify(mockHandlerA).getScaleDownConcurrency(argThat(signals -> signals.getNanosSinceLastChange() == ELAPSED));
             assertEquals(45, currentConcurrencyLimit.get(), "Limit should decrease by 5 (50 -> 45).");
-            verify(backpressureIntervalControl, times(1)).resetTimestamp();
+            verify(backpressureIntervalControl, times(1)).tryAcquireChange(SCALE_DOWN_INTERVAL);
 
-            // Assert Requeue and Pause
-            verify(priorityTaskQueueService, times(1)).requeue(failedTask);
+            // Assert Retry and Pause
+            verify(retryLane, times(1)).retry(failedTask);
             assertTrue(backpressurePolicyManager.isPaused(), "Manager should be paused immediately.");
 
             // Assert Unpause (Asynchronous check)
@@ -191,26 +318,40 @@ invocation -> invocation.<Integer>getArgument(0) - 5);
         }
 
         @Test
-        @DisplayName("Should NOT scale down but still requeue and pause if time interval has not passed")
+        @DisplayName("Should NOT scale down but still retry and pause if time interval has not passed")
         void testHandleBackpressure_SkipScaleDown() throws InterruptedException {
             // Arrange: Time condition NOT met
-            when(backpressureIntervalControl.hasConcurrencyModifiableTimePassed(SCALE_DOWN_INTERVAL)).thenReturn(false);
+            when(backpressureIntervalControl.tryAcquireChange(SCALE_DOWN_INTERVAL)).thenReturn(-1L);
 
             // Act
             backpressurePolicyManager.handleBackpressure(failedTask, currentConcurrencyLimit);
 
             // Assert Scale Down Skip
-            verify(mockHandlerA, never()).getScaleDownConcurrency(anyInt());
+            verify(mockHandlerA, never()).getScaleDownConcurrency(any(BackpressureSignals.class));
             assertEquals(50, currentConcurrencyLimit.get(), "Limit should remain unchanged.");
-            verify(backpressureIntervalControl, never()).resetTimestamp();
 
-            // Assert Requeue and Pause
-            verify(priorityTaskQueueService, times(1)).requeue(failedTask);
+            // Assert Retry and Pause
+            verify(retryLane, times(1)).retry(failedTask);
             assertTrue(backpressurePolicyManager.isPaused(), "Manager should be paused immediately.");
 
             // Assert Unpause (Asynchronous check)
             TimeUnit.MILLISECONDS.sleep(UNPAUSE_DELAY + 50);
             assertFalse(backpressurePolicyManager.isPaused(), "Manager should be unpaused after delay.");
         }
+
+        @Test
+        @DisplayName("Should scale down and pause without a retry when the client was answered already")
+        void testHandleBackpressure_Answered() {
+            // Arrange
+            when(backpressureIntervalControl.tryAcquireChange(SCALE_DOWN_INTERVAL)).thenReturn(ELAPSED);
+
+            // Act
+            backpressurePolicyManager.handleBackpressure(failedTask, currentConcurrencyLimit, false);
+
+            // Assert
+            assertEquals(45, currentConcurrencyLimit.get(), "Limit should decrease by 5 (50 -> 45).");
+            verify(retryLane, never()).retry(any());
+            assertTrue(backpressurePolicyManager.isPaused(), "Manager should be paused immediately.");
+        }
     }
 }
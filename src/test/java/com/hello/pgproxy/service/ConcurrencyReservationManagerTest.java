@@ -0,0 +1,118 @@
+package com.hello.pgproxy.service;
+
+import com.hello.pgproxy.configuration.ConcurrencyProperties;
+import com.hello.pgproxy.model.ClientRequest;
+import com.hello.pgproxy.model.PrioritizedTask;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("ConcurrencyReservationManager Tests")
+class ConcurrencyReservationManagerTest {
+    private static final int LIMIT = 100;
+    private static final int LARGE = 0;
+    private static final int MEDIUM = 1;
+
+    private static ConcurrencyReservationManager manager(double largeBorrowable) {
+        final ConcurrencyProperties properties = new ConcurrencyProperties();
+        properties.setClasses(List.of(
+                concurrencyClass("medium", 10_000, 0.1, 1.0),
+                concurrencyClass("large", 100_000, 0.2, largeBorrowable)
+        ));
+        return new ConcurrencyReservationManager(properties);
+    }
+
+    private static ConcurrencyProperties.ConcurrencyClass concurrencyClass(String name, long minAmount, double reserved, double borrowable) {
+        final ConcurrencyProperties.ConcurrencyClass concurrencyClass = new ConcurrencyProperties.ConcurrencyClass();
+        concurrencyClass.setName(name);
+        concurrencyClass.setMinAmount(minAmount);
+        concurrencyClass.setReserved(reserved);
+        concurrencyClass.setBorrowable(borrowable);
+        return concurrencyClass;
+    }
+
+    @Test
+    @DisplayName("Without classes every task shares the global limit")
+    void shouldFallBackToGlobalLimitWithoutClasses() {
+        // GIVEN
+        final ConcurrencyReservationManager manager = new ConcurrencyReservationManager(new ConcurrencyProperties());
+
+        // WHEN & THEN
+        assertFalse(manager.isEnabled());
+        assertEquals(manager.getDefaultClass(), manager.classOf(null));
+        assertTrue(manager.hasCapacity(manager.getDefaultClass(), LIMIT - 1, LIMIT));
+        assertFalse(manager.hasCapacity(manager.getDefaultClass(), LIMIT, LIMIT));
+    }
+
+    @Test
+    @DisplayName("Tasks are assigned to the highest band their amount reaches")
+    void shouldClassifyByAmount() {
+        // GIVEN
+        final ConcurrencyReservationManager manager = manager(0.0);
+        final PrioritizedTask task = PrioritizedTask.builder()
+                .request(new ClientRequest(UUID.randomUUID(), 250_000L))
+                .build();
+
+        // WHEN & THEN
+        assertEquals(LARGE, manager.classOf(task));
+        assertEquals(LARGE, manager.classOf(100_000));
+        assertEquals(MEDIUM, manager.classOf(99_999));
+        assertEquals(manager.getDefaultClass(), manager.classOf(9_999));
+        assertEquals("large", manager.getClassName(LARGE));
+        assertEquals("default", manager.getClassName(manager.getDefaultClass()));
+    }
+
+    @Test
+    @DisplayName("Unused non-borrowable reservations stay free for their class")
+    void shouldKeepHeadroomForReservedClass() {
+        // GIVEN: 'large' holds 20 slots and lends none of them, 'medium' lends all of its 10
+        final ConcurrencyReservationManager manager = manager(0.0);
+
+        // WHEN & THEN
+        assertTrue(manager.hasCapacity(manager.getDefaultClass(), 79, LIMIT));
+        assertFalse(manager.hasCapacity(manager.getDefaultClass(), 80, LIMIT));
+        assertFalse(manager.hasCapacity(MEDIUM, 80, LIMIT));
+        assertTrue(manager.hasCapacity(LARGE, 99, LIMIT));
+        assertFalse(manager.hasCapacity(LARGE, 100, LIMIT));
+    }
+
+    @Test
+    @DisplayName("The borrowable share of an unused reservation is lent to other classes")
+    void shouldLendBorrowableShare() {
+        // GIVEN: half of the 20 'large' slots may be borrowed
+        final ConcurrencyReservationManager manager = manager(0.5);
+
+        // WHEN & THEN
+        assertTrue(manager.hasCapacity(manager.getDefaultClass(), 89, LIMIT));
+        assertFalse(manager.hasCapacity(manager.getDefaultClass(), 90, LIMIT));
+    }
+
+    @Test
+    @DisplayName("Reserved slots in use are no longer held back from other classes")
+    void shouldReleaseHeadroomAsReservationIsUsed() {
+        // GIVEN
+        final ConcurrencyReservationManager manager = manager(0.0);
+        for (int i = 0; i < 15; i++) {
+            manager.acquire(LARGE);
+        }
+
+        // WHEN & THEN: 5 unused 'large' slots remain protected
+        assertEquals(15, manager.getActiveRequests(LARGE));
+        assertTrue(manager.hasCapacity(manager.getDefaultClass(), 94, LIMIT));
+        assertFalse(manager.hasCapacity(manager.getDefaultClass(), 95, LIMIT));
+
+        // WHEN
+        for (int i = 0; i < 15; i++) {
+            manager.release(LARGE);
+        }
+
+        // THEN
+        assertFalse(manager.hasCapacity(manager.getDefaultClass(), 80, LIMIT));
+    }
+}
@@ -0,0 +1,84 @@
+package com.hello.pgproxy.service;
+
+import com.hello.pgproxy.configuration.ConcurrencyProperties;
+import com.hello.pgproxy.configuration.ResponseProperties;
+import com.hello.pgproxy.service.backpressure.BackpressureSignalRecorder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class LoadShedderTest {
+    @Mock
+    private PriorityTaskQueueService priorityTaskQueueService;
+    @Mock
+    private PaymentFlowManager paymentFlowManager;
+    @Mock
+    private BackpressureSignalRecorder backpressureSignalRecorder;
+
+    private final ConcurrencyProperties concurrencyProperties = new ConcurrencyProperties();
+    private LoadShedder loadShedder;
+
+    @BeforeEach
+    void setUp() {
+        // GIVEN: 1 s of budget, 10 slots of 100 ms calls, i.e. about 100 tasks per second
+        final ResponseProperties responseProperties = new ResponseProperties();
+        responseProperties.setTimeout(1050);
+        responseProperties.setDeadlineMargin(50);
+        when(paymentFlowManager.getCurrentConcurrencyLimit()).thenReturn(10);
+        when(backpressureSignalRecorder.getRecentLatencyNanos()).thenReturn(TimeUnit.MILLISECONDS.toNanos(100));
+
+        loadShedder = new LoadShedder(concurrencyProperties, responseProperties,
+                priorityTaskQueueService, paymentFlowManager, backpressureSignalRecorder);
+    }
+
+    @Test
+    @DisplayName("A request served within the timeout should be admitted")
+    void shouldAdmitWhenBacklogFits() {
+        // GIVEN: 80 tasks ahead, 8 rounds + its own call
+        when(priorityTaskQueueService.countQueuedAtOrAbove(500L)).thenReturn(80L);
+
+        // WHEN & THEN
+        assertEquals(0, loadShedder.evaluate(500L));
+    }
+
+    @Test
+    @DisplayName("A request behind too large a backlog should be rejected with the time to drain it")
+    void shouldShedWhenBacklogExceedsTimeout() {
+        // GIVEN: 290 tasks ahead, 30 rounds = 3 s against 1 s of budget
+        when(priorityTaskQueueService.countQueuedAtOrAbove(500L)).thenReturn(290L);
+
+        // WHEN
+        final long retryAfter = loadShedder.evaluate(500L);
+
+        // THEN
+        assertTrue(retryAfter >= 1900 && retryAfter <= 2000, "retry after " + retryAfter);
+    }
+
+    @Test
+    @DisplayName("Without a latency measurement or when disabled everyone should be admitted")
+    void shouldAdmitWithoutEstimate() {
+        // GIVEN
+        when(priorityTaskQueueService.countQueuedAtOrAbove(500L)).thenReturn(1_000_000L);
+        concurrencyProperties.getShedding().setEnabled(false);
+
+        // WHEN & THEN
+        assertEquals(0, loadShedder.evaluate(500L));
+
+        concurrencyProperties.getShedding().setEnabled(true);
+        when(backpressureSignalRecorder.getRecentLatencyNanos()).thenReturn(0L);
+        assertEquals(0, loadShedder.evaluate(500L));
+    }
+}
@@ -0,0 +1,168 @@
+package com.hello.pgproxy.service;
+
+import com.hello.pgproxy.configuration.ConcurrencyProperties;
+import com.hello.pgproxy.configuration.ResponseProperties;
+import com.hello.pgproxy.model.ClientRequest;
+import com.hello.pgproxy.service.backpressure.BackpressureSignalRecorder;
+import com.hello.pgproxy.service.idempotency.IdempotencyGate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import tools.jackson.core.exc.JacksonIOException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentBatchProcessorTest {
+    @Mock
+    private IdempotencyGate idempotencyGate;
+    @Mock
+    private LoadShedder loadShedder;
+    @Mock
+    private BackpressureSignalRecorder backpressureSignalRecorder;
+    @Mock
+    private ResponseBodyEmitter emitter;
+
+    private final ResponseProperties responseProperties = new ResponseProperties();
+    private final ConcurrencyProperties concurrencyProperties = new ConcurrencyProperties();
+    private final DeadlineScheduler deadlineScheduler = new DeadlineScheduler();
+    private PaymentBatchProcessor paymentBatchProcessor;
+
+    private static final UUID FIRST = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    private static final UUID SECOND = UUID.fromString("00000000-0000-0000-0000-000000000002");
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        responseProperties.setTimeout(30000);
+        final PaymentSubmitter paymentSubmitter =
+                new PaymentSubmitter(idempotencyGate, loadShedder, responseProperties, backpressureSignalRecorder, deadlineScheduler);
+        paymentBatchProcessor = new PaymentBatchProcessor(paymentSubmitter, concurrencyProperties, JsonMapper.builder().build());
+
+        // GIVEN: every queued item is processed right away
+        lenient().doAnswer(invocation -> {
+            final ClientRequest request = invocation.getArgument(0);
+            final DeferredResult<ResponseEntity<?>> deferredResponse = invocation.getArgument(1);
+            deferredResponse.setResult(ResponseEntity.ok("paid " + request.getAmount_cents()));
+            return null;
+        }).when(idempotencyGate).enqueue(any(ClientRequest.class), any(DeferredResult.class), anyLong());
+    }
+
+    @Test
+    @DisplayName("NDJSON items should be queued one by one and answered with one line each")
+    @SuppressWarnings("unchecked")
+    void shouldProcessNdjson() throws Exception {
+        // GIVEN
+        final String body = "{\"id\":\"" + FIRST + "\",\"amount_cents\":100}\n"
+                + "{\"id\":\"" + SECOND + "\",\"amount_cents\":200}\n";
+
+        // WHEN
+        final List<String> lines = run(body);
+
+        // THEN
+        verify(idempotencyGate, times(2)).enqueue(any(ClientRequest.class), any(DeferredResult.class), anyLong());
+        assertEquals(List.of(
+                "{\"id\":\"" + FIRST + "\",\"status\":200,\"body\":\"paid 100\"}\n",
+                "{\"id\":\"" + SECOND + "\",\"status\":200,\"body\":\"paid 200\"}\n"
+        ), lines);
+        verify(emitter).complete();
+    }
+
+    @Test
+    @DisplayName("A JSON array should be read element by element, invalid items answered on their own")
+    void shouldProcessArrayWithInvalidItem() throws Exception {
+        // GIVEN
+        final String body = "[{\"id\":\"" + FIRST + "\",\"amount_cents\":100}, {\"id\":\"" + SECOND + "\"}]";
+
+        // WHEN
+        final List<String> lines = run(body);
+
+        // THEN
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).contains("\"status\":200"));
+        assertTrue(lines.get(1).contains("\"status\":400"));
+        verify(emitter).complete();
+    }
+
+    @Test
+    @DisplayName("A malformed item should end the batch with an error line")
+    void shouldStopAtMalformedItem() throws Exception {
+        // WHEN
+        final List<String> lines = run("{\"id\":\"" + FIRST + "\",\"amount_cents\":100}\n{not json\n");
+
+        // THEN
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(1).contains("\"status\":400"));
+        verify(emitter).complete();
+    }
+
+    @Test
+    @DisplayName("An unreadable body should abort the batch without an answer line")
+    void shouldAbortOnUnreadableBody() {
+        // GIVEN: the client goes away after the first item
+        final InputStream body = new SequenceInputStream(
+                new ByteArrayInputStream(("{\"id\":\"" + FIRST + "\",\"amount_cents\":100}\n").getBytes(StandardCharsets.UTF_8)),
+                new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("Connection reset");
+                    }
+                });
+
+        // WHEN
+        paymentBatchProcessor.run(body, emitter);
+
+        // THEN
+        verify(emitter, never()).complete();
+        verify(emitter).completeWithError(any(JacksonIOException.class));
+    }
+
+    @Test
+    @DisplayName("An unexpected failure should complete the response with an error instead of leaving it open")
+    @SuppressWarnings("unchecked")
+    void shouldCompleteWithErrorOnUnexpectedFailure() {
+        // GIVEN
+        final RejectedExecutionException rejected = new RejectedExecutionException("Pool shut down");
+        doThrow(rejected).when(idempotencyGate).enqueue(any(ClientRequest.class), any(DeferredResult.class), anyLong());
+
+        // WHEN
+        paymentBatchProcessor.run(new ByteArrayInputStream(
+                ("{\"id\":\"" + FIRST + "\",\"amount_cents\":100}\n").getBytes(StandardCharsets.UTF_8)), emitter);
+
+        // THEN
+        verify(emitter, never()).complete();
+        verify(emitter).completeWithError(rejected);
+    }
+
+    private List<String> run(String body) throws Exception {
+        paymentBatchProcessor.run(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), emitter);
+
+        final ArgumentCaptor<Object> lines = ArgumentCaptor.forClass(Object.class);
+        verify(emitter, atLeastOnce()).send(lines.capture(), eq(MediaType.APPLICATION_NDJSON));
+
+        return lines.getAllValues().stream().map(String.class::cast).toList();
+    }
+}
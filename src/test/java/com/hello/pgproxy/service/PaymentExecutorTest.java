@@ -1,23 +1,40 @@
 package com.hello.pgproxy.service;
 
 import com.hello.pgproxy.client.BackendApiClient;
+import com.hello.pgproxy.client.BackendOutcomeClassifier;
+import com.hello.pgproxy.client.NoEndpointAvailableException;
+import com.hello.pgproxy.configuration.BackendOutcomeProperties;
+import com.hello.pgproxy.configuration.ResponseProperties;
 import com.hello.pgproxy.model.BackendExecutionStatus;
+import com.hello.pgproxy.model.BackendOutcome;
 import com.hello.pgproxy.model.BackendRequest;
 import com.hello.pgproxy.model.ClientRequest;
+import com.hello.pgproxy.model.PaymentDeadline;
 import com.hello.pgproxy.model.PrioritizedTask;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.context.request.async.DeferredResult;
 
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
@@ -27,6 +44,11 @@ import static org.mockito.Mockito.*;
 class PaymentExecutorTest {
     @Mock
     private BackendApiClient backendApiClient;
+    private final BackendOutcomeProperties backendOutcomeProperties = new BackendOutcomeProperties();
+    @Spy
+    private BackendOutcomeClassifier backendOutcomeClassifier = new BackendOutcomeClassifier(backendOutcomeProperties);
+    @Spy
+    private ResponseProperties responseProperties = new ResponseProperties();
 
     @InjectMocks
     private PaymentExecutor paymentExecutor;
@@ -47,7 +69,7 @@ class PaymentExecutorTest {
     void execute_SuccessScenario_ShouldIncreaseLimit() {
         // GIVEN: Successful response from backend
         ResponseEntity successResponse = ResponseEntity.ok("Payment successful");
-        when(backendApiClient.postForEntity(any(BackendRequest.class)))
+        when(backendApiClient.postForEntity(any(BackendRequest.class), any(Duration.class)))
                 .thenReturn(successResponse);
 
         // WHEN
@@ -67,7 +89,7 @@ class PaymentExecutorTest {
          HttpServerErrorException serviceUnavailableException = HttpServerErrorException.create(
              HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable", null, null, null);
 
-        when(backendApiClient.postForEntity(any(BackendRequest.class)))
+        when(backendApiClient.postForEntity(any(BackendRequest.class), any(Duration.class)))
                 .thenThrow(serviceUnavailableException);
 
         // WHEN
@@ -80,6 +102,26 @@ class PaymentExecutorTest {
         verify(mockDeferredResponse, never()).setResult(any());
     }
 
+    @Test
+    @DisplayName("Should keep the backend Retry-After hint on the task for the backpressure circuit")
+    void execute_ServiceUnavailableWithRetryAfter_ShouldRecordHint() {
+        // GIVEN: 503 with Retry-After of 2 seconds
+        final HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "2");
+        HttpServerErrorException serviceUnavailableException = HttpServerErrorException.create(
+                HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable", headers, null, null);
+
+        when(backendApiClient.postForEntity(any(BackendRequest.class), any(Duration.class)))
+                .thenThrow(serviceUnavailableException);
+
+        // WHEN
+        final var result = paymentExecutor.execute(mockTask);
+
+        // THEN
+        assertEquals(BackendExecutionStatus.BACKPRESSURE_CONTROL_NEEDED, result);
+        assertEquals(2000L, mockTask.getRetryAfterMillis());
+    }
+
     @Test
     @DisplayName("Should handle 4xx Client Error and pass response through")
     void execute_HttpClientError_ShouldSetDeferredResponse() {
@@ -89,7 +131,7 @@ class PaymentExecutorTest {
         HttpClientErrorException clientErrorException =
                 HttpClientErrorException.create(clientErrorStatus, "Bad Request", null, errorBody.getBytes(), null);
 
-        when(backendApiClient.postForEntity(any(BackendRequest.class)))
+        when(backendApiClient.postForEntity(any(BackendRequest.class), any(Duration.class)))
                 .thenThrow(clientErrorException);
 
         // WHEN
@@ -109,12 +151,35 @@ class PaymentExecutorTest {
         }));
     }
 
+    @Test
+    @DisplayName("Should relay 4xx body bytes and headers as they are in passthrough mode")
+    void execute_HttpClientErrorPassthrough_ShouldRelayBytes() {
+        // GIVEN
+        final byte[] errorBody = "{\"error\": \"Invalid parameters\"}".getBytes();
+        final HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.CONTENT_TYPE, "application/json");
+        when(backendApiClient.isPassthrough()).thenReturn(true);
+        when(backendApiClient.postForEntity(any(BackendRequest.class), any(Duration.class))).thenThrow(
+                HttpClientErrorException.create(HttpStatus.BAD_REQUEST, "Bad Request", headers, errorBody, null));
+
+        // WHEN
+        final var result = paymentExecutor.execute(mockTask);
+
+        // THEN
+        assertEquals(BackendExecutionStatus.ERROR, result);
+        verify(mockDeferredResponse).setResult(argThat(response ->
+                response.getStatusCode() == HttpStatus.BAD_REQUEST
+                        && Arrays.equals(errorBody, (byte[]) response.getBody())
+                        && "application/json".equals(response.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE))
+        ));
+    }
+
     @Test
     @DisplayName("Should handle generic exception and return 500 Internal Server Error")
     void execute_GenericException_ShouldReturn500() {
         // GIVEN: A generic runtime exception (not specific HTTP error)
         RuntimeException genericException = new RuntimeException("DB Connection Failed");
-        when(backendApiClient.postForEntity(any(BackendRequest.class)))
+        when(backendApiClient.postForEntity(any(BackendRequest.class), any(Duration.class)))
                 .thenThrow(genericException);
 
         // WHEN
@@ -131,4 +196,213 @@ class PaymentExecutorTest {
                 response.getStatusCode() == HttpStatus.INTERNAL_SERVER_ERROR
         ));
     }
+
+    @Test
+    @DisplayName("Should treat 429 Too Many Requests as backpressure and keep its Retry-After hint")
+    void execute_TooManyRequests_ShouldHandleBackpressure() {
+        // GIVEN
+        final HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "1");
+        when(backendApiClient.postForEntity(any(BackendRequest.class), any(Duration.class))).thenThrow(
+                HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", headers, null, null));
+
+        // WHEN
+        final var result = paymentExecutor.execute(mockTask);
+
+        // THEN
+        assertEquals(BackendExecutionStatus.BACKPRESSURE_CONTROL_NEEDED, result);
+        assertEquals(1000L, mockTask.getRetryAfterMillis());
+        verify(mockDeferredResponse, never()).setResult(any());
+    }
+
+    @Test
+    @DisplayName("Should treat a refused connection as backpressure and send the payment again")
+    void execute_ConnectionRefused_ShouldHandleBackpressure() {
+        // GIVEN
+        when(backendApiClient.postForEntity(any(BackendRequest.class), any(Duration.class))).thenThrow(
+                new ResourceAccessException("I/O error", new ConnectException("Connection refused")));
+
+        // WHEN & THEN
+        assertEquals(BackendExecutionStatus.BACKPRESSURE_CONTROL_NEEDED, paymentExecutor.execute(mockTask));
+        verify(mockDeferredResponse, never()).setResult(any());
+    }
+
+    @Test
+    @DisplayName("Should answer 502 without a resend when 502, 504 or a read timeout may come after the charge")
+    void execute_AmbiguousOverload_ShouldNotResend() {
+        // GIVEN
+        when(backendApiClient.postForEntity(any(BackendRequest.class), any(Duration.class))).thenThrow(
+                HttpServerErrorException.create(HttpStatus.BAD_GATEWAY, "Bad Gateway", null, null, null),
+                HttpServerErrorException.create(HttpStatus.GATEWAY_TIMEOUT, "Gateway Timeout", null, null, null),
+                new ResourceAccessException("I/O error", new SocketTimeoutException("Read timed out"))
+        );
+
+        // WHEN & THEN: still an overload signal, but the client is answered
+        for (int i = 0; i < 3; i++) {
+            assertEquals(BackendExecutionStatus.BACKPRESSURE_ANSWERED, paymentExecutor.execute(mockTask));
+        }
+        verify(mockDeferredResponse, times(3)).setResult(argThat(response ->
+                response.getStatusCode() == HttpStatus.BAD_GATEWAY
+        ));
+    }
+
+    @Test
+    @DisplayName("Should answer 502 without a retry when the connection was reset mid-call")
+    void execute_IoError_ShouldNotResend() {
+        // GIVEN
+        when(backendApiClient.postForEntity(any(BackendRequest.class), any(Duration.class)))
+                .thenThrow(new ResourceAccessException("I/O error", new IOException("Connection reset")));
+
+        // WHEN
+        final var result = paymentExecutor.execute(mockTask);
+
+        // THEN
+        assertEquals(BackendExecutionStatus.ERROR, result);
+        verify(mockDeferredResponse).setResult(argThat(response ->
+                response.getStatusCode() == HttpStatus.BAD_GATEWAY
+        ));
+    }
+
+    @Test
+    @DisplayName("Should send ambiguous failures again once the backend deduplicates by id")
+    void execute_IdempotentBackend_ShouldResend() {
+        // GIVEN
+        backendOutcomeProperties.setIdempotentRetries(true);
+        when(backendApiClient.postForEntity(any(BackendRequest.class), any(Duration.class))).thenThrow(
+                new ResourceAccessException("I/O error", new IOException("Connection reset")),
+                new ResourceAccessException("I/O error", new SocketTimeoutException("Read timed out"))
+        );
+
+        // WHEN & THEN
+        assertEquals(BackendExecutionStatus.RETRY_NEEDED, paymentExecutor.execute(mockTask));
+        assertEquals(BackendExecutionStatus.BACKPRESSURE_CONTROL_NEEDED, paymentExecutor.execute(mockTask));
+        verify(mockDeferredResponse, never()).setResult(any());
+    }
+
+    @Test
+    @DisplayName("Should follow the configured outcome of a status code")
+    void execute_ConfiguredOutcome_ShouldOverrideDefault() {
+        // GIVEN: 502 reconfigured as fatal
+        backendOutcomeProperties.getStatus().put(502, BackendOutcome.FATAL);
+        when(backendApiClient.postForEntity(any(BackendRequest.class), any(Duration.class))).thenThrow(
+                HttpServerErrorException.create(HttpStatus.BAD_GATEWAY, "Bad Gateway", null, null, null));
+
+        // WHEN
+        final var result = paymentExecutor.execute(mockTask);
+
+        // THEN
+        assertEquals(BackendExecutionStatus.ERROR, result);
+        verify(mockDeferredResponse).setResult(argThat(response ->
+                response.getStatusCode() == HttpStatus.INTERNAL_SERVER_ERROR
+        ));
+    }
+
+    @Test
+    @DisplayName("Should reroute instead of scaling down when another replica is available")
+    void execute_ReplicaOverloaded_ShouldRerouteElsewhere() {
+        // GIVEN
+        when(backendApiClient.postForEntity(any(BackendRequest.class), any(Duration.class))).thenThrow(
+                HttpServerErrorException.create(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable", null, null, null));
+        when(backendApiClient.canReroute()).thenReturn(true);
+
+        // WHEN
+        final var result = paymentExecutor.execute(mockTask);
+
+        // THEN
+        assertEquals(BackendExecutionStatus.REROUTE_NEEDED, result);
+        verify(mockDeferredResponse, never()).setResult(any());
+    }
+
+    @Test
+    @DisplayName("Should wait for a replica instead of reporting overload when none had room")
+    void execute_NoEndpointAvailable_ShouldNotBackOff() {
+        // GIVEN
+        when(backendApiClient.postForEntity(any(BackendRequest.class), any(Duration.class)))
+                .thenThrow(new NoEndpointAvailableException());
+
+        // WHEN
+        final var result = paymentExecutor.execute(mockTask);
+
+        // THEN
+        assertEquals(BackendExecutionStatus.ENDPOINT_UNAVAILABLE, result);
+        verify(mockDeferredResponse, never()).setResult(any());
+    }
+
+    @Test
+    @DisplayName("Should complete the client response from the async callback")
+    void executeAsync_SuccessScenario_ShouldComplete() {
+        // GIVEN
+        ResponseEntity successResponse = ResponseEntity.ok("Payment successful");
+        when(backendApiClient.postForEntityAsync(any(BackendRequest.class), any(Duration.class)))
+                .thenReturn(CompletableFuture.completedFuture(successResponse));
+
+        // WHEN
+        final var result = paymentExecutor.executeAsync(mockTask).join();
+
+        // THEN
+        assertEquals(BackendExecutionStatus.COMPLETED, result);
+        verify(mockDeferredResponse, times(1)).setResult(successResponse);
+    }
+
+    @Test
+    @DisplayName("Should classify an async failure the same way as a blocking one")
+    void executeAsync_ServiceUnavailable_ShouldHandleBackpressure() {
+        // GIVEN: the future fails wrapped, as the HTTP client completes it
+        final HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "2");
+        final CompletableFuture<ResponseEntity<?>> failed = CompletableFuture.failedFuture(new CompletionException(
+                HttpServerErrorException.create(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable", headers, null, null)));
+        when(backendApiClient.postForEntityAsync(any(BackendRequest.class), any(Duration.class))).thenReturn(failed);
+
+        // WHEN
+        final var result = paymentExecutor.executeAsync(mockTask).join();
+
+        // THEN
+        assertEquals(BackendExecutionStatus.BACKPRESSURE_CONTROL_NEEDED, result);
+        assertEquals(2000L, mockTask.getRetryAfterMillis());
+        verify(mockDeferredResponse, never()).setResult(any());
+    }
+
+    @Test
+    @DisplayName("Should skip the backend call once the client deadline is spent")
+    void execute_DeadlineSpent_ShouldSkipCall() {
+        // GIVEN: a task whose client gives up within the safety margin
+        final PrioritizedTask expiringTask = PrioritizedTask.builder()
+                .request(mockClientRequest)
+                .verification(VERIFY_NUMBER)
+                .deferredResponse(mockDeferredResponse)
+                .deadline(new PaymentDeadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10)))
+                .build();
+
+        // WHEN
+        final var result = paymentExecutor.execute(expiringTask);
+        final var asyncResult = paymentExecutor.executeAsync(expiringTask).join();
+
+        // THEN: left to the client's own timeout
+        assertEquals(BackendExecutionStatus.DEADLINE_EXCEEDED, result);
+        assertEquals(BackendExecutionStatus.DEADLINE_EXCEEDED, asyncResult);
+        verifyNoInteractions(backendApiClient);
+        verify(mockDeferredResponse, never()).setResult(any());
+    }
+
+    @Test
+    @DisplayName("Should give the backend call the remaining budget minus the margin")
+    void execute_Deadline_ShouldBoundCallTimeout() {
+        // GIVEN: 2 seconds left
+        final PrioritizedTask task = PrioritizedTask.builder()
+                .request(mockClientRequest)
+                .verification(VERIFY_NUMBER)
+                .deferredResponse(mockDeferredResponse)
+                .deadline(new PaymentDeadline(System.nanoTime() + TimeUnit.SECONDS.toNanos(2)))
+                .build();
+        when(backendApiClient.postForEntity(any(BackendRequest.class), any(Duration.class)))
+                .thenReturn(ResponseEntity.ok("Payment successful"));
+
+        // WHEN
+        paymentExecutor.execute(task);
+
+        // THEN
+        verify(backendApiClient).postForEntity(any(BackendRequest.class), argThat(timeout ->
+                timeout.toMillis() <= 2000 - responseProperties.getDeadlineMargin() && timeout.toMillis() > 1500));
+    }
 }
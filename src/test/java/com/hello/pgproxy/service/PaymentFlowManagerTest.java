@@ -1,7 +1,15 @@
 package com.hello.pgproxy.service;
 
+import com.hello.pgproxy.client.BackendEndpointPool;
+import com.hello.pgproxy.configuration.BackendProperties;
+import com.hello.pgproxy.configuration.ConcurrencyProperties;
 import com.hello.pgproxy.model.BackendExecutionStatus;
+import com.hello.pgproxy.model.ClientRequest;
 import com.hello.pgproxy.model.PrioritizedTask;
+import com.hello.pgproxy.service.backpressure.BackpressureSignalRecorder;
+import com.hello.pgproxy.service.latency.StageLatencyRecorder;
+import com.hello.pgproxy.service.retry.RetryBudget;
+import com.hello.pgproxy.service.retry.RetryLane;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -14,13 +22,20 @@ import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.stubbing.Answer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
@@ -34,8 +49,23 @@ class PaymentFlowManagerTest {
     private PriorityTaskQueueService priorityTaskQueueService;
     @Mock
     private PaymentExecutor paymentExecutor;
+    @Mock
+    private BackpressureSignalRecorder backpressureSignalRecorder;
+    @Mock
+    private RetryBudget retryBudget;
+    @Mock
+    private RetryLane retryLane;
+    @Mock
+    private StageLatencyRecorder stageLatencyRecorder;
+    @Mock
+    private BackendEndpointPool backendEndpointPool;
     @Spy
     private final ConcurrencyLockObject concurrencyLockObject = new ConcurrencyLockObject();
+    @Spy
+    private final ConcurrencyReservationManager concurrencyReservationManager =
+            new ConcurrencyReservationManager(new ConcurrencyProperties());
+    @Spy
+    private final BackendProperties backendProperties = new BackendProperties();
 
     // System Under Test
     @InjectMocks
@@ -47,6 +77,7 @@ class PaymentFlowManagerTest {
     void setUp() {
         // Mock init() behavior
         when(backpressurePolicyManager.getInitialConcurrencyLimit()).thenReturn(INITIAL_CONCURRENCY_LIMIT);
+        lenient().when(backendEndpointPool.hasAvailableEndpoint()).thenReturn(true);
         paymentFlowManager.init();
     }
 
@@ -73,8 +104,9 @@ class PaymentFlowManagerTest {
         verify(paymentExecutor, times(1)).execute(mockTask);
 
         // Assert Policy Manager interaction
-        verify(backpressurePolicyManager, times(1)).increaseConcurrencyLimit(any(AtomicInteger.class));
+        verify(backpressurePolicyManager, times(1)).increaseConcurrencyLimit(any(AtomicInteger.class), anyLong());
         verify(backpressurePolicyManager, never()).handleBackpressure(any(), any());
+        verify(stageLatencyRecorder, times(1)).record(eq(mockTask), eq(BackendExecutionStatus.COMPLETED), anyLong(), anyLong());
     }
 
     @Test
@@ -91,7 +123,182 @@ class PaymentFlowManagerTest {
 
         // Assert Policy Manager interaction
         verify(backpressurePolicyManager, times(1)).handleBackpressure(eq(mockTask), any(AtomicInteger.class));
-        verify(backpressurePolicyManager, never()).increaseConcurrencyLimit(any());
+        verify(backpressurePolicyManager, never()).increaseConcurrencyLimit(any(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Should back off without a resend for BACKPRESSURE_ANSWERED task")
+    void testProcessNext_BackpressureAnsweredTask() throws Exception {
+        PrioritizedTask mockTask = mock(PrioritizedTask.class);
+
+        // Act & Wait
+        runProcessNextAndWaitForCompletion(mockTask, BackendExecutionStatus.BACKPRESSURE_ANSWERED);
+
+        // Assert
+        verify(backpressurePolicyManager, times(1)).handleBackpressure(eq(mockTask), any(AtomicInteger.class), eq(false));
+        verify(retryLane, never()).retry(any());
+    }
+
+    @Test
+    @DisplayName("Should retry RETRY_NEEDED task without touching the limit")
+    void testProcessNext_RetryNeededTask() throws Exception {
+        PrioritizedTask mockTask = mock(PrioritizedTask.class);
+
+        // Act & Wait
+        runProcessNextAndWaitForCompletion(mockTask, BackendExecutionStatus.RETRY_NEEDED);
+
+        // Assert
+        verify(retryLane, times(1)).retry(mockTask);
+        verify(backpressurePolicyManager, never()).handleBackpressure(any(), any());
+        verify(backpressurePolicyManager, never()).increaseConcurrencyLimit(any(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Should requeue a rerouted task without spending a retry")
+    void testProcessNext_RerouteNeededTask() throws Exception {
+        PrioritizedTask mockTask = mock(PrioritizedTask.class);
+
+        // Act & Wait
+        runProcessNextAndWaitForCompletion(mockTask, BackendExecutionStatus.REROUTE_NEEDED);
+
+        // Assert
+        verify(priorityTaskQueueService, times(1)).requeue(mockTask);
+        verify(mockTask, never()).setAttempts(anyInt());
+        verify(retryLane, never()).retry(any());
+        verify(backpressurePolicyManager, never()).handleBackpressure(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should put a task back without counting a requeue when no replica had room")
+    void testProcessNext_EndpointUnavailableTask() throws Exception {
+        PrioritizedTask mockTask = mock(PrioritizedTask.class);
+
+        // Act & Wait
+        runProcessNextAndWaitForCompletion(mockTask, BackendExecutionStatus.ENDPOINT_UNAVAILABLE);
+
+        // Assert
+        verify(priorityTaskQueueService, times(1)).putBack(mockTask);
+        verify(priorityTaskQueueService, never()).requeue(any());
+        verify(retryLane, never()).retry(any());
+        verify(backpressurePolicyManager, never()).handleBackpressure(any(), any());
+        verify(backpressurePolicyManager, never()).handleBackpressure(any(), any(), anyBoolean());
+    }
+
+    @Test
+    @DisplayName("Should not dispatch while every replica is saturated or paused")
+    void testProcessNext_WaitsForAvailableEndpoint() throws Exception {
+        // GIVEN: global capacity is free but no replica has room
+        backendProperties.getEndpoint().setPause(10);
+        AtomicBoolean endpointAvailable = new AtomicBoolean(false);
+        when(backendEndpointPool.hasAvailableEndpoint()).thenAnswer(invocation -> endpointAvailable.get());
+        PrioritizedTask mockTask = mock(PrioritizedTask.class);
+        when(priorityTaskQueueService.take()).thenReturn(mockTask);
+        when(paymentExecutor.execute(mockTask)).thenReturn(BackendExecutionStatus.COMPLETED);
+        Thread dispatcher = Thread.ofVirtual().start(() -> assertDoesNotThrow(() -> paymentFlowManager.processNext()));
+
+        // WHEN
+        TimeUnit.MILLISECONDS.sleep(100);
+
+        // THEN: still waiting, re-checking on its own since a replica pause ends without a notify
+        verify(priorityTaskQueueService, never()).take();
+        verify(backendEndpointPool, atLeast(2)).hasAvailableEndpoint();
+
+        // WHEN: a replica resumes
+        endpointAvailable.set(true);
+        dispatcher.join(1000);
+
+        // THEN
+        verify(priorityTaskQueueService, times(1)).take();
+    }
+
+    @Test
+    @DisplayName("Should put back a task that lost the capacity race without counting a requeue")
+    void testProcessNext_LostCapacityRace() throws Exception {
+        // GIVEN: capacity is free at the check but gone once the task is taken
+        PrioritizedTask mockTask = mock(PrioritizedTask.class);
+        when(priorityTaskQueueService.take()).thenReturn(mockTask);
+        doReturn(true, false).when(concurrencyReservationManager).hasCapacity(anyInt(), anyInt(), anyInt());
+
+        // WHEN
+        paymentFlowManager.processNext();
+
+        // THEN
+        verify(priorityTaskQueueService, times(1)).putBack(mockTask);
+        verify(priorityTaskQueueService, never()).requeue(any());
+        verify(paymentExecutor, never()).execute(any());
+        assertEquals(0, concurrencyReservationManager.getActiveRequests(0));
+    }
+
+    @Test
+    @DisplayName("Should complete the task from the async callback without a blocking execute")
+    void testProcessNext_AsyncExecution() throws Exception {
+        // GIVEN: async execution mode
+        backendProperties.getClient().setAsync(true);
+        paymentFlowManager.init();
+        PrioritizedTask mockTask = mock(PrioritizedTask.class);
+        CompletableFuture<BackendExecutionStatus> pending = new CompletableFuture<>();
+        when(priorityTaskQueueService.take()).thenReturn(mockTask);
+        when(paymentExecutor.executeAsync(mockTask)).thenReturn(pending);
+
+        // WHEN: dispatched, the call is still in flight
+        paymentFlowManager.processNext();
+
+        // THEN: the permit stays taken until the callback runs
+        verify(paymentExecutor, never()).execute(any());
+        assertEquals(1, concurrencyReservationManager.getActiveRequests(0));
+        assertEquals(1, paymentFlowManager.getActiveRequests());
+        verify(backpressurePolicyManager, never()).increaseConcurrencyLimit(any(), anyLong());
+
+        // WHEN: the backend responds
+        pending.complete(BackendExecutionStatus.COMPLETED);
+
+        // THEN: completion is handled inline by the callback
+        verify(backpressurePolicyManager, times(1)).increaseConcurrencyLimit(any(AtomicInteger.class), anyLong());
+        assertEquals(0, paymentFlowManager.getActiveRequests());
+        assertEquals(0, concurrencyReservationManager.getActiveRequests(0));
+    }
+
+    @Test
+    @DisplayName("Should answer 500 and free the permit when the async call cannot even start")
+    @SuppressWarnings("unchecked")
+    void testProcessNext_AsyncExecutionThrows() throws Exception {
+        // GIVEN
+        backendProperties.getClient().setAsync(true);
+        paymentFlowManager.init();
+        final DeferredResult<ResponseEntity<?>> deferredResponse = mock(DeferredResult.class);
+        final PrioritizedTask mockTask = failingTask(deferredResponse);
+        when(paymentExecutor.executeAsync(mockTask)).thenThrow(new IllegalStateException("Client closed"));
+
+        // WHEN
+        paymentFlowManager.processNext();
+
+        // THEN
+        verify(deferredResponse).setResult(argThat(response ->
+                response.getStatusCode() == HttpStatus.INTERNAL_SERVER_ERROR));
+        assertEquals(0, paymentFlowManager.getActiveRequests());
+        assertEquals(0, concurrencyReservationManager.getActiveRequests(0));
+    }
+
+    @Test
+    @DisplayName("Should answer 500 when the async call fails unexpectedly")
+    @SuppressWarnings("unchecked")
+    void testProcessNext_AsyncExecutionFails() throws Exception {
+        // GIVEN
+        backendProperties.getClient().setAsync(true);
+        paymentFlowManager.init();
+        final DeferredResult<ResponseEntity<?>> deferredResponse = mock(DeferredResult.class);
+        final PrioritizedTask mockTask = failingTask(deferredResponse);
+        when(paymentExecutor.executeAsync(mockTask))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("Callback failed")));
+
+        // WHEN
+        paymentFlowManager.processNext();
+
+        // THEN
+        verify(deferredResponse).setResult(argThat(response ->
+                response.getStatusCode() == HttpStatus.INTERNAL_SERVER_ERROR));
+        verify(backpressurePolicyManager, never()).handleBackpressure(any(), any());
+        assertEquals(0, concurrencyReservationManager.getActiveRequests(0));
     }
 
     @Test
@@ -221,6 +428,15 @@ class PaymentFlowManagerTest {
     }
 
     // Helper method to simulate a task and wait for completion
+    private PrioritizedTask failingTask(DeferredResult<ResponseEntity<?>> deferredResponse) throws InterruptedException {
+        final PrioritizedTask task = mock(PrioritizedTask.class);
+        when(task.getRequest()).thenReturn(new ClientRequest(UUID.randomUUID(), 1000L));
+        when(task.getDeferredResponse()).thenReturn(deferredResponse);
+        when(priorityTaskQueueService.take()).thenReturn(task);
+
+        return task;
+    }
+
     private void runProcessNextAndWaitForCompletion(PrioritizedTask task, BackendExecutionStatus status) throws InterruptedException {
         // Given:task and execution result
         when(priorityTaskQueueService.take()).thenReturn(task);
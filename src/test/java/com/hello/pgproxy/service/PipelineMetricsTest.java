@@ -0,0 +1,84 @@
+package com.hello.pgproxy.service;
+
+import com.hello.pgproxy.model.BackendExecutionStatus;
+import com.hello.pgproxy.service.backpressure.BackpressureSignalRecorder;
+import com.hello.pgproxy.service.retry.RetryLane;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PipelineMetricsTest {
+    @Mock
+    private PriorityTaskQueueService priorityTaskQueueService;
+    @Mock
+    private PaymentFlowManager paymentFlowManager;
+    @Mock
+    private BackpressurePolicyManager backpressurePolicyManager;
+    @Mock
+    private RetryLane retryLane;
+
+    private final BackpressureSignalRecorder backpressureSignalRecorder = new BackpressureSignalRecorder();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        new PipelineMetrics(priorityTaskQueueService, paymentFlowManager, backpressurePolicyManager,
+                backpressureSignalRecorder, retryLane).bindTo(registry);
+    }
+
+    @Test
+    @DisplayName("Queue, verification and limiter meters should read the live state of each stage")
+    void shouldExposeStageState() {
+        // GIVEN
+        when(priorityTaskQueueService.getRemainingTaskCount()).thenReturn(42);
+        when(priorityTaskQueueService.getRequeueCount()).thenReturn(3L);
+        when(priorityTaskQueueService.getVerificationCount()).thenReturn(10L);
+        when(priorityTaskQueueService.getVerificationNanos()).thenReturn(TimeUnit.MILLISECONDS.toNanos(50));
+        when(paymentFlowManager.getCurrentConcurrencyLimit()).thenReturn(16);
+        when(paymentFlowManager.getActiveRequests()).thenReturn(4);
+        when(backpressurePolicyManager.isPaused()).thenReturn(true);
+
+        // THEN
+        assertEquals(42, registry.get("proxy.queue.depth").gauge().value());
+        assertEquals(3, registry.get("proxy.queue.requeues").functionCounter().count());
+        final FunctionTimer verification = registry.get("proxy.verification").functionTimer();
+        assertEquals(10, verification.count());
+        assertEquals(5, verification.mean(TimeUnit.MILLISECONDS));
+        assertEquals(16, registry.get("proxy.concurrency.limit").gauge().value());
+        assertEquals(4, registry.get("proxy.concurrency.active").gauge().value());
+        assertEquals(1, registry.get("proxy.concurrency.paused").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Backend meters should count outcomes, amounts and call time recorded on completion")
+    void shouldExposeBackendOutcomes() {
+        // GIVEN
+        backpressureSignalRecorder.recordCompletion(BackendExecutionStatus.COMPLETED, TimeUnit.MILLISECONDS.toNanos(30), 1000);
+        backpressureSignalRecorder.recordCompletion(BackendExecutionStatus.BACKPRESSURE_CONTROL_NEEDED, TimeUnit.MILLISECONDS.toNanos(10), 500);
+        backpressureSignalRecorder.recordCompletion(BackendExecutionStatus.DEADLINE_EXCEEDED, 0, 200);
+        backpressureSignalRecorder.recordTimeout(200);
+
+        // THEN
+        assertEquals(1, registry.get("proxy.backend.outcomes").tag("outcome", "completed").functionCounter().count());
+        assertEquals(1, registry.get("proxy.backend.outcomes").tag("outcome", "backpressure").functionCounter().count());
+        assertEquals(1, registry.get("proxy.backend.outcomes").tag("outcome", "expired").functionCounter().count());
+        assertEquals(1000, registry.get("proxy.payments.amount").tag("outcome", "completed").functionCounter().count());
+        assertEquals(200, registry.get("proxy.payments.amount").tag("outcome", "timed_out").functionCounter().count());
+
+        // The expired task never reached the backend
+        final FunctionTimer rtt = registry.get("proxy.backend.rtt").functionTimer();
+        assertEquals(2, rtt.count());
+        assertEquals(40, rtt.totalTime(TimeUnit.MILLISECONDS));
+    }
+}
@@ -115,4 +115,47 @@ class PriorityTaskQueueServiceTest {
         assertNotNull(takenTask, "Take() must unblock and return a task.");
         assertEquals(taskToAdd.getVerification(), takenTask.getVerification(), "The returned task must be the added task.");
     }
+
+    @Test
+    @DisplayName("Count: Should count queued tasks of at least the amount's power of two")
+    void countQueuedAtOrAbove_ShouldFollowQueueContent() throws InterruptedException {
+        // GIVEN: amounts in the bands [64, 128), [128, 256) and [1024, 2048)
+        priorityTaskQueueService.requeue(PrioritizedTask.builder().request(new ClientRequest(TEST_ID, 100L)).build());
+        priorityTaskQueueService.requeue(PrioritizedTask.builder().request(new ClientRequest(TEST_ID, 200L)).build());
+        priorityTaskQueueService.requeue(PrioritizedTask.builder().request(new ClientRequest(TEST_ID, 1500L)).build());
+
+        // THEN
+        assertEquals(3, priorityTaskQueueService.countQueuedAtOrAbove(1L));
+        assertEquals(2, priorityTaskQueueService.countQueuedAtOrAbove(130L));
+        assertEquals(1, priorityTaskQueueService.countQueuedAtOrAbove(1024L));
+        assertEquals(0, priorityTaskQueueService.countQueuedAtOrAbove(5000L));
+
+        // WHEN: the largest is dispatched
+        priorityTaskQueueService.take();
+
+        // THEN
+        assertEquals(0, priorityTaskQueueService.countQueuedAtOrAbove(1024L));
+        assertEquals(2, priorityTaskQueueService.countQueuedAtOrAbove(1L));
+    }
+
+    @Test
+    @DisplayName("PutBack: Should queue a task again without counting it as a requeue")
+    void putBack_ShouldNotCountRequeue() throws InterruptedException {
+        // GIVEN
+        final PrioritizedTask task = PrioritizedTask.builder().request(new ClientRequest(TEST_ID, 100L)).build();
+
+        // WHEN
+        priorityTaskQueueService.putBack(task);
+
+        // THEN
+        assertEquals(0, priorityTaskQueueService.getRequeueCount());
+        assertEquals(1, priorityTaskQueueService.countQueuedAtOrAbove(1L));
+        assertEquals(task, priorityTaskQueueService.take());
+
+        // WHEN
+        priorityTaskQueueService.requeue(task);
+
+        // THEN
+        assertEquals(1, priorityTaskQueueService.getRequeueCount());
+    }
 }
@@ -0,0 +1,137 @@
+package com.hello.pgproxy.service.backpressure;
+
+import com.hello.pgproxy.configuration.ConcurrencyProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BackpressureCircuitTest {
+    private static final long BASE_DELAY = 100L;
+
+    private BackpressureCircuit circuit;
+    private final AtomicInteger currentConcurrencyLimit = new AtomicInteger(40);
+
+    @BeforeEach
+    void setUp() {
+        final ConcurrencyProperties properties = new ConcurrencyProperties();
+        properties.getCircuit().setProbeThreshold(2);
+        properties.getCircuit().setBackoffMultiplier(2.0);
+        properties.getCircuit().setJitter(0.5);
+        properties.getCircuit().setMaxPause(1000L);
+        properties.getCircuit().setMaxRetryAfter(3000L);
+
+        circuit = new BackpressureCircuit(properties);
+    }
+
+    @Test
+    @DisplayName("First trip should pause within the jittered base delay and close again afterwards")
+    void trip_FirstTripShouldPauseAndClose() {
+        final long pause = circuit.trip(BASE_DELAY, 0);
+
+        assertTrue(pause >= BASE_DELAY / 2 && pause <= BASE_DELAY, "First pause should be jittered below the base delay: " + pause);
+        assertTrue(circuit.isOpen());
+        assertEquals(-1, circuit.trip(BASE_DELAY, 0), "Trips while open must not schedule another pause.");
+
+        circuit.onPauseElapsed(currentConcurrencyLimit);
+
+        assertTrue(circuit.isClosed());
+        assertEquals(40, currentConcurrencyLimit.get(), "A single trip should not cut the limit.");
+    }
+
+    @Test
+    @DisplayName("Consecutive trips should grow the pause exponentially up to the max pause")
+    void trip_ShouldBackOffExponentially() {
+        long previousUpperBound = 0;
+        for (int trip = 1; trip <= 6; trip++) {
+            final long pause = circuit.trip(BASE_DELAY, 0);
+            final long upperBound = Math.min(1000L, BASE_DELAY << (trip - 1));
+
+            assertTrue(pause >= upperBound / 2 && pause <= upperBound, "Trip " + trip + " paused " + pause);
+            assertTrue(upperBound >= previousUpperBound);
+            previousUpperBound = upperBound;
+
+            circuit.onPauseElapsed(currentConcurrencyLimit);
+        }
+    }
+
+    @Test
+    @DisplayName("Retry-After should extend the pause but stay within its cap")
+    void trip_ShouldHonourRetryAfter() {
+        assertEquals(2000L, circuit.trip(BASE_DELAY, 2000L));
+
+        circuit.onPauseElapsed(currentConcurrencyLimit);
+        circuit.onSuccess(currentConcurrencyLimit);
+
+        assertEquals(3000L, circuit.trip(BASE_DELAY, 60_000L), "Retry-After must be capped.");
+    }
+
+    @Test
+    @DisplayName("Repeated trips should probe half-open with one slot and restore the limit gradually")
+    void halfOpen_ShouldProbeAndRestoreGradually() {
+        circuit.trip(BASE_DELAY, 0);
+        circuit.onPauseElapsed(currentConcurrencyLimit);
+        circuit.trip(BASE_DELAY, 0);
+        circuit.onPauseElapsed(currentConcurrencyLimit);
+
+        assertEquals(BackpressureCircuit.State.HALF_OPEN, circuit.getState());
+        assertEquals(1, currentConcurrencyLimit.get(), "Half-open should only let a single probe through.");
+
+        // Successful probes double the limit until the limit before the outage is reached
+        final int[] expected = {2, 4, 8, 16, 32, 40};
+        for (int limit : expected) {
+            assertFalse(circuit.onSuccess(currentConcurrencyLimit), "The handler must not scale while recovering.");
+            assertEquals(limit, currentConcurrencyLimit.get());
+        }
+
+        assertTrue(circuit.isClosed());
+        assertTrue(circuit.onSuccess(currentConcurrencyLimit), "The handler owns the limit again once closed.");
+    }
+
+    @Test
+    @DisplayName("Successes of calls dispatched before half-open should not restore the limit")
+    void halfOpen_ShouldIgnoreStaleSuccesses() {
+        // GIVEN: calls dispatched at the old limit are still in flight when the circuit goes half-open
+        final long beforeTrip = circuit.getDispatchEpoch();
+        circuit.trip(BASE_DELAY, 0);
+        circuit.onPauseElapsed(currentConcurrencyLimit);
+        circuit.trip(BASE_DELAY, 0);
+        circuit.onPauseElapsed(currentConcurrencyLimit);
+
+        // WHEN: they complete
+        for (int i = 0; i < 10; i++) {
+            assertFalse(circuit.onSuccess(currentConcurrencyLimit, beforeTrip));
+        }
+
+        // THEN: still probing with a single slot, until a probe of the new generation succeeds
+        assertEquals(BackpressureCircuit.State.HALF_OPEN, circuit.getState());
+        assertEquals(1, currentConcurrencyLimit.get());
+        circuit.onSuccess(currentConcurrencyLimit, circuit.getDispatchEpoch());
+        assertEquals(2, currentConcurrencyLimit.get());
+    }
+
+    @Test
+    @DisplayName("A failed probe should re-open with a longer pause and keep the recovery target")
+    void halfOpen_FailedProbeShouldReopen() {
+        circuit.trip(BASE_DELAY, 0);
+        circuit.onPauseElapsed(currentConcurrencyLimit);
+        circuit.trip(BASE_DELAY, 0);
+        circuit.onPauseElapsed(currentConcurrencyLimit);
+        circuit.onSuccess(currentConcurrencyLimit);
+
+        final long pause = circuit.trip(BASE_DELAY, 0);
+
+        assertTrue(circuit.isOpen());
+        assertTrue(pause >= 200L && pause <= 400L, "Third trip should pause within [200, 400]: " + pause);
+
+        circuit.onPauseElapsed(currentConcurrencyLimit);
+        assertEquals(1, currentConcurrencyLimit.get());
+        for (int i = 0; i < 6; i++) {
+            circuit.onSuccess(currentConcurrencyLimit);
+        }
+        assertEquals(40, currentConcurrencyLimit.get(), "Recovery should still target the limit before the outage.");
+    }
+}
@@ -7,9 +7,14 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
-import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -32,10 +37,9 @@ public class BackpressureIntervalControlTest {
     @DisplayName("Should return TRUE when the required time interval has fully passed")
     void shouldReturnTrueWhenTimeIntervalHasPassed() throws InterruptedException {
         // GIVEN: Set the timestamp far enough in the past to ensure the interval passes.
-        Instant past = Instant.now().minusMillis(SHORT_INTERVAL_MS + 50);
-        ReflectionTestUtils.setField(control, "concurrencyChangeTimestamp", past);
+        moveLastChangeIntoPast(SHORT_INTERVAL_MS + 50);
 
-        // Wait a short duration to ensure Instant.now() is definitely after the target time.
+        // Wait a short duration to ensure System.nanoTime() is definitely after the target time.
         TimeUnit.MILLISECONDS.sleep(20);
 
         // WHEN
@@ -48,7 +52,7 @@ public class BackpressureIntervalControlTest {
     @Test
     @DisplayName("Should return FALSE when the required time interval has NOT passed")
     void shouldReturnFalseWhenTimeIntervalHasNotPassed() {
-        // GIVEN: Timestamp is reset to Instant.now() in setUp(), making it immediately recent.
+        // GIVEN: Timestamp is reset to the current time in setUp(), making it immediately recent.
 
         // WHEN
         // Check against a long interval right after reset.
@@ -61,7 +65,7 @@ public class BackpressureIntervalControlTest {
     @Test
     @DisplayName("Should return FALSE when the time is exWHENly equal to the target time")
     void shouldReturnFalseWhenTimeIsExWHENlyEqualToTarget() {
-        // GIVEN: The logic uses `isAfter(targetTime)`, meaning equality should return false.
+        // GIVEN: The logic requires the elapsed time to be strictly greater, meaning equality should return false.
         // We simulate a scenario where the current time is exWHENly the target time by using a very small interval.
         long negligibleInterval = 1;
 
@@ -71,4 +75,54 @@ public class BackpressureIntervalControlTest {
         // THEN
         assertFalse(result, "The method should return false if the current time is not strictly after the target time.");
     }
+
+    @Test
+    @DisplayName("tryAcquireChange should fail before the interval and move the timestamp on success")
+    void tryAcquireChange_ShouldClaimOnlyAfterInterval() {
+        assertEquals(-1, control.tryAcquireChange(LONG_INTERVAL_MS), "The change must not be claimed before the interval.");
+
+        moveLastChangeIntoPast(SHORT_INTERVAL_MS + 50);
+
+        final long elapsed = control.tryAcquireChange(SHORT_INTERVAL_MS);
+        assertTrue(elapsed >= TimeUnit.MILLISECONDS.toNanos(SHORT_INTERVAL_MS + 50),
+                "The claim should report the time since the previous change, before moving it.");
+        assertEquals(-1, control.tryAcquireChange(SHORT_INTERVAL_MS), "A successful claim must restart the interval.");
+    }
+
+    @Test
+    @DisplayName("tryAcquireChange should elect exactly one winner among racing threads")
+    void tryAcquireChange_ShouldElectSingleWinner() throws InterruptedException {
+        final int THREADS = 32;
+        final AtomicInteger winners = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(THREADS);
+
+        moveLastChangeIntoPast(SHORT_INTERVAL_MS + 50);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+            for (int i = 0; i < THREADS; i++) {
+                executor.submit(() -> {
+                    try {
+                        start.await();
+                        if (control.tryAcquireChange(SHORT_INTERVAL_MS) >= 0) {
+                            winners.incrementAndGet();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            start.countDown();
+            done.await(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(1, winners.get(), "Only one thread may own a change window.");
+    }
+
+    private void moveLastChangeIntoPast(long millis) {
+        final AtomicLong lastChange = (AtomicLong) ReflectionTestUtils.getField(control, "concurrencyChangeNanos");
+        lastChange.set(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(millis));
+    }
 }
@@ -0,0 +1,85 @@
+package com.hello.pgproxy.service.backpressure;
+
+import com.hello.pgproxy.model.BackendExecutionStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BackpressureSignalRecorderTest {
+    private BackpressureSignalRecorder recorder;
+
+    @BeforeEach
+    void setUp() {
+        recorder = new BackpressureSignalRecorder();
+    }
+
+    @Test
+    @DisplayName("Snapshot should aggregate outcomes, latency and in-flight count")
+    void snapshot_ShouldAggregateRecordedSignals() {
+        // GIVEN: 3 dispatched, 2 successes (10ms, 30ms), 1 backpressure, 1 still in flight
+        recorder.setInFlightSource(() -> 1);
+        recorder.recordCompletion(BackendExecutionStatus.COMPLETED, TimeUnit.MILLISECONDS.toNanos(10), 100L);
+        recorder.recordCompletion(BackendExecutionStatus.COMPLETED, TimeUnit.MILLISECONDS.toNanos(30), 100L);
+        recorder.recordCompletion(BackendExecutionStatus.BACKPRESSURE_CONTROL_NEEDED, TimeUnit.MILLISECONDS.toNanos(1), 100L);
+
+        // WHEN
+        final BackpressureSignals signals = recorder.snapshot(64, 100, 0.95, 7, 1_000L);
+
+        // THEN
+        assertEquals(64, signals.getConcurrencyLimit());
+        assertEquals(100, signals.getMaxConcurrency());
+        assertEquals(7, signals.getQueueDepth());
+        assertEquals(1, signals.getInFlight());
+        assertEquals(2, signals.getSuccessCount());
+        assertEquals(1, signals.getBackpressureCount());
+        assertEquals(0, signals.getErrorCount());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(20), signals.getAverageLatencyNanos(), "Only successful calls count for latency.");
+        assertEquals(2.0 / 3, signals.getSuccessRate(), 1e-9);
+        assertEquals(1_000L, signals.getNanosSinceLastChange());
+        assertEquals(0.95, signals.getScaleDownFactor());
+    }
+
+    @Test
+    @DisplayName("Completed and timed out amounts should accumulate regardless of snapshots")
+    void amounts_ShouldAccumulate() {
+        recorder.recordCompletion(BackendExecutionStatus.COMPLETED, 100L, 1_000L);
+        recorder.recordCompletion(BackendExecutionStatus.BACKPRESSURE_CONTROL_NEEDED, 100L, 5_000L);
+        recorder.snapshot(10, 100, 0.95, 0, 0L);
+        recorder.recordCompletion(BackendExecutionStatus.COMPLETED, 100L, 2_000L);
+        recorder.recordTimeout(700L);
+
+        assertEquals(2, recorder.getCompletedCount());
+        assertEquals(3_000L, recorder.getCompletedAmountCents(), "Only completed payments count as revenue.");
+        assertEquals(700L, recorder.getTimedOutAmountCents());
+    }
+
+    @Test
+    @DisplayName("Snapshot should only report outcomes recorded since the previous snapshot")
+    void snapshot_ShouldReportWindowDeltas() {
+        recorder.recordCompletion(BackendExecutionStatus.COMPLETED, 100L, 100L);
+        recorder.recordCompletion(BackendExecutionStatus.ERROR, 100L, 100L);
+        recorder.snapshot(10, 100, 0.95, 0, 0L);
+
+        recorder.recordCompletion(BackendExecutionStatus.COMPLETED, 300L, 100L);
+
+        final BackpressureSignals signals = recorder.snapshot(10, 100, 0.95, 0, 0L);
+
+        assertEquals(1, signals.getSuccessCount());
+        assertEquals(0, signals.getErrorCount());
+        assertEquals(300L, signals.getAverageLatencyNanos());
+    }
+
+    @Test
+    @DisplayName("Empty window should report full success rate and zero latency")
+    void snapshot_EmptyWindow() {
+        final BackpressureSignals signals = recorder.snapshot(10, 100, 0.95, 0, 0L);
+
+        assertEquals(0, signals.getSampleCount());
+        assertEquals(1.0, signals.getSuccessRate());
+        assertEquals(0L, signals.getAverageLatencyNanos());
+    }
+}
@@ -0,0 +1,119 @@
+package com.hello.pgproxy.service.backpressure;
+
+import com.hello.pgproxy.configuration.ConcurrencyProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LimiterSnapshotStoreTest {
+    @TempDir
+    Path directory;
+
+    private ConcurrencyProperties properties;
+    private Path path;
+
+    @BeforeEach
+    void setUp() {
+        path = directory.resolve("snapshot/limiter.properties");
+        properties = new ConcurrencyProperties();
+        properties.getSnapshot().setEnabled(true);
+        properties.getSnapshot().setPath(path.toString());
+        properties.getSnapshot().setDiscount(0.8);
+        properties.getSnapshot().setMaxAge(TimeUnit.MINUTES.toMillis(10));
+    }
+
+    private static LimiterSnapshot snapshot(long savedAtMillis, double backpressureRate) {
+        return LimiterSnapshot.builder()
+                .handlerName("slow-start")
+                .concurrencyLimit(1000)
+                .lastKnownGoodConcurrency(1200)
+                .baselineLatencyNanos(5_000_000L)
+                .backpressureRate(backpressureRate)
+                .savedAtMillis(savedAtMillis)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Saved snapshot should load back with the limit discounted")
+    void shouldRoundTripWithDiscount() throws IOException {
+        // GIVEN
+        final LimiterSnapshotStore store = new LimiterSnapshotStore(properties);
+        store.save(snapshot(System.currentTimeMillis(), 0));
+
+        // WHEN
+        final LimiterSnapshot loaded = store.loadForWarmStart().orElseThrow();
+
+        // THEN
+        assertEquals(800, loaded.getConcurrencyLimit());
+        assertEquals(1200, loaded.getLastKnownGoodConcurrency(), "Only the starting limit is discounted.");
+        assertEquals(5_000_000L, loaded.getBaselineLatencyNanos());
+        assertEquals("slow-start", loaded.getHandlerName());
+        assertFalse(Files.exists(path.resolveSibling("limiter.properties.tmp")));
+    }
+
+    @Test
+    @DisplayName("A high 503 rate before the restart should discount the limit further")
+    void shouldDiscountByBackpressureRate() throws IOException {
+        // GIVEN
+        final LimiterSnapshotStore store = new LimiterSnapshotStore(properties);
+        store.save(snapshot(System.currentTimeMillis(), 0.25));
+
+        // WHEN & THEN: 1000 * 0.8 * 0.75
+        assertEquals(600, store.loadForWarmStart().orElseThrow().getConcurrencyLimit());
+    }
+
+    @Test
+    @DisplayName("Snapshots older than the cutoff should be ignored")
+    void shouldIgnoreStaleSnapshot() throws IOException {
+        // GIVEN
+        final LimiterSnapshotStore store = new LimiterSnapshotStore(properties);
+        store.save(snapshot(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(11), 0));
+
+        // WHEN & THEN
+        assertTrue(store.loadForWarmStart().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Missing, corrupted or disabled snapshots should fall back to a cold start")
+    void shouldColdStartWithoutUsableSnapshot() throws IOException {
+        // Missing
+        assertTrue(new LimiterSnapshotStore(properties).loadForWarmStart().isEmpty());
+
+        // Corrupted
+        Files.createDirectories(path.getParent());
+        Files.writeString(path, "concurrency-limit=lots\n");
+        assertTrue(new LimiterSnapshotStore(properties).loadForWarmStart().isEmpty());
+
+        // Disabled
+        new LimiterSnapshotStore(properties).save(snapshot(System.currentTimeMillis(), 0));
+        properties.getSnapshot().setEnabled(false);
+        assertTrue(new LimiterSnapshotStore(properties).loadForWarmStart().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Snapshots should be off by default and need an explicit path once enabled")
+    void shouldRequireExplicitPath() {
+        // GIVEN
+        final ConcurrencyProperties defaults = new ConcurrencyProperties();
+
+        // WHEN & THEN: nothing is read from the working directory by default
+        final LimiterSnapshotStore store = new LimiterSnapshotStore(defaults);
+        assertFalse(store.isEnabled());
+        assertTrue(store.loadForWarmStart().isEmpty());
+
+        // WHEN & THEN
+        defaults.getSnapshot().setEnabled(true);
+        assertThrows(IllegalArgumentException.class, () -> new LimiterSnapshotStore(defaults));
+    }
+}
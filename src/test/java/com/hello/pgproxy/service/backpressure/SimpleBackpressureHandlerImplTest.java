@@ -1,21 +1,15 @@
 package com.hello.pgproxy.service.backpressure;
 
-import com.hello.pgproxy.configuration.ConcurrencyProperties;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
-import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 public class SimpleBackpressureHandlerImplTest {
-    @Mock
-    private ConcurrencyProperties concurrencyProperties;
-
     @InjectMocks
     private SimpleBackpressureHandlerImpl handler;
 
@@ -35,7 +29,7 @@ public class SimpleBackpressureHandlerImplTest {
         int currentConcurrency = 50;
         int expected = 47;
 
-        int result = handler.getScaleDownConcurrency(currentConcurrency);
+        int result = handler.getScaleDownConcurrency(signalsOf(currentConcurrency));
 
         assertEquals(expected, result, "The concurrency should be reduced by 5% (50 -> 47).");
     }
@@ -47,23 +41,33 @@ public class SimpleBackpressureHandlerImplTest {
         int currentConcurrency = 1;
         int expected = 1;
 
-        int result = handler.getScaleDownConcurrency(currentConcurrency);
+        int result = handler.getScaleDownConcurrency(signalsOf(currentConcurrency));
 
         assertEquals(expected, result, "The concurrency should not go below 1.");
     }
 
+    @Test
+    @DisplayName("Scale down should apply the configured factor")
+    void getScaleDownConcurrency_shouldApplyConfiguredFactor() {
+        BackpressureSignals signals = BackpressureSignals.builder()
+                .concurrencyLimit(50)
+                .maxConcurrency(MAX_CONCURRENCY)
+                .scaleDownFactor(0.8)
+                .build();
+
+        assertEquals(40, handler.getScaleDownConcurrency(signals), "The concurrency should be reduced by 20% (50 -> 40).");
+    }
+
     // --- Scale Up Tests ---
 
     @Test
     @DisplayName("Scale up should increase concurrency by exactly 1")
     void getScaleUpConcurrency_shouldIncreaseByOne() {
-        setupMaxConcurrency();
-
         int initialConcurrency = 50;
 
         // Expected increase: 50 + 1 = 51 (since 51 < MAX_CONCURRENCY)
         int expected = 51;
-        int actual = handler.getScaleUpConcurrency(initialConcurrency);
+        int actual = handler.getScaleUpConcurrency(signalsOf(initialConcurrency));
 
         // Verify the step-by-step increase mechanism
         assertEquals(expected, actual, "Scale up should increase the limit by 1.");
@@ -72,10 +76,8 @@ public class SimpleBackpressureHandlerImplTest {
     @Test
     @DisplayName("Scale up should be capped by the maximum limit")
     void getScaleUpConcurrency_shouldNotExceedMax() {
-        setupMaxConcurrency();
-
         // Expected: min(100 + 1, 100) = 100. It should be capped at the max.
-        int actual = handler.getScaleUpConcurrency(MAX_CONCURRENCY);
+        int actual = handler.getScaleUpConcurrency(signalsOf(MAX_CONCURRENCY));
 
         // Verify the limit cap
         assertEquals(MAX_CONCURRENCY, actual, "Scale up must not exceed the defined MAX concurrency limit.");
@@ -84,19 +86,20 @@ public class SimpleBackpressureHandlerImplTest {
     @Test
     @DisplayName("Scale up near max should be capped")
     void getScaleUpConcurrency_shouldBeCappedWhenNearMax() {
-        setupMaxConcurrency();
-
         int initialConcurrency = MAX_CONCURRENCY - 1; // Start at 99
 
         // Expected: min(99 + 1, 100) = 100.
-        int actual = handler.getScaleUpConcurrency(initialConcurrency);
+        int actual = handler.getScaleUpConcurrency(signalsOf(initialConcurrency));
 
         // Verify that it hits the maximum limit exactly
         assertEquals(MAX_CONCURRENCY, actual, "Scale up should reach the MAX limit but not exceed it.");
     }
 
-    private void setupMaxConcurrency() {
-        // Define the max concurrency limit for the mocked properties
-        when(concurrencyProperties.getMax()).thenReturn(MAX_CONCURRENCY);
+    private BackpressureSignals signalsOf(int concurrency) {
+        // Define the max concurrency limit carried by the sampled signals
+        return BackpressureSignals.builder()
+                .concurrencyLimit(concurrency)
+                .maxConcurrency(MAX_CONCURRENCY)
+                .build();
     }
 }
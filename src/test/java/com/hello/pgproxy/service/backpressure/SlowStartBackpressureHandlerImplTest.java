@@ -0,0 +1,123 @@
+package com.hello.pgproxy.service.backpressure;
+
+import com.hello.pgproxy.configuration.ConcurrencyProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlowStartBackpressureHandlerImplTest {
+    private static final int MAX_CONCURRENCY = 10_000;
+    private static final long BASE_LATENCY = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private SlowStartBackpressureHandlerImpl handler;
+
+    @BeforeEach
+    void setUp() {
+        handler = new SlowStartBackpressureHandlerImpl(new ConcurrencyProperties());
+    }
+
+    @Test
+    @DisplayName("Handler name should be 'slow-start'")
+    void getHandlerName_shouldReturnSlowStart() {
+        assertEquals("slow-start", handler.getHandlerName());
+    }
+
+    @Test
+    @DisplayName("Slow start should double the limit per step up to the max")
+    void slowStart_ShouldGrowExponentially() {
+        int concurrency = 64;
+        for (int step = 0; step < 5; step++) {
+            concurrency = handler.getScaleUpConcurrency(busyWindow(concurrency, BASE_LATENCY));
+        }
+
+        // 64 -> 2048 in five steps instead of ~2000 linear ones
+        assertEquals(2048, concurrency);
+        assertEquals(SlowStartBackpressureHandlerImpl.Phase.SLOW_START, handler.getPhase());
+        assertEquals(MAX_CONCURRENCY, handler.getScaleUpConcurrency(busyWindow(8_000, BASE_LATENCY)), "Growth must be capped at max.");
+    }
+
+    @Test
+    @DisplayName("Latency inflection should end slow start and switch to additive growth")
+    void slowStart_ShouldStopOnLatencyInflection() {
+        assertEquals(128, handler.getScaleUpConcurrency(busyWindow(64, BASE_LATENCY)));
+
+        // Latency doubles against the baseline: hold and leave slow start
+        assertEquals(128, handler.getScaleUpConcurrency(busyWindow(128, BASE_LATENCY * 2)));
+        assertEquals(SlowStartBackpressureHandlerImpl.Phase.CONGESTION_AVOIDANCE, handler.getPhase());
+
+        assertEquals(129, handler.getScaleUpConcurrency(busyWindow(128, BASE_LATENCY)));
+    }
+
+    @Test
+    @DisplayName("After a drop the limit should recover quickly towards the last known good limit")
+    void fastRecovery_ShouldCloseGapToLastKnownGood() {
+        handler.getScaleUpConcurrency(busyWindow(1000, BASE_LATENCY));
+
+        // Overload at 1001 after a clean window at 1000
+        final int dropped = handler.getScaleDownConcurrency(busyWindow(1001, BASE_LATENCY));
+        assertEquals(700, dropped);
+        assertEquals(SlowStartBackpressureHandlerImpl.Phase.FAST_RECOVERY, handler.getPhase());
+
+        int concurrency = dropped;
+        for (int step = 0; step < 3; step++) {
+            concurrency = handler.getScaleUpConcurrency(busyWindow(concurrency, BASE_LATENCY));
+        }
+        assertTrue(concurrency >= 950, "Three recovery steps should close most of the 300 gap, got " + concurrency);
+
+        for (int step = 0; step < 10; step++) {
+            concurrency = handler.getScaleUpConcurrency(busyWindow(concurrency, BASE_LATENCY));
+        }
+        assertEquals(SlowStartBackpressureHandlerImpl.Phase.CONGESTION_AVOIDANCE, handler.getPhase());
+
+        // Beyond the last known good limit growth is additive again
+        assertEquals(concurrency + 1, handler.getScaleUpConcurrency(busyWindow(concurrency, BASE_LATENCY)));
+    }
+
+    @Test
+    @DisplayName("Limit should not grow when the proxy is not using its slots")
+    void scaleUp_ShouldHoldWhenApplicationLimited() {
+        final BackpressureSignals idle = BackpressureSignals.builder()
+                .concurrencyLimit(64)
+                .maxConcurrency(MAX_CONCURRENCY)
+                .inFlight(3)
+                .queueDepth(0)
+                .successCount(3)
+                .averageLatencyNanos(BASE_LATENCY)
+                .build();
+
+        assertEquals(64, handler.getScaleUpConcurrency(idle));
+    }
+
+    @Test
+    @DisplayName("Restored state should resume in fast recovery towards the persisted last known good limit")
+    void restore_ShouldResumeFastRecovery() {
+        handler.restore(LimiterSnapshot.builder()
+                .handlerName("slow-start")
+                .concurrencyLimit(800)
+                .lastKnownGoodConcurrency(1000)
+                .baselineLatencyNanos(BASE_LATENCY)
+                .build());
+
+        assertEquals(SlowStartBackpressureHandlerImpl.Phase.FAST_RECOVERY, handler.getPhase());
+        assertEquals(BASE_LATENCY, handler.getBaselineLatencyNanos());
+        assertEquals(900, handler.getScaleUpConcurrency(busyWindow(800, BASE_LATENCY)));
+        // The persisted baseline still detects inflation right away
+        assertEquals(900, handler.getScaleUpConcurrency(busyWindow(900, BASE_LATENCY * 3)));
+    }
+
+    private BackpressureSignals busyWindow(int concurrency, long averageLatencyNanos) {
+        return BackpressureSignals.builder()
+                .concurrencyLimit(concurrency)
+                .maxConcurrency(MAX_CONCURRENCY)
+                .inFlight(concurrency)
+                .queueDepth(100)
+                .successCount(concurrency)
+                .averageLatencyNanos(averageLatencyNanos)
+                .build();
+    }
+}
@@ -0,0 +1,126 @@
+package com.hello.pgproxy.service.cluster;
+
+import com.hello.pgproxy.configuration.ClusterProperties;
+import com.hello.pgproxy.model.BackendExecutionStatus;
+import com.hello.pgproxy.service.PaymentFlowManager;
+import com.hello.pgproxy.service.backpressure.BackpressureSignalRecorder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("ClusterCoordinator with several instances on localhost")
+class ClusterCoordinatorTest {
+    private static final int INSTANCES = 3;
+    private static final int LIMIT = 60;
+
+    private final List<ClusterCoordinator> coordinators = new ArrayList<>();
+    private final List<ClusterConcurrencyShare> shares = new ArrayList<>();
+    private final List<BackpressureSignalRecorder> recorders = new ArrayList<>();
+    private final List<AtomicInteger> inFlight = new ArrayList<>();
+    private final List<ClusterProperties> properties = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        for (int i = 0; i < INSTANCES; i++) {
+            final ClusterProperties clusterProperties = new ClusterProperties();
+            clusterProperties.setPort(0);
+            clusterProperties.setGossipInterval(20);
+            clusterProperties.setPeerTimeout(1000);
+            properties.add(clusterProperties);
+
+            final PaymentFlowManager flowManager = mock(PaymentFlowManager.class);
+            when(flowManager.getCurrentConcurrencyLimit()).thenReturn(LIMIT);
+            final AtomicInteger active = new AtomicInteger();
+            when(flowManager.getActiveRequests()).thenAnswer(invocation -> active.get());
+            final BackpressureSignalRecorder recorder = new BackpressureSignalRecorder();
+            final ClusterConcurrencyShare share = new ClusterConcurrencyShare();
+
+            final ClusterCoordinator coordinator = new ClusterCoordinator(clusterProperties, flowManager, recorder, share);
+            coordinator.start();
+            coordinators.add(coordinator);
+            shares.add(share);
+            recorders.add(recorder);
+            inFlight.add(active);
+        }
+
+        // Full mesh over the ephemeral ports
+        for (ClusterCoordinator coordinator : coordinators) {
+            for (ClusterCoordinator peer : coordinators) {
+                if (peer != coordinator) {
+                    coordinator.addPeer(new InetSocketAddress("127.0.0.1", peer.getLocalPort()));
+                }
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (ClusterCoordinator coordinator : coordinators) {
+            coordinator.stop();
+        }
+    }
+
+    private static void await(BooleanSupplier condition, String message) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, message);
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+
+    @Test
+    @DisplayName("Instances should discover each other and each hold a fair fraction of the shared estimate")
+    void shouldShareCapacityFairly() throws InterruptedException {
+        // WHEN & THEN
+        await(() -> coordinators.stream().allMatch(c -> c.getMemberCount() == INSTANCES), "All instances should see each other.");
+        await(() -> coordinators.stream().allMatch(c -> c.getEstimate() > 0), "Every instance should hold an estimate.");
+
+        for (int i = 0; i < INSTANCES; i++) {
+            final int estimate = coordinators.get(i).getEstimate();
+            assertEquals((estimate + INSTANCES - 1) / INSTANCES, shares.get(i).getFairShare());
+        }
+    }
+
+    @Test
+    @DisplayName("Overload seen by one instance should cut the share of every instance")
+    void shouldPropagateOverload() throws InterruptedException {
+        // GIVEN: a converged cluster with 150 calls in flight, probing by single slots so the cut stays visible for a while
+        properties.forEach(clusterProperties -> clusterProperties.setIncreaseFactor(1.0));
+        await(() -> coordinators.stream().allMatch(c -> c.getMemberCount() == INSTANCES), "All instances should see each other.");
+        inFlight.forEach(active -> active.set(50));
+        await(() -> coordinators.stream().allMatch(c -> c.getEstimate() > 0), "Every instance should hold an estimate.");
+
+        // WHEN: only the first instance gets a 503
+        recorders.get(0).recordCompletion(BackendExecutionStatus.BACKPRESSURE_CONTROL_NEEDED, 1L, 100L);
+
+        // THEN: the estimate drops from the summed limits (180) to the in-flight level that overloaded the backend, cut by 10%
+        await(() -> shares.stream().allMatch(share -> share.getFairShare() <= 50),
+                "Every instance should shrink to its share of the cut estimate.");
+    }
+
+    @Test
+    @DisplayName("The estimate should grow multiplicatively while the cluster uses it without overload")
+    void shouldGrowMultiplicatively() throws InterruptedException {
+        // GIVEN: 1200 calls in flight against the summed limits of 180
+        await(() -> coordinators.stream().allMatch(c -> c.getMemberCount() == INSTANCES), "All instances should see each other.");
+        inFlight.forEach(active -> active.set(400));
+
+        // WHEN & THEN: a handful of rounds, where one slot per round would take hundreds
+        await(() -> coordinators.stream().allMatch(c -> c.getEstimate() >= 1000),
+                "The estimate should catch up with the in-flight level within a few rounds.");
+    }
+}
@@ -0,0 +1,201 @@
+package com.hello.pgproxy.service.idempotency;
+
+import com.hello.pgproxy.configuration.IdempotencyProperties;
+import com.hello.pgproxy.model.ClientRequest;
+import com.hello.pgproxy.model.PaymentDeadline;
+import com.hello.pgproxy.service.DeadlineScheduler;
+import com.hello.pgproxy.service.PriorityTaskQueueService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("IdempotencyGate coalescing and response cache")
+class IdempotencyGateTest {
+    @Mock
+    private PriorityTaskQueueService priorityTaskQueueService;
+
+    private final IdempotencyProperties idempotencyProperties = new IdempotencyProperties();
+    private final DeadlineScheduler deadlineScheduler = new DeadlineScheduler();
+    private IdempotencyGate idempotencyGate;
+
+    private static final UUID ID = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+    @BeforeEach
+    void setUp() {
+        idempotencyGate = new IdempotencyGate(priorityTaskQueueService, idempotencyProperties, deadlineScheduler);
+        idempotencyGate.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        deadlineScheduler.stop();
+    }
+
+    @Test
+    @DisplayName("A repeat of an in-flight payment should wait for the existing task instead of being queued again")
+    void shouldCoalesceInFlightRepeats() {
+        // GIVEN: the same payment submitted twice before it completes
+        final DeferredResult<ResponseEntity<?>> first = new DeferredResult<>();
+        final DeferredResult<ResponseEntity<?>> repeat = new DeferredResult<>();
+        idempotencyGate.enqueue(new ClientRequest(ID, 1000L), first, 0);
+        idempotencyGate.enqueue(new ClientRequest(ID, 1000L), repeat, 0);
+
+        // THEN: only one task is queued
+        final DeferredResult<ResponseEntity<?>> taskResponse = captureEnqueued(1);
+        assertNotSame(first, taskResponse);
+        assertFalse(repeat.hasResult());
+
+        // WHEN: the task completes
+        taskResponse.setResult(ResponseEntity.ok("Payment successful"));
+
+        // THEN: both clients get its response
+        assertEquals(ResponseEntity.ok("Payment successful"), first.getResult());
+        assertEquals(ResponseEntity.ok("Payment successful"), repeat.getResult());
+        assertEquals(0, idempotencyGate.getInFlightCount());
+    }
+
+    @Test
+    @DisplayName("A repeat of a completed payment should be answered from the cache")
+    void shouldAnswerCompletedRepeatFromCache() {
+        // GIVEN: a completed payment
+        idempotencyGate.enqueue(new ClientRequest(ID, 1000L), new DeferredResult<>(), 0);
+        captureEnqueued(1).setResult(ResponseEntity.ok("Payment successful"));
+
+        // WHEN
+        final DeferredResult<ResponseEntity<?>> repeat = new DeferredResult<>();
+        idempotencyGate.enqueue(new ClientRequest(ID, 1000L), repeat, 0);
+
+        // THEN: answered without a second task
+        assertEquals(ResponseEntity.ok("Payment successful"), repeat.getResult());
+        verify(priorityTaskQueueService, times(1)).enqueue(any(ClientRequest.class), any(), any(PaymentDeadline.class));
+    }
+
+    @Test
+    @DisplayName("An overload rejection should not be cached, so a retry is forwarded again")
+    void shouldNotCacheOverloadRejection() {
+        // GIVEN: a payment rejected with 503
+        idempotencyGate.enqueue(new ClientRequest(ID, 1000L), new DeferredResult<>(), 0);
+        captureEnqueued(1).setResult(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Backend Overloaded"));
+
+        // WHEN
+        idempotencyGate.enqueue(new ClientRequest(ID, 1000L), new DeferredResult<>(), 0);
+
+        // THEN
+        captureEnqueued(2);
+    }
+
+    @Test
+    @DisplayName("A repeat after the task's deadline should start a new task")
+    void shouldStartNewTaskAfterDeadline() throws InterruptedException {
+        // GIVEN: a task dropped at its deadline without a result
+        idempotencyGate.enqueue(new ClientRequest(ID, 1000L), new DeferredResult<>(), System.nanoTime() + 20_000_000L);
+        Thread.sleep(100);
+
+        // WHEN
+        idempotencyGate.enqueue(new ClientRequest(ID, 1000L), new DeferredResult<>(), 0);
+
+        // THEN
+        captureEnqueued(2);
+    }
+
+    @Test
+    @DisplayName("A repeat with a later deadline should extend the in-flight task's deadline")
+    void shouldExtendDeadlineForLaterRepeat() throws InterruptedException {
+        // GIVEN: a payment close to its deadline, repeated by a client willing to wait much longer
+        final long repeatDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        idempotencyGate.enqueue(new ClientRequest(ID, 1000L), new DeferredResult<>(), System.nanoTime() + 20_000_000L);
+        final DeferredResult<ResponseEntity<?>> repeat = new DeferredResult<>();
+        idempotencyGate.enqueue(new ClientRequest(ID, 1000L), repeat, repeatDeadline);
+
+        // WHEN: the first deadline passes
+        Thread.sleep(100);
+
+        // THEN: the task keeps the repeat's deadline and stays joinable
+        final ArgumentCaptor<PaymentDeadline> deadline = ArgumentCaptor.forClass(PaymentDeadline.class);
+        verify(priorityTaskQueueService).enqueue(any(ClientRequest.class), any(), deadline.capture());
+        assertEquals(repeatDeadline, deadline.getValue().getNanos());
+        assertTrue(deadline.getValue().getRemainingNanos(System.nanoTime()) > 0);
+        assertEquals(1, idempotencyGate.getInFlightCount());
+
+        // WHEN: the task completes
+        captureEnqueued(1).setResult(ResponseEntity.ok("Payment successful"));
+
+        // THEN
+        assertEquals(ResponseEntity.ok("Payment successful"), repeat.getResult());
+    }
+
+    @Test
+    @DisplayName("A repeat with an earlier deadline should not shorten the in-flight task's deadline")
+    void shouldKeepDeadlineForEarlierRepeat() {
+        // GIVEN
+        final long firstDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        idempotencyGate.enqueue(new ClientRequest(ID, 1000L), new DeferredResult<>(), firstDeadline);
+
+        // WHEN
+        idempotencyGate.enqueue(new ClientRequest(ID, 1000L), new DeferredResult<>(), System.nanoTime() + 20_000_000L);
+
+        // THEN
+        final ArgumentCaptor<PaymentDeadline> deadline = ArgumentCaptor.forClass(PaymentDeadline.class);
+        verify(priorityTaskQueueService).enqueue(any(ClientRequest.class), any(), deadline.capture());
+        assertEquals(firstDeadline, deadline.getValue().getNanos());
+    }
+
+    @Test
+    @DisplayName("A completed task should cancel its deadline timer")
+    void shouldCancelDeadlineOnCompletion() {
+        // GIVEN
+        idempotencyGate.enqueue(new ClientRequest(ID, 1000L), new DeferredResult<>(), System.nanoTime() + 60_000_000_000L);
+        assertEquals(1, deadlineScheduler.getPendingCount());
+
+        // WHEN
+        captureEnqueued(1).setResult(ResponseEntity.ok("Payment successful"));
+
+        // THEN
+        assertEquals(0, deadlineScheduler.getPendingCount());
+    }
+
+    @Test
+    @DisplayName("When disabled every request should be queued as is")
+    void shouldPassThroughWhenDisabled() {
+        // GIVEN
+        idempotencyProperties.setEnabled(false);
+        final DeferredResult<ResponseEntity<?>> first = new DeferredResult<>();
+
+        // WHEN
+        idempotencyGate.enqueue(new ClientRequest(ID, 1000L), first, 0);
+        idempotencyGate.enqueue(new ClientRequest(ID, 1000L), new DeferredResult<>(), 0);
+
+        // THEN
+        verify(priorityTaskQueueService).enqueue(any(ClientRequest.class), eq(first), any(PaymentDeadline.class));
+        captureEnqueued(2);
+    }
+
+    @SuppressWarnings("unchecked")
+    private DeferredResult<ResponseEntity<?>> captureEnqueued(int times) {
+        final ArgumentCaptor<DeferredResult<ResponseEntity<?>>> captor = ArgumentCaptor.forClass(DeferredResult.class);
+        verify(priorityTaskQueueService, times(times)).enqueue(any(ClientRequest.class), captor.capture(), any(PaymentDeadline.class));
+
+        return captor.getValue();
+    }
+}
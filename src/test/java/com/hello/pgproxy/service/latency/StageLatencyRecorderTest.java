@@ -0,0 +1,83 @@
+package com.hello.pgproxy.service.latency;
+
+import com.hello.pgproxy.model.BackendExecutionStatus;
+import com.hello.pgproxy.model.ClientRequest;
+import com.hello.pgproxy.model.PrioritizedTask;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StageLatencyRecorderTest {
+    private final StageLatencyRecorder stageLatencyRecorder = new StageLatencyRecorder();
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    @DisplayName("Each stage should be recorded from the task's timestamps in its amount band")
+    void shouldRecordStagesByBand() {
+        // GIVEN: 2ms verification backlog, 3ms verification, 10ms in the queue and a 40ms backend call
+        final PrioritizedTask task = task(5_000L, 1);
+
+        // WHEN
+        stageLatencyRecorder.record(task, BackendExecutionStatus.COMPLETED, 16 * MS, 56 * MS);
+
+        // THEN
+        final Map<String, Map<String, StageLatencyRecorder.StagePercentiles>> snapshot = stageLatencyRecorder.snapshot();
+        assertEquals(2.0, snapshot.get("verification_wait").get("1000-9999").p99(), 0.05);
+        assertEquals(3.0, snapshot.get("verification").get("1000-9999").p99(), 0.05);
+        assertEquals(10.0, snapshot.get("queue_wait").get("1000-9999").p99(), 0.1);
+        assertEquals(40.0, snapshot.get("backend").get("1000-9999").max(), 0.5);
+        assertFalse(snapshot.get("backend").containsKey("0-999"));
+    }
+
+    @Test
+    @DisplayName("A retried attempt should not record verification again and an expired task has no backend call")
+    void shouldRecordOnlyStagesOfTheAttempt() {
+        // GIVEN
+        final PrioritizedTask task = task(2_000_000L, 1);
+        stageLatencyRecorder.record(task, BackendExecutionStatus.BACKPRESSURE_CONTROL_NEEDED, 16 * MS, 20 * MS);
+        task.setQueuedNanos(25 * MS);
+
+        // WHEN: the retry expires in the queue
+        stageLatencyRecorder.record(task, BackendExecutionStatus.DEADLINE_EXCEEDED, 30 * MS, 30 * MS);
+
+        // THEN
+        final Map<String, Map<String, StageLatencyRecorder.StagePercentiles>> snapshot = stageLatencyRecorder.snapshot();
+        assertEquals(1, snapshot.get("verification").get("1000000+").count());
+        assertEquals(2, snapshot.get("queue_wait").get("1000000+").count());
+        assertEquals(1, snapshot.get("backend").get("1000000+").count());
+    }
+
+    @Test
+    @DisplayName("Snapshots should accumulate until a reset starts a new interval")
+    void shouldAccumulateUntilReset() {
+        // GIVEN
+        stageLatencyRecorder.record(task(500L, 1), BackendExecutionStatus.COMPLETED, 16 * MS, 20 * MS);
+        stageLatencyRecorder.snapshot();
+        stageLatencyRecorder.record(task(500L, 1), BackendExecutionStatus.COMPLETED, 16 * MS, 20 * MS);
+
+        // WHEN
+        final var ended = stageLatencyRecorder.reset();
+
+        // THEN
+        assertEquals(2, ended.get("backend").get("0-999").count());
+        assertTrue(stageLatencyRecorder.snapshot().get("backend").isEmpty());
+    }
+
+    private static PrioritizedTask task(long amountCents, long admittedAtMillis) {
+        return PrioritizedTask.builder()
+                .request(new ClientRequest(UUID.randomUUID(), amountCents))
+                .admittedNanos(admittedAtMillis * MS)
+                .verificationStartedNanos((admittedAtMillis + 2) * MS)
+                .verifiedNanos((admittedAtMillis + 5) * MS)
+                .queuedNanos((admittedAtMillis + 5) * MS)
+                .build();
+    }
+}
@@ -0,0 +1,75 @@
+package com.hello.pgproxy.service.retry;
+
+import com.hello.pgproxy.configuration.ConcurrencyProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryBudgetTest {
+    private ConcurrencyProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ConcurrencyProperties();
+        properties.getRetry().setBudgetRatio(0.1);
+        properties.getRetry().setBudgetMax(5);
+        properties.getRetry().setBudgetInitial(2);
+    }
+
+    @Test
+    @DisplayName("Without successes only the initial tokens can be spent")
+    void shouldBoundRetriesUnderSustainedOverload() {
+        // GIVEN
+        final RetryBudget budget = new RetryBudget(properties);
+
+        // WHEN
+        int granted = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (budget.tryAcquire()) {
+                granted++;
+            }
+        }
+
+        // THEN
+        assertEquals(2, granted);
+        assertFalse(budget.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("Every ten successes should earn one retry")
+    void shouldEarnTokensFromSuccesses() {
+        // GIVEN
+        properties.getRetry().setBudgetInitial(0);
+        final RetryBudget budget = new RetryBudget(properties);
+
+        // WHEN
+        for (int i = 0; i < 9; i++) {
+            budget.deposit();
+        }
+
+        // THEN
+        assertFalse(budget.tryAcquire());
+        budget.deposit();
+        assertTrue(budget.tryAcquire());
+        assertFalse(budget.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("Tokens should be capped at the configured maximum")
+    void shouldCapTokens() {
+        // GIVEN
+        final RetryBudget budget = new RetryBudget(properties);
+
+        // WHEN
+        for (int i = 0; i < 10_000; i++) {
+            budget.deposit();
+        }
+
+        // THEN
+        assertEquals(5.0, budget.getAvailableTokens());
+    }
+}
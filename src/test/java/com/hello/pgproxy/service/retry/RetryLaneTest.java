@@ -0,0 +1,100 @@
+package com.hello.pgproxy.service.retry;
+
+import com.hello.pgproxy.configuration.ConcurrencyProperties;
+import com.hello.pgproxy.model.ClientRequest;
+import com.hello.pgproxy.model.PrioritizedTask;
+import com.hello.pgproxy.service.PriorityTaskQueueService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class RetryLaneTest {
+    private ConcurrencyProperties properties;
+    private PriorityTaskQueueService priorityTaskQueueService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ConcurrencyProperties();
+        properties.getRetry().setMaxAttempts(3);
+        properties.getRetry().setBaseBackoff(10);
+        properties.getRetry().setMaxBackoff(50);
+        properties.getRetry().setBudgetInitial(10);
+        priorityTaskQueueService = mock(PriorityTaskQueueService.class);
+    }
+
+    private RetryLane lane() {
+        return new RetryLane(properties, priorityTaskQueueService, new RetryBudget(properties));
+    }
+
+    private static PrioritizedTask task() {
+        return PrioritizedTask.builder()
+                .request(new ClientRequest(UUID.randomUUID(), 1_000L))
+                .deferredResponse(new DeferredResult<>())
+                .build();
+    }
+
+    @Test
+    @DisplayName("A failed task should re-enter the queue after a backoff")
+    void shouldRequeueAfterBackoff() {
+        // GIVEN
+        final PrioritizedTask task = task();
+
+        // WHEN
+        final boolean retried = lane().retry(task);
+
+        // THEN
+        assertTrue(retried);
+        assertEquals(1, task.getAttempts());
+        verify(priorityTaskQueueService, timeout(1000)).requeue(task);
+        assertFalse(task.getDeferredResponse().hasResult());
+    }
+
+    @Test
+    @DisplayName("A task out of attempts should be answered with 503")
+    void shouldRejectAfterMaxAttempts() {
+        // GIVEN
+        final RetryLane lane = lane();
+        final PrioritizedTask task = task();
+        task.setAttempts(2);
+        task.setRetryAfterMillis(1500);
+
+        // WHEN
+        final boolean retried = lane.retry(task);
+
+        // THEN
+        assertFalse(retried);
+        final ResponseEntity<?> response = (ResponseEntity<?>) task.getDeferredResponse().getResult();
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("2", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        verify(priorityTaskQueueService, never()).requeue(task);
+    }
+
+    @Test
+    @DisplayName("An exhausted budget should reject instead of retrying")
+    void shouldRejectWithoutBudget() {
+        // GIVEN
+        properties.getRetry().setBudgetInitial(0);
+        final PrioritizedTask task = task();
+
+        // WHEN
+        final boolean retried = lane().retry(task);
+
+        // THEN
+        assertFalse(retried);
+        assertTrue(task.getDeferredResponse().hasResult());
+    }
+}
@@ -0,0 +1,200 @@
+package com.hello.pgproxy.service.tcp;
+
+import com.hello.pgproxy.configuration.TcpIngressProperties;
+import com.hello.pgproxy.model.ClientRequest;
+import com.hello.pgproxy.service.PaymentSubmitter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+@DisplayName("TcpIngressServer over a localhost socket")
+class TcpIngressServerTest {
+    private static final long REJECTED_AMOUNT = 13L;
+
+    private final Map<UUID, Consumer<ResponseEntity<?>>> pending = new ConcurrentHashMap<>();
+
+    private TcpIngressServer server;
+    private SocketChannel client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        final TcpIngressProperties properties = new TcpIngressProperties();
+        properties.setPort(0);
+        properties.setMaxInFlightPerConnection(2);
+
+        // Results are held back so the test decides the completion order
+        final PaymentSubmitter paymentSubmitter = mock(PaymentSubmitter.class);
+        doAnswer(invocation -> {
+            final ClientRequest request = invocation.getArgument(0);
+            if (request.getAmount_cents() == REJECTED_AMOUNT) {
+                throw new RejectedExecutionException("Shutting down");
+            }
+            pending.put(request.getId(), invocation.getArgument(1));
+            return null;
+        }).when(paymentSubmitter).submit(any(), any());
+
+        server = new TcpIngressServer(properties, paymentSubmitter);
+        server.start();
+        client = SocketChannel.open(new InetSocketAddress("127.0.0.1", server.getLocalPort()));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        client.close();
+        server.stop();
+    }
+
+    @Test
+    @DisplayName("Pipelined requests should be answered in completion order with their correlation ids")
+    void shouldAnswerPipelinedRequestsOutOfOrder() throws Exception {
+        // GIVEN: two requests written back to back in one packet
+        final UUID first = UUID.randomUUID();
+        final UUID second = UUID.randomUUID();
+        final ByteBuffer frames = ByteBuffer.allocate(2 * (TcpFrame.LENGTH_PREFIX + TcpFrame.REQUEST_LENGTH));
+        putRequest(frames, 1L, first, 1000L);
+        putRequest(frames, 2L, second, 500L);
+        client.write(frames.flip());
+
+        awaitSubmitted(2);
+        assertEquals(2, pending.size());
+
+        // WHEN: the second one completes first
+        pending.get(second).accept(ResponseEntity.ok("second"));
+        pending.get(first).accept(ResponseEntity.status(HttpStatus.REQUEST_TIMEOUT).body("Request Timeout"));
+
+        // THEN: responses come back in that order, matched by correlation id
+        assertResponse(2L, 200, "second");
+        assertResponse(1L, 408, "Request Timeout");
+    }
+
+    @Test
+    @DisplayName("A frame split across packets should be decoded once complete")
+    void shouldReassembleSplitFrame() throws Exception {
+        // GIVEN
+        final UUID id = UUID.randomUUID();
+        final ByteBuffer frame = ByteBuffer.allocate(TcpFrame.LENGTH_PREFIX + TcpFrame.REQUEST_LENGTH);
+        putRequest(frame, 7L, id, 42L);
+        frame.flip();
+
+        // WHEN: written in two parts
+        client.write(frame.slice(0, 10));
+        Thread.sleep(50);
+        assertTrue(pending.isEmpty());
+        client.write(frame.slice(10, frame.remaining() - 10));
+
+        // THEN
+        awaitSubmitted(1);
+        pending.get(id).accept(ResponseEntity.ok("done"));
+        assertResponse(7L, 200, "done");
+    }
+
+    @Test
+    @DisplayName("Frames past the in-flight cap should wait in the buffer until a response frees a slot")
+    void shouldCapInFlightPerFrame() throws Exception {
+        // GIVEN: three requests in one packet with a cap of two
+        final UUID first = UUID.randomUUID();
+        final UUID third = UUID.randomUUID();
+        final ByteBuffer frames = ByteBuffer.allocate(3 * (TcpFrame.LENGTH_PREFIX + TcpFrame.REQUEST_LENGTH));
+        putRequest(frames, 1L, first, 100L);
+        putRequest(frames, 2L, UUID.randomUUID(), 200L);
+        putRequest(frames, 3L, third, 300L);
+        client.write(frames.flip());
+
+        awaitSubmitted(2);
+        Thread.sleep(50);
+        assertEquals(2, pending.size());
+
+        // WHEN
+        pending.get(first).accept(ResponseEntity.ok("first"));
+
+        // THEN: the buffered third one goes without the client sending anything more
+        assertResponse(1L, 200, "first");
+        awaitSubmitted(3);
+        assertTrue(pending.containsKey(third));
+    }
+
+    @Test
+    @DisplayName("A failing submission should close only its own connection")
+    void shouldCloseOnlyFailingConnection() throws Exception {
+        // GIVEN
+        final ByteBuffer frame = ByteBuffer.allocate(TcpFrame.LENGTH_PREFIX + TcpFrame.REQUEST_LENGTH);
+        putRequest(frame, 1L, UUID.randomUUID(), REJECTED_AMOUNT);
+
+        // WHEN
+        client.write(frame.flip());
+
+        // THEN
+        assertThrows(IOException.class, () -> readFully(1));
+
+        // WHEN: another client connects afterwards
+        client.close();
+        client = SocketChannel.open(new InetSocketAddress("127.0.0.1", server.getLocalPort()));
+        final UUID id = UUID.randomUUID();
+        putRequest(frame.clear(), 2L, id, 42L);
+        client.write(frame.flip());
+
+        // THEN
+        awaitSubmitted(1);
+        pending.get(id).accept(ResponseEntity.ok("done"));
+        assertResponse(2L, 200, "done");
+    }
+
+    private static void putRequest(ByteBuffer buffer, long correlationId, UUID id, long amountCents) {
+        buffer.putInt(TcpFrame.REQUEST_LENGTH)
+                .putLong(correlationId)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .putLong(amountCents);
+    }
+
+    private void awaitSubmitted(int count) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (pending.size() < count) {
+            assertTrue(System.currentTimeMillis() < deadline, "Requests were not submitted");
+            Thread.sleep(10);
+        }
+    }
+
+    private void assertResponse(long correlationId, int status, String body) throws IOException {
+        final ByteBuffer length = readFully(TcpFrame.LENGTH_PREFIX);
+        final ByteBuffer frame = readFully(length.getInt());
+
+        assertEquals(correlationId, frame.getLong());
+        assertEquals(status, frame.getShort());
+        final byte[] bytes = new byte[frame.remaining()];
+        frame.get(bytes);
+        assertEquals(body, new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    private ByteBuffer readFully(int size) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(size);
+        while (buffer.hasRemaining()) {
+            if (client.read(buffer) < 0) {
+                throw new IOException("Connection closed");
+            }
+        }
+
+        return buffer.flip();
+    }
+}
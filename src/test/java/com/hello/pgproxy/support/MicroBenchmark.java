@@ -0,0 +1,53 @@
+package com.hello.pgproxy.support;
+
+import java.util.StringJoiner;
+
+/**
+ * Timing loop shared by the {@code benchmark} tagged tests: every candidate is warmed up together, then timed alone.
+ * Numbers are rough, a sink of the results keeps the JIT from dropping the work.
+ */
+public final class MicroBenchmark {
+    private static final int WARMUP = 200_000;
+    private static final int ITERATIONS = 2_000_000;
+
+    private MicroBenchmark() {
+    }
+
+    @FunctionalInterface
+    public interface Operation {
+        /**
+         * @return any value derived from the result, added to the sink
+         */
+        long run() throws Exception;
+    }
+
+    public record Candidate(String name, Operation operation) {
+    }
+
+    /**
+     * Prints the ns per operation of each candidate on one line.
+     *
+     * @return the sink, positive if the operations produced anything
+     */
+    public static long compare(String title, Candidate... candidates) throws Exception {
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            for (Candidate candidate : candidates) {
+                sink += candidate.operation().run();
+            }
+        }
+
+        final StringJoiner report = new StringJoiner(", ", title + ": ", "");
+        for (Candidate candidate : candidates) {
+            final long startedAt = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                sink += candidate.operation().run();
+            }
+            final double nanos = (System.nanoTime() - startedAt) / (double) ITERATIONS;
+            report.add(String.format("%s %.1f ns/op", candidate.name(), nanos));
+        }
+
+        System.out.println(report + " (" + sink + ")");
+        return sink;
+    }
+}